@@ -0,0 +1,35 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.move.MoveList;
+
+/**
+ * Инкрементальное обновление состояний атак ({@code updateAttackStates}).
+ * Измеряется через {@link ChessBoard#makeMove(int)} и {@link ChessBoard#cancelMove(int)},
+ * которые кроме перестановки фигур только обновляют состояния атак.
+ * Одна операция - выполнение и отмена всех ходов позиции
+ */
+@State(Scope.Thread)
+public class AttackStatesBenchmark {
+
+	@Benchmark
+	public long updateAttackStates(PositionState state) {
+		final ChessBoard board = state.board;
+		final MoveList moves = state.intMoves;
+
+		long keys = 0;
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = moves.get(i);
+
+			board.makeMove(move);
+			keys ^= board.getZobristKey();
+			board.cancelMove(move);
+		}
+
+		return keys;
+	}
+}
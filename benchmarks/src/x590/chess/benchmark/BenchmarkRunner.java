@@ -0,0 +1,80 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Запускает все бенчмарки (или выбранные через аргументы командной строки JMH)
+ * в режимах пропускной способности и задержки, с профилировщиком GC для измерения скорости выделения памяти.
+ * Результаты сохраняются в {@code benchmarks/results} в формате JSON, чтобы их можно было сравнивать между версиями.
+ * Должен запускаться из корня проекта, так как при загрузке фигур читаются текстуры
+ */
+public final class BenchmarkRunner {
+
+	private BenchmarkRunner() {}
+
+	private static final String RESULTS_DIR = "benchmarks/results/";
+
+	private static final DateTimeFormatter RESULT_FILE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
+
+	private static final int
+			WARMUP_ITERATIONS = 5,
+			MEASUREMENT_ITERATIONS = 5,
+			FORKS = 1;
+
+	private static final TimeValue ITERATION_TIME = TimeValue.seconds(1);
+
+	public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+		Files.createDirectories(Path.of(RESULTS_DIR));
+
+		var commandLineOptions = new CommandLineOptions(args);
+
+		var options = new OptionsBuilder()
+				.parent(commandLineOptions)
+				.addProfiler(GCProfiler.class)
+				.jvmArgsAppend("-Djava.awt.headless=true")
+				.resultFormat(ResultFormatType.JSON)
+				.result(RESULTS_DIR + LocalDateTime.now().format(RESULT_FILE_FORMAT) + ".json");
+
+		// Значения по умолчанию, если они не заданы в командной строке
+		if (commandLineOptions.getIncludes().isEmpty()) {
+			options.include(BenchmarkRunner.class.getPackageName() + ".*");
+		}
+
+		if (commandLineOptions.getBenchModes().isEmpty()) {
+			options.mode(Mode.Throughput).mode(Mode.SampleTime);
+		}
+
+		if (!commandLineOptions.getTimeUnit().hasValue()) {
+			options.timeUnit(TimeUnit.MICROSECONDS);
+		}
+
+		if (!commandLineOptions.getWarmupIterations().hasValue()) {
+			options.warmupIterations(WARMUP_ITERATIONS).warmupTime(ITERATION_TIME);
+		}
+
+		if (!commandLineOptions.getMeasurementIterations().hasValue()) {
+			options.measurementIterations(MEASUREMENT_ITERATIONS).measurementTime(ITERATION_TIME);
+		}
+
+		if (!commandLineOptions.getForkCount().hasValue()) {
+			options.forks(FORKS);
+		}
+
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,46 @@
+package x590.chess.benchmark;
+
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.chess.playingside.PlayingSide;
+
+/**
+ * Играющая сторона без интерфейса для бенчмарков. Пешка всегда превращается в ферзя
+ */
+final class BenchmarkSide implements PlayingSide {
+
+	static final BenchmarkSide
+			WITHOUT_SNAPSHOTS = new BenchmarkSide(false),
+			WITH_SNAPSHOTS = new BenchmarkSide(true);
+
+	private final boolean shouldMakeSnapshots;
+
+	private BenchmarkSide(boolean shouldMakeSnapshots) {
+		this.shouldMakeSnapshots = shouldMakeSnapshots;
+	}
+
+	static BenchmarkSide of(boolean shouldMakeSnapshots) {
+		return shouldMakeSnapshots ? WITH_SNAPSHOTS : WITHOUT_SNAPSHOTS;
+	}
+
+	@Override
+	public String getName() {
+		return "benchmark";
+	}
+
+	@Override
+	public boolean canSelectField() {
+		return false;
+	}
+
+	@Override
+	public Figure queryPawnTurningFigure(Side side) {
+		return Figure.valueOf(side, FigureType.QUEEN);
+	}
+
+	@Override
+	public boolean shouldMakeSnapshots() {
+		return shouldMakeSnapshots;
+	}
+}
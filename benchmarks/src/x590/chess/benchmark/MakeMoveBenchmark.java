@@ -0,0 +1,27 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.infra.Blackhole;
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.move.IMove;
+import x590.chess.figure.step.IStep;
+
+/**
+ * Выполнение и отмена каждого легального хода позиции через объекты, как в игре:
+ * с проверкой хода и пересчётом всех возможных ходов после выполнения и отмены.
+ * Одна операция - все ходы позиции
+ */
+public class MakeMoveBenchmark {
+
+	@Benchmark
+	public void makeAndCancelMove(PositionState state, Blackhole blackhole) {
+		final ChessBoard board = state.board;
+
+		for (IMove move : state.moves) {
+			IStep prevStep = board.getLastStep();
+
+			blackhole.consume(board.makeMove(move, BenchmarkSide.WITHOUT_SNAPSHOTS, BenchmarkSide.WITHOUT_SNAPSHOTS));
+			board.cancelMove(move, prevStep, BenchmarkSide.WITHOUT_SNAPSHOTS);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import x590.chess.figure.move.IMove;
+import x590.chess.io.PacketInputStream;
+import x590.chess.io.PacketOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Запись и чтение ходов через {@link PacketOutputStream} и {@link PacketInputStream},
+ * как при передаче хода по сети. Одна операция - все ходы позиции
+ */
+@State(Scope.Thread)
+public class PacketBenchmark {
+
+	private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+	private byte[] serializedMoves;
+
+	@Setup
+	public void setup(PositionState state) throws IOException {
+		writeMoves(state);
+		serializedMoves = bytes.toByteArray();
+	}
+
+	@Benchmark
+	public int writeMoves(PositionState state) throws IOException {
+		bytes.reset();
+
+		var out = new PacketOutputStream(bytes);
+
+		for (IMove move : state.moves) {
+			out.write(move);
+		}
+
+		out.flush();
+		return bytes.size();
+	}
+
+	@Benchmark
+	public void readMoves(PositionState state, Blackhole blackhole) throws IOException {
+		var in = new PacketInputStream(new ByteArrayInputStream(serializedMoves));
+
+		for (int i = 0, size = state.moves.size(); i < size; i++) {
+			blackhole.consume(IMove.read(in));
+		}
+	}
+}
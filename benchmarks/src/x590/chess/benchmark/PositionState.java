@@ -0,0 +1,53 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import x590.chess.board.ChessBoard;
+import x590.chess.engine.PerftPosition;
+import x590.chess.figure.move.IMove;
+import x590.chess.figure.move.MoveList;
+import x590.chess.figure.step.IStep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Позиция из набора {@link PerftPosition} и все легальные ходы в ней.
+ * Позиции фиксированы, поэтому результаты разных запусков можно сравнивать между собой
+ */
+@State(Scope.Thread)
+public class PositionState {
+
+	@Param({ "START", "KIWIPETE", "ENDGAME", "PROMOTIONS", "TALKCHESS", "MIDDLEGAME" })
+	public PerftPosition position;
+
+	ChessBoard board;
+
+	/** Легальные ходы в виде объектов, как их получает интерфейс */
+	List<IMove> moves;
+
+	/** Легальные ходы, закодированные в {@code int} */
+	MoveList intMoves;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		board = ChessBoard.fromFen(position.getFen());
+		board.setup(BenchmarkSide.WITHOUT_SNAPSHOTS);
+
+		List<IMove> moves = new ArrayList<>();
+
+		board.forEachPossibleSteps((pos, steps) -> {
+			for (IStep step : steps) {
+				moves.add(step.asMove(pos, board));
+			}
+		});
+
+		this.moves = moves;
+
+		intMoves = new MoveList();
+		board.generateLegalMoves(intMoves);
+	}
+}
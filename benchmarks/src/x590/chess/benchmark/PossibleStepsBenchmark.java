@@ -0,0 +1,35 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import x590.chess.board.ChessBoard;
+
+/**
+ * Расчёт всех возможных ходов текущей стороны.
+ * {@link ChessBoard#setup(x590.chess.playingside.PlayingSide)} вызывает {@code computeAllPossibleSteps}
+ * с флагом создания снимков, который берётся из играющей стороны
+ */
+@State(Scope.Thread)
+public class PossibleStepsBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean snapshots;
+
+	private BenchmarkSide side;
+
+	@Setup
+	public void setup() {
+		side = BenchmarkSide.of(snapshots);
+	}
+
+	@Benchmark
+	public void computeAllPossibleSteps(PositionState state, Blackhole blackhole) {
+		ChessBoard board = state.board;
+		board.setup(side);
+		blackhole.consume(board.getKingPos());
+	}
+}
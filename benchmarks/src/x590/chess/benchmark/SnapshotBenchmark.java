@@ -0,0 +1,54 @@
+package x590.chess.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import x590.chess.board.ChessBoard;
+import x590.chess.board.Snapshot;
+import x590.chess.figure.Side;
+import x590.chess.figure.step.IStep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Оценка снимков позиций ({@link Snapshot#getNice(Side)}).
+ * Снимок запоминает оценку после первого вызова, поэтому перед каждым вызовом бенчмарка
+ * снимки создаются заново (это время не учитывается).
+ * Одна операция - оценка снимков всех ходов позиции
+ */
+@State(Scope.Thread)
+public class SnapshotBenchmark {
+
+	private final List<Snapshot> snapshots = new ArrayList<>();
+	private Side side;
+
+	@Setup(Level.Invocation)
+	public void setup(PositionState state) {
+		ChessBoard board = state.board;
+		board.setup(BenchmarkSide.WITH_SNAPSHOTS);
+
+		side = board.currentSide();
+
+		snapshots.clear();
+
+		for (Map<IStep, Snapshot> stepSnapshots : board.getAllSnapshots().values()) {
+			snapshots.addAll(stepSnapshots.values());
+		}
+	}
+
+	@Benchmark
+	public int getNice() {
+		final Side side = this.side;
+		int nice = 0;
+
+		for (Snapshot snapshot : snapshots) {
+			nice += snapshot.getNice(side);
+		}
+
+		return nice;
+	}
+}
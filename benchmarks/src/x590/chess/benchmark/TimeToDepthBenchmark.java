@@ -0,0 +1,103 @@
+package x590.chess.benchmark;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.engine.LazySmpSearch;
+import x590.chess.engine.PerftPosition;
+import x590.chess.engine.SearchResult;
+import x590.chess.engine.TranspositionTable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Измеряет время поиска до фиксированной глубины в зависимости от количества потоков {@link LazySmpSearch}.
+ * Для каждого количества потоков (1, 2, 4, ... до количества процессоров) выполняется поиск
+ * во всех позициях из {@link #POSITIONS} с чистой таблицей транспозиций, и выводится медиана
+ * суммарного времени, ускорение относительно одного потока и количество позиций в секунду.
+ * <p>
+ * Это не JMH бенчмарк, так как один поиск длится секунды и нужен режим одиночного запуска с
+ * таблицей, которая очищается перед каждым поиском. Запуск из корня проекта:
+ * <pre>
+ * java x590.chess.benchmark.TimeToDepthBenchmark [DEPTH [REPEATS [MAX_THREADS]]]
+ * </pre>
+ */
+public final class TimeToDepthBenchmark {
+
+	private TimeToDepthBenchmark() {}
+
+	private static final PerftPosition[] POSITIONS = {
+			PerftPosition.START,
+			PerftPosition.KIWIPETE,
+			PerftPosition.MIDDLEGAME
+	};
+
+	private static final int
+			DEFAULT_DEPTH = 6,
+			DEFAULT_REPEATS = 3,
+			HASH_SIZE = 64;
+
+	public static void main(String[] args) {
+		int depth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+		int repeats = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_REPEATS;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+		var table = new TranspositionTable(HASH_SIZE);
+
+		// Прогрев JIT, результаты не учитываются
+		measure(table, 1, depth - 1);
+
+		long singleThreadTime = 0;
+
+		System.out.printf("Depth %d, %d repeats%n", depth, repeats);
+		System.out.printf("%8s %12s %8s %14s %12s%n", "threads", "time, ms", "speedup", "nodes", "nodes/s");
+
+		for (int threads = 1; threads <= maxThreads; threads = nextThreadsCount(threads, maxThreads)) {
+			List<long[]> measurements = new ArrayList<>(repeats);
+
+			for (int i = 0; i < repeats; i++) {
+				measurements.add(measure(table, threads, depth));
+			}
+
+			measurements.sort((m1, m2) -> Long.compare(m1[0], m2[0]));
+
+			long[] median = measurements.get(measurements.size() / 2);
+			long time = median[0],
+				nodes = median[1];
+
+			if (threads == 1) {
+				singleThreadTime = time;
+			}
+
+			System.out.printf("%8d %12d %8.2f %14d %12d%n",
+					threads, time / 1_000_000, (double) singleThreadTime / time,
+					nodes, time == 0 ? 0 : nodes * 1_000_000_000 / time);
+		}
+	}
+
+	private static int nextThreadsCount(int threads, int maxThreads) {
+		return threads < maxThreads && threads * 2 > maxThreads ? maxThreads : threads * 2;
+	}
+
+	/**
+	 * @return Суммарное время в наносекундах и количество позиций поиска до глубины {@code depth} во всех позициях
+	 */
+	private static long[] measure(TranspositionTable table, int threads, int depth) {
+		long time = 0,
+			nodes = 0;
+
+		try (var search = new LazySmpSearch(table, threads)) {
+			for (PerftPosition position : POSITIONS) {
+				ChessBoard board = ChessBoard.fromFen(position.getFen());
+				table.clear();
+
+				long startTime = System.nanoTime();
+				SearchResult result = search.search(board, depth, 0);
+				time += System.nanoTime() - startTime;
+
+				nodes += result.nodes();
+			}
+		}
+
+		return new long[] { time, nodes };
+	}
+}
@@ -2,12 +2,14 @@ package x590.chess;
 
 import x590.chess.board.ChessBoard;
 import x590.chess.config.Config;
+import x590.chess.engine.tablebase.Tablebases;
 import x590.chess.figure.Side;
 import x590.chess.gui.*;
 import x590.chess.gui.game.GamePanel;
 import x590.chess.playingside.*;
 import x590.chess.playingside.bot.LogicLocalBot;
 import x590.chess.playingside.bot.RandomLocalBot;
+import x590.chess.playingside.bot.SearchLocalBot;
 import x590.chess.playingside.remote.ClientboundRemotePlayingSide;
 import x590.chess.playingside.remote.ServerboundRemotePlayingSide;
 
@@ -70,8 +72,8 @@ public class Main {
 		Supplier<PlayingSide> monopolisticLocalPlayerCreator = MonopolisticLocalPlayer::new;
 
 		Supplier<PlayingSide> opponentSideCreator = GuiUtil.showOptionDialog("Играть:", "",
-				new String[] { "С собой", "С рандомным ботом", "С линейным ботом" },
-				monopolisticLocalPlayerCreator, RandomLocalBot::new, LogicLocalBot::new);
+				new String[] { "С собой", "С рандомным ботом", "С линейным ботом", "С переборным ботом" },
+				monopolisticLocalPlayerCreator, RandomLocalBot::new, LogicLocalBot::new, SearchLocalBot::new);
 
 		if (opponentSideCreator == null) {
 			exitNormally();
@@ -174,8 +176,11 @@ public class Main {
 	private static void runGame(String title, PlayingSide thisPlayingSide, PlayingSide opponentPlayingSide,
 								Supplier<Side> sideSupplier, boolean isWithSelf) {
 
+		ChessBoard board = ChessBoard.defaultPlacement();
+		board.setDrawAdjudicator(Tablebases.tryOpen(config.getTablebaseDrawPath()));
+
 		frame.setTitle(title);
-		frame.add(new GamePanel(ChessBoard.defaultPlacement(), sideSupplier, thisPlayingSide, opponentPlayingSide, isWithSelf));
+		frame.add(new GamePanel(board, sideSupplier, thisPlayingSide, opponentPlayingSide, isWithSelf));
 		frame.setVisible(true);
 	}
 
@@ -0,0 +1,129 @@
+package x590.chess.bitboard;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Pos;
+
+import java.util.function.IntConsumer;
+
+/**
+ * Вспомогательные методы для работы с битбордами.
+ * Битборд - это 64-битная маска, в которой каждому полю доски соответствует один бит.
+ * Поле с координатами {@code (x, y)} соответствует биту с индексом {@code y * 8 + x},
+ * то есть поле A1 - младшему биту, а H8 - старшему.
+ */
+public final class Bitboards {
+
+	private Bitboards() {}
+
+	/** Количество полей на доске */
+	public static final int SQUARES = ChessBoard.SIZE * ChessBoard.SIZE;
+
+	/** Индекс, обозначающий отсутствие поля */
+	public static final int NO_SQUARE = -1;
+
+	public static final long
+			EMPTY = 0L,
+			ALL = -1L,
+			FILE_A = 0x0101010101010101L,
+			FILE_H = FILE_A << ChessBoard.END,
+			RANK_1 = 0xFFL,
+			RANK_8 = RANK_1 << (ChessBoard.END * ChessBoard.SIZE);
+
+	/**
+	 * @return Индекс поля с координатами {@code x} и {@code y}
+	 */
+	public static int index(int x, int y) {
+		return y * ChessBoard.SIZE + x;
+	}
+
+	/**
+	 * @return Координату x поля с индексом {@code index}
+	 */
+	public static int x(int index) {
+		return index & ChessBoard.END;
+	}
+
+	/**
+	 * @return Координату y поля с индексом {@code index}
+	 */
+	public static int y(int index) {
+		return index >>> 3;
+	}
+
+	/**
+	 * @return Битборд, в котором установлен только бит поля с индексом {@code index}
+	 */
+	public static long bit(int index) {
+		return 1L << index;
+	}
+
+	/**
+	 * @return Битборд, в котором установлен только бит поля {@code pos}
+	 */
+	public static long bit(Pos pos) {
+		return 1L << pos.getIndex();
+	}
+
+	/**
+	 * @return {@code true}, если в битборде установлен бит поля с индексом {@code index}
+	 */
+	public static boolean has(long bitboard, int index) {
+		return (bitboard >>> index & 1) != 0;
+	}
+
+	/**
+	 * @return {@code true}, если в битборде установлен бит поля {@code pos}
+	 */
+	public static boolean has(long bitboard, Pos pos) {
+		return has(bitboard, pos.getIndex());
+	}
+
+	/**
+	 * @return Количество установленных битов
+	 */
+	public static int count(long bitboard) {
+		return Long.bitCount(bitboard);
+	}
+
+	/**
+	 * @return Индекс младшего установленного бита. Битборд не должен быть пустым
+	 */
+	public static int first(long bitboard) {
+		return Long.numberOfTrailingZeros(bitboard);
+	}
+
+	/**
+	 * @return Битборд без младшего установленного бита
+	 */
+	public static long removeFirst(long bitboard) {
+		return bitboard & (bitboard - 1);
+	}
+
+	/**
+	 * Применяет переданную функцию к индексу каждого установленного бита,
+	 * начиная с младшего
+	 */
+	public static void forEach(long bitboard, IntConsumer eachFunction) {
+		for (; bitboard != 0; bitboard &= bitboard - 1) {
+			eachFunction.accept(Long.numberOfTrailingZeros(bitboard));
+		}
+	}
+
+	/**
+	 * @return Строковое представление битборда в виде доски 8x8, горизонталь 8 сверху.
+	 * Удобно для отладки
+	 */
+	public static String toString(long bitboard) {
+		var str = new StringBuilder(SQUARES + ChessBoard.SIZE);
+
+		for (int y = ChessBoard.END; y >= ChessBoard.START; y--) {
+			for (int x = ChessBoard.START; x <= ChessBoard.END; x++) {
+				str.append(has(bitboard, index(x, y)) ? '1' : '.');
+			}
+
+			str.append('\n');
+		}
+
+		return str.toString();
+	}
+}
@@ -0,0 +1,68 @@
+package x590.chess.bitboard;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Direction;
+import x590.chess.figure.Side;
+
+import java.util.Set;
+
+import static x590.chess.bitboard.Bitboards.SQUARES;
+
+/**
+ * Предвычисленные таблицы атак фигур, которые ходят на фиксированное смещение:
+ * коня, короля и пешки. Атаки не зависят от расстановки остальных фигур,
+ * поэтому для каждого поля хранится ровно один битборд.
+ * Массивы не копируются, их нельзя изменять.
+ */
+public final class LeaperAttacks {
+
+	private LeaperAttacks() {}
+
+	private static final long[]
+			KNIGHT = computeAttacks(Direction.KNIGHT),
+			KING = computeAttacks(Direction.VERTICAL_HORIZONTAL_AND_DIAGONAL),
+			WHITE_PAWN = computeAttacks(Set.of(Direction.UP_LEFT, Direction.UP_RIGHT)),
+			BLACK_PAWN = computeAttacks(Set.of(Direction.DOWN_LEFT, Direction.DOWN_RIGHT));
+
+	/**
+	 * @return Битборд полей, атакованных конём с поля {@code square}
+	 */
+	public static long knightAttacks(int square) {
+		return KNIGHT[square];
+	}
+
+	/**
+	 * @return Битборд полей, атакованных королём с поля {@code square}
+	 */
+	public static long kingAttacks(int square) {
+		return KING[square];
+	}
+
+	/**
+	 * @return Битборд полей, атакованных пешкой стороны {@code side} с поля {@code square}
+	 */
+	public static long pawnAttacks(Side side, int square) {
+		return side == Side.WHITE ? WHITE_PAWN[square] : BLACK_PAWN[square];
+	}
+
+	private static long[] computeAttacks(Set<Direction> directions) {
+		long[] attacks = new long[SQUARES];
+
+		for (int square = 0; square < SQUARES; square++) {
+			long squareAttacks = 0;
+
+			for (Direction direction : directions) {
+				int x = Bitboards.x(square) + direction.getXOffset(),
+					y = Bitboards.y(square) + direction.getYOffset();
+
+				if (x >= ChessBoard.START && x <= ChessBoard.END && y >= ChessBoard.START && y <= ChessBoard.END) {
+					squareAttacks |= Bitboards.bit(Bitboards.index(x, y));
+				}
+			}
+
+			attacks[square] = squareAttacks;
+		}
+
+		return attacks;
+	}
+}
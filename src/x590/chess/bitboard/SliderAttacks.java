@@ -0,0 +1,216 @@
+package x590.chess.bitboard;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Direction;
+
+import java.util.Set;
+
+import static x590.chess.bitboard.Bitboards.SQUARES;
+
+/**
+ * Таблицы атак дальнобойных фигур (ладьи, слона и ферзя), построенные методом магических битбордов.
+ * Для каждого поля хранится маска значимых блокирующих полей (без краёв доски), магическое число
+ * и таблица атак, индексируемая по {@code (occupancy & mask) * magic >>> shift}.
+ * Все таблицы строятся один раз при загрузке класса.
+ * <p>
+ * Магические числа были найдены заранее перебором случайных чисел с малым количеством битов.
+ * При построении таблиц каждое число проверяется, так что ошибка в нём приведёт
+ * к {@link ExceptionInInitializerError}, а не к неверным атакам.
+ */
+public final class SliderAttacks {
+
+	private SliderAttacks() {}
+
+	private static final long[]
+			ROOK_MAGICS = {
+				0x1080004008801020L, 0x0840092002C03000L, 0x1900200010400900L, 0x0880100008000480L,
+				0x4200100420080200L, 0x8100020100080400L, 0x0200040110886200L, 0x0200008040220411L,
+				0x0404800084400220L, 0x0000401000402000L, 0x0086001081220440L, 0x0408800800100280L,
+				0x000A001201040820L, 0x8848800200840080L, 0x4001000100040200L, 0x0442000102105084L,
+				0x9080010020804100L, 0x0040404000201009L, 0x0000808010002009L, 0x2200090021D00100L,
+				0x0008008008040080L, 0x0004004002010040L, 0x0011040008015042L, 0x00000A0001768104L,
+				0x0000800080204009L, 0x2010004140002001L, 0x9800200280100080L, 0x1000100080080080L,
+				0x0050500500080100L, 0x0000020080040080L, 0x0C10010400420810L, 0x1040008200005104L,
+				0x01808240088004A0L, 0x0882804004802000L, 0x0880402001001100L, 0x2000210409001000L,
+				0x2000480131001500L, 0x0000800400800200L, 0x000002380C001003L, 0x4600084882000431L,
+				0x0080002000504000L, 0x0300500020004002L, 0x0040408200220011L, 0x0010040008004040L,
+				0x0000080004008080L, 0x0010040002008080L, 0x2012004881020004L, 0x8300842444820011L,
+				0x0088403882010200L, 0x0820400080210100L, 0x0110910040A00300L, 0x0801100280080480L,
+				0x0242009008200600L, 0x1002000489500200L, 0x0040800200010080L, 0x0091800041000080L,
+				0x0000209300488001L, 0x04C1002414824001L, 0x020020000B001041L, 0x7000100004200901L,
+				0x8002002004100802L, 0x30010002084C0007L, 0x0888221800813004L, 0x4000002840840112L
+			},
+
+			BISHOP_MAGICS = {
+				0x20C0090901061081L, 0x0024040094030104L, 0x8210810200290200L, 0x0011040484620000L,
+				0x0081104002221000L, 0x0009012011001350L, 0x0081010802400380L, 0x0000420210010408L,
+				0x0008105002280050L, 0x0001028484040044L, 0x2A00880810408804L, 0x7020022282000100L,
+				0x0084040420100A50L, 0x000401010840E000L, 0x2020020210420888L, 0x0008084202012010L,
+				0x2010400810018800L, 0x0445122008020840L, 0x0804100808002008L, 0x0008002104110100L,
+				0x0061005820080800L, 0x2001000200820100L, 0x480C210084010800L, 0x3004442500480420L,
+				0x1010102240048100L, 0x00182009084220A3L, 0x8803090A10004205L, 0x0208080040202020L,
+				0x000C044084010040L, 0x00A1010002004106L, 0x6008210020640202L, 0x1600902112860801L,
+				0x00042008C1220200L, 0x010C042002440140L, 0x5022080200040820L, 0x0402004042940100L,
+				0x0860108400008020L, 0x000C080022021000L, 0x0264080652822100L, 0x4005031221010401L,
+				0x0004502410008400L, 0x000500B010A20400L, 0x0415094050080800L, 0x080000201800A104L,
+				0x4022A80304000110L, 0x4012140802028020L, 0x40200104010100A0L, 0x12810806008B0C41L,
+				0x0020441008080000L, 0x2002120084045420L, 0x0704020062080002L, 0x0000001084040001L,
+				0x0322200891240200L, 0xF040200210024800L, 0x0140824832008042L, 0x000210020A004602L,
+				0x0083042805141020L, 0x002C12009A011000L, 0x0041A00044140400L, 0x00004004020A0202L,
+				0x0000140010020210L, 0x2864160811012200L, 0x2060080841082A17L, 0xA010041108003100L
+			};
+
+	private static final long[]
+			ROOK_MASKS = new long[SQUARES],
+			BISHOP_MASKS = new long[SQUARES];
+
+	private static final int[]
+			ROOK_SHIFTS = new int[SQUARES],
+			BISHOP_SHIFTS = new int[SQUARES];
+
+	private static final long[][]
+			ROOK_ATTACKS = new long[SQUARES][],
+			BISHOP_ATTACKS = new long[SQUARES][];
+
+	/** Поля строго между двумя полями, лежащими на одной линии. Для остальных пар - пустой битборд */
+	private static final long[][] BETWEEN = new long[SQUARES][SQUARES];
+
+	static {
+		for (int square = 0; square < SQUARES; square++) {
+			initSquare(square, Direction.VERTICAL_AND_HORIZONTAL, ROOK_MAGICS[square], ROOK_MASKS, ROOK_SHIFTS, ROOK_ATTACKS);
+			initSquare(square, Direction.DIAGONAL, BISHOP_MAGICS[square], BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_ATTACKS);
+			initBetween(square);
+		}
+	}
+
+	/**
+	 * @return Битборд полей, атакованных ладьёй с поля {@code square}
+	 * при занятых полях {@code occupancy} (включая поля с блокирующими фигурами)
+	 */
+	public static long rookAttacks(int square, long occupancy) {
+		return ROOK_ATTACKS[square][(int) ((occupancy & ROOK_MASKS[square]) * ROOK_MAGICS[square] >>> ROOK_SHIFTS[square])];
+	}
+
+	/**
+	 * @return Битборд полей, атакованных слоном с поля {@code square}
+	 * при занятых полях {@code occupancy} (включая поля с блокирующими фигурами)
+	 */
+	public static long bishopAttacks(int square, long occupancy) {
+		return BISHOP_ATTACKS[square][(int) ((occupancy & BISHOP_MASKS[square]) * BISHOP_MAGICS[square] >>> BISHOP_SHIFTS[square])];
+	}
+
+	/**
+	 * @return Битборд полей, атакованных ферзём с поля {@code square}
+	 * при занятых полях {@code occupancy} (включая поля с блокирующими фигурами)
+	 */
+	public static long queenAttacks(int square, long occupancy) {
+		return rookAttacks(square, occupancy) | bishopAttacks(square, occupancy);
+	}
+
+	/**
+	 * @return Битборд полей строго между полями {@code from} и {@code to}, если они лежат
+	 * на одной вертикали, горизонтали или диагонали, иначе пустой битборд
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+
+	private static void initBetween(int square) {
+		for (Direction direction : Direction.VERTICAL_HORIZONTAL_AND_DIAGONAL) {
+			int dx = direction.getXOffset(),
+				dy = direction.getYOffset();
+
+			long ray = 0;
+
+			for (int x = Bitboards.x(square) + dx, y = Bitboards.y(square) + dy; isOnBoard(x, y); x += dx, y += dy) {
+				int index = Bitboards.index(x, y);
+				BETWEEN[square][index] = ray;
+				ray |= Bitboards.bit(index);
+			}
+		}
+	}
+
+	private static void initSquare(int square, Set<Direction> directions, long magic,
+								   long[] masks, int[] shifts, long[][] attacks) {
+
+		long mask = relevantMask(square, directions);
+		int bits = Bitboards.count(mask);
+		int shift = SQUARES - bits;
+
+		long[] table = new long[1 << bits];
+		boolean[] filled = new boolean[table.length];
+
+		// Перебираем все подмножества маски (приём Carry-Rippler)
+		long subset = 0;
+
+		do {
+			int index = (int) (subset * magic >>> shift);
+			long squareAttacks = slidingAttacks(square, subset, directions);
+
+			if (filled[index] && table[index] != squareAttacks) {
+				throw new IllegalStateException("Wrong magic number for square " + square);
+			}
+
+			filled[index] = true;
+			table[index] = squareAttacks;
+
+			subset = (subset - mask) & mask;
+		} while (subset != 0);
+
+		masks[square] = mask;
+		shifts[square] = shift;
+		attacks[square] = table;
+	}
+
+	/**
+	 * @return Маску полей, которые могут блокировать фигуру. Крайние поля каждого луча
+	 * не учитываются, так как они атакуются независимо от того, заняты они или нет
+	 */
+	private static long relevantMask(int square, Set<Direction> directions) {
+		long mask = 0;
+
+		for (Direction direction : directions) {
+			int dx = direction.getXOffset(),
+				dy = direction.getYOffset();
+
+			int x = Bitboards.x(square) + dx,
+				y = Bitboards.y(square) + dy;
+
+			while (isOnBoard(x + dx, y + dy)) {
+				mask |= Bitboards.bit(Bitboards.index(x, y));
+				x += dx;
+				y += dy;
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * @return Атаки, вычисленные проходом по лучам. Используется только для построения таблиц
+	 */
+	static long slidingAttacks(int square, long occupancy, Set<Direction> directions) {
+		long attacks = 0;
+
+		for (Direction direction : directions) {
+			int dx = direction.getXOffset(),
+				dy = direction.getYOffset();
+
+			for (int x = Bitboards.x(square) + dx, y = Bitboards.y(square) + dy; isOnBoard(x, y); x += dx, y += dy) {
+				long bit = Bitboards.bit(Bitboards.index(x, y));
+				attacks |= bit;
+
+				if ((occupancy & bit) != 0) {
+					break;
+				}
+			}
+		}
+
+		return attacks;
+	}
+
+	private static boolean isOnBoard(int x, int y) {
+		return x >= ChessBoard.START && x <= ChessBoard.END && y >= ChessBoard.START && y <= ChessBoard.END;
+	}
+}
@@ -0,0 +1,46 @@
+package x590.chess.board;
+
+import x590.chess.figure.Figure;
+import x590.chess.figure.Side;
+
+/**
+ * Упакованные счётчики фигур, которыми атаковано поле:
+ * по {@value #COUNTER_BITS} бита на каждую фигуру в порядке {@link Figure#ordinal()}.
+ * Снимки позиций хранят счётчики в массиве {@code long} и обновляют их на месте
+ */
+final class AttackCounters {
+
+	private AttackCounters() {}
+
+	/** Бит на счётчик одной фигуры. Одно поле не могут атаковать больше 15 одинаковых фигур */
+	static final int COUNTER_BITS = 4;
+
+	private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+	/** Маски счётчиков всех фигур стороны, индексируются по {@link Side#ordinal()} */
+	private static final long[] SIDE_MASKS = new long[Side.values().length];
+
+	static {
+		for (Figure figure : Figure.values()) {
+			SIDE_MASKS[figure.getSide().ordinal()] |= COUNTER_MASK << shift(figure);
+		}
+	}
+
+	private static int shift(Figure figure) {
+		return figure.ordinal() * COUNTER_BITS;
+	}
+
+	/**
+	 * @return Счётчики {@code counters}, в которых увеличен счётчик фигуры {@code figure}
+	 */
+	static long increment(long counters, Figure figure) {
+		return counters + (1L << shift(figure));
+	}
+
+	/**
+	 * @return {@code true}, если в счётчиках {@code counters} есть хотя бы одна фигура стороны {@code side}
+	 */
+	static boolean isAttackedBy(long counters, Side side) {
+		return (counters & SIDE_MASKS[side.ordinal()]) != 0;
+	}
+}
@@ -1,15 +1,20 @@
 package x590.chess.board;
 
+import x590.chess.bitboard.Bitboards;
+import x590.chess.bitboard.LeaperAttacks;
+import x590.chess.bitboard.SliderAttacks;
 import x590.chess.figure.Pos;
 import x590.chess.figure.FigureType;
 import x590.chess.figure.move.IMove;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.step.IStep;
 import x590.chess.figure.step.IStep.IExtraStep;
 import x590.chess.figure.Figure;
 import x590.chess.figure.Side;
+import x590.chess.figure.Worth;
 import x590.chess.figure.step.StepResult;
 import x590.chess.playingside.PlayingSide;
-import x590.util.ArrayUtil;
 import x590.util.annotation.Immutable;
 import x590.util.annotation.Nullable;
 
@@ -19,7 +24,6 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static x590.chess.figure.Figure.*;
-import static x590.chess.board.SimpleAttackState.*;
 
 /**
  * Представляет собой шахматную доску
@@ -35,6 +39,21 @@ public class ChessBoard {
 	/** Последняя координата шахматной доски */
 	public static final int END = SIZE - 1;
 
+	/** Стадия игры в начальной позиции (см. {@link #getPhase()}) */
+	public static final int MAX_PHASE = PieceSquareTables.MAX_PHASE;
+
+
+	/** Наибольшая длина цепочки взятий на одном поле вместе с первым */
+	static final int MAX_EXCHANGE_LENGTH = Bitboards.SQUARES / 2;
+
+	private static final Figure[] FIGURES = Figure.values();
+
+	/** Фигуры каждой стороны от самой дешёвой к самой дорогой, индексируются по {@link Side#ordinal()} */
+	private static final Figure[][] FIGURES_BY_WORTH = {
+		{ WHITE_PAWN, WHITE_KNIGHT, WHITE_BISHOP, WHITE_ROOK, WHITE_QUEEN, WHITE_KING },
+		{ BLACK_PAWN, BLACK_KNIGHT, BLACK_BISHOP, BLACK_ROOK, BLACK_QUEEN, BLACK_KING },
+	};
+
 
 	private static final Figure[][] DEFAULT_BOARD = {
 		{ WHITE_ROOK, WHITE_KNIGHT, WHITE_BISHOP, WHITE_QUEEN, WHITE_KING, WHITE_BISHOP, WHITE_KNIGHT, WHITE_ROOK },
@@ -47,16 +66,13 @@ public class ChessBoard {
 		{ BLACK_ROOK, BLACK_KNIGHT, BLACK_BISHOP, BLACK_QUEEN, BLACK_KING, BLACK_BISHOP, BLACK_KNIGHT, BLACK_ROOK },
 	};
 
-	private static final AttackState[][] DEFAULT_ATTACK_STATES = {
-		{      NOT_ATTACKED, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE,      NOT_ATTACKED },
-		{ ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE },
-		{ ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE, ATTACKED_BY_WHITE },
-		{      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED },
-		{      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED,      NOT_ATTACKED },
-		{ ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK },
-		{ ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK },
-		{      NOT_ATTACKED, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK, ATTACKED_BY_BLACK,      NOT_ATTACKED },
-	};
+	/**
+	 * Использовать ли по умолчанию генератор легальных ходов по маскам шахов и связок
+	 * вместо проверки каждого хода его выполнением
+	 */
+	public static final boolean DEFAULT_USE_LEGAL_STEPS_GENERATOR = true;
+
+	private static final int INITIAL_HISTORY_CAPACITY = 64;
 
 	private static final Pos
 			DEFULT_WHITE_KING_POS = Pos.of(4, START),
@@ -64,7 +80,34 @@ public class ChessBoard {
 
 
 	private final Figure[][] board;
-	private AttackState[][] attackStates;
+
+	/** Битборды полей, атакованных каждой стороной, индексируются по {@link Side#ordinal()}.
+	 * Всегда соответствуют {@link #controlledFields} */
+	private final long[] attackedBitboards = new long[2];
+
+	/** Битборды полей, контролируемых фигурой на каждом поле (или 0 для пустого поля).
+	 * Индексируются по {@link Pos#getIndex()} */
+	private final long[] controlledFields = new long[Bitboards.SQUARES];
+
+	/** Буферы для сохранения состояний атак на время пробных ходов */
+	private final long[] savedAttackedBitboards = new long[2];
+	private final long[] savedControlledFields = new long[Bitboards.SQUARES];
+
+	/** Битборды для каждой фигуры, индексируются по {@link Figure#ordinal()} */
+	private final long[] figureBitboards = new long[Figure.COUNT];
+
+	/** Битборды всех фигур каждой стороны, индексируются по {@link Side#ordinal()} */
+	private final long[] sideBitboards = new long[2];
+
+	/** Часть хэша Зобриста, зависящая только от расстановки фигур. Обновляется в {@link #setFigure(Pos, Figure)} */
+	private long figuresKey;
+
+	/** Суммы оценок всех фигур на их полях для миттельшпиля и эндшпиля с точки зрения белых (см. {@link PieceSquareTables}).
+	 * Обновляются в {@link #setFigure(Pos, Figure)} */
+	private int middlegameScore, endgameScore;
+
+	/** Стадия игры: сумма вкладов всех фигур на доске (см. {@link PieceSquareTables#phase(Figure)}) */
+	private int phase;
 
 	/** Кэшированные варианты ходов */
 	private final Map<Pos, @Immutable List<? extends IStep>> cachedSteps = new HashMap<>();
@@ -81,14 +124,75 @@ public class ChessBoard {
 
 	private @Nullable IStep lastStep;
 
+	/** Индекс поля пешки, которая последним ходом прошла две клетки, или {@link Bitboards#NO_SQUARE} */
+	private int doublePawnStepSquare = Bitboards.NO_SQUARE;
+
+	/** Значения {@link #doublePawnStepSquare} до каждого хода, сделанного через {@link #makeMove(int)} */
+	private int[] doublePawnStepSquareHistory = new int[INITIAL_HISTORY_CAPACITY];
+	private int historySize;
+
+	private boolean useLegalStepsGenerator = DEFAULT_USE_LEGAL_STEPS_GENERATOR;
+
+	/** Поля, на которые может ходить фигура (кроме короля), чтобы закрыться от шаха.
+	 * Без шаха - все поля, при двойном шахе - ни одного */
+	private long checkMask;
+
+	/** Связанные фигуры текущей стороны */
+	private long pinnedFigures;
+
+	/** Линии связки для каждой связанной фигуры (включая связывающую фигуру), индексируются по {@link Pos#getIndex()} */
+	private final long[] pinRays = new long[Bitboards.SQUARES];
+
+	/** Буфер выигрышей для {@link #staticExchange(int, Side)} */
+	private final int[] exchangeGains = new int[MAX_EXCHANGE_LENGTH];
 
-	private ChessBoard(Side initalSide, Figure[][] board, AttackState[][] attackStates, Pos whiteKingPos, Pos blackKingPos) {
+	/** Определяет ничью после хода, или {@code null} */
+	private @Nullable DrawAdjudicator drawAdjudicator;
+
+
+	private ChessBoard(Side initalSide, Figure[][] board, Pos whiteKingPos, Pos blackKingPos) {
 		this.currentSide = initalSide;
 		this.board = board;
-		this.attackStates = attackStates;
 		this.whiteData = new SideData(whiteKingPos);
 		this.blackData = new SideData(blackKingPos);
-		this.currentData = whiteData;
+		this.currentData = initalSide.choose(whiteData, blackData);
+	}
+
+	/**
+	 * Создаёт независимую копию {@code other}
+	 */
+	private ChessBoard(ChessBoard other) {
+		this.board = new Figure[SIZE][];
+
+		for (int y = 0; y < SIZE; y++) {
+			this.board[y] = other.board[y].clone();
+		}
+
+		System.arraycopy(other.attackedBitboards, 0, this.attackedBitboards, 0, attackedBitboards.length);
+		System.arraycopy(other.controlledFields, 0, this.controlledFields, 0, Bitboards.SQUARES);
+		System.arraycopy(other.figureBitboards, 0, this.figureBitboards, 0, Figure.COUNT);
+		System.arraycopy(other.sideBitboards, 0, this.sideBitboards, 0, sideBitboards.length);
+		this.figuresKey = other.figuresKey;
+		this.middlegameScore = other.middlegameScore;
+		this.endgameScore = other.endgameScore;
+		this.phase = other.phase;
+
+		this.cachedSteps.putAll(other.cachedSteps);
+		this.cachedSnapshots.putAll(other.cachedSnapshots);
+		this.immutableCachedSnapshots = other.immutableCachedSnapshots == null ? null :
+				Collections.unmodifiableMap(cachedSnapshots);
+
+		this.whiteData = new SideData(other.whiteData);
+		this.blackData = new SideData(other.blackData);
+		this.currentSide = other.currentSide;
+		this.currentData = currentSide.choose(whiteData, blackData);
+
+		this.lastStep = other.lastStep;
+		this.doublePawnStepSquare = other.doublePawnStepSquare;
+		this.doublePawnStepSquareHistory = other.doublePawnStepSquareHistory.clone();
+		this.historySize = other.historySize;
+		this.useLegalStepsGenerator = other.useLegalStepsGenerator;
+		this.drawAdjudicator = other.drawAdjudicator;
 	}
 
 	/**
@@ -98,7 +202,6 @@ public class ChessBoard {
 		var instance = new ChessBoard(
 				Side.WHITE,
 				new Figure[SIZE][SIZE],
-				new AttackState[SIZE][SIZE],
 				DEFULT_WHITE_KING_POS,
 				DEFULT_BLACK_KING_POS
 		);
@@ -108,11 +211,176 @@ public class ChessBoard {
 		return instance;
 	}
 
+	/**
+	 * @return Новый экземпляр {@link ChessBoard} с позицией, заданной в нотации FEN.
+	 * Счётчики ходов из FEN не учитываются
+	 * @throws IllegalArgumentException если строка не является правильной записью FEN
+	 * или у одной из сторон нет ровно одного короля
+	 */
+	public static ChessBoard fromFen(String fen) {
+		return Fen.parse(fen);
+	}
+
+	/**
+	 * @return Позицию в нотации FEN
+	 */
+	public String toFen() {
+		return Fen.toString(this);
+	}
+
+	/**
+	 * @return Новый экземпляр {@link ChessBoard} с произвольной расстановкой фигур
+	 * @param figures расстановка фигур, индексируется как {@code figures[y][x]}. Используется без копирования
+	 * @param castlingRights права на рокировку, комбинация флагов {@link Fen}
+	 * @param doublePawnStepSquare поле пешки, которую можно взять на проходе, или {@link Bitboards#NO_SQUARE}
+	 * @throws IllegalArgumentException если у одной из сторон нет ровно одного короля
+	 */
+	static ChessBoard ofPlacement(Figure[][] figures, Side currentSide, int castlingRights, int doublePawnStepSquare) {
+		var instance = new ChessBoard(
+				currentSide,
+				figures,
+				findKing(figures, WHITE_KING),
+				findKing(figures, BLACK_KING)
+		);
+
+		instance.whiteData.setCastlingRights(
+				(castlingRights & Fen.WHITE_A_CASTLING) != 0,
+				(castlingRights & Fen.WHITE_H_CASTLING) != 0);
+
+		instance.blackData.setCastlingRights(
+				(castlingRights & Fen.BLACK_A_CASTLING) != 0,
+				(castlingRights & Fen.BLACK_H_CASTLING) != 0);
+
+		instance.doublePawnStepSquare = doublePawnStepSquare;
+
+		instance.recomputeBitboards();
+		instance.recomputeAttackStates();
+
+		return instance;
+	}
+
+	private static Pos findKing(Figure[][] figures, Figure king) {
+		Pos kingPos = null;
+
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				if (figures[y][x] == king) {
+					if (kingPos != null) {
+						throw new IllegalArgumentException("There is more than one " + king);
+					}
+
+					kingPos = Pos.of(x, y);
+				}
+			}
+		}
+
+		if (kingPos == null) {
+			throw new IllegalArgumentException("There is no " + king);
+		}
+
+		return kingPos;
+	}
+
+	/**
+	 * @return Независимую копию доски со всеми фигурами, состояниями атак, данными сторон и кэшированными ходами.
+	 * Копия может использоваться в другом потоке одновременно с оригиналом
+	 */
+	public ChessBoard copy() {
+		return new ChessBoard(this);
+	}
+
+	/**
+	 * @return {@code true}, если сторона {@code side} ещё может сделать рокировку с ладьёй на вертикали A
+	 * (если король и ладья не ходили и ладья не взята). Не проверяет, возможна ли рокировка в текущей позиции
+	 */
+	public boolean hasACastlingRight(Side side) {
+		SideData data = side.choose(whiteData, blackData);
+		return !data.isKingWalked() && !data.isARookWalked() && !side.choose(blackData, whiteData).isOpponentARookTaken();
+	}
+
+	/**
+	 * @return {@code true}, если сторона {@code side} ещё может сделать рокировку с ладьёй на вертикали H
+	 * (если король и ладья не ходили и ладья не взята). Не проверяет, возможна ли рокировка в текущей позиции
+	 */
+	public boolean hasHCastlingRight(Side side) {
+		SideData data = side.choose(whiteData, blackData);
+		return !data.isKingWalked() && !data.isHRookWalked() && !side.choose(blackData, whiteData).isOpponentHRookTaken();
+	}
+
+	/**
+	 * @return Права на рокировку обеих сторон, комбинация флагов {@link Fen}.
+	 * Одна и та же позиция имеет одни и те же права, ходила ли ладья или была взята
+	 */
+	int getCastlingRights() {
+		return  (hasACastlingRight(Side.WHITE) ? Fen.WHITE_A_CASTLING : 0) |
+				(hasHCastlingRight(Side.WHITE) ? Fen.WHITE_H_CASTLING : 0) |
+				(hasACastlingRight(Side.BLACK) ? Fen.BLACK_A_CASTLING : 0) |
+				(hasHCastlingRight(Side.BLACK) ? Fen.BLACK_H_CASTLING : 0);
+	}
+
+	/**
+	 * @return Объект, определяющий ничью после хода, или {@code null}
+	 */
+	public @Nullable DrawAdjudicator getDrawAdjudicator() {
+		return drawAdjudicator;
+	}
+
+	/**
+	 * Задаёт объект, определяющий ничью. Если после хода через {@link #makeMove(IMove, PlayingSide, PlayingSide)}
+	 * он считает позицию ничейной, ход возвращает {@link StepResult#DRAW}.
+	 * Задаётся для всей партии, а не игроками, чтобы одна и та же позиция заканчивала любую партию одинаково
+	 */
+	public void setDrawAdjudicator(@Nullable DrawAdjudicator drawAdjudicator) {
+		this.drawAdjudicator = drawAdjudicator;
+	}
+
 	private void setDefaultBoardAndAttackStates() {
 		for (int i = 0; i < SIZE; i++) {
-			System.arraycopy(DEFAULT_BOARD[i],         0, board[i],        0, SIZE);
-			System.arraycopy(DEFAULT_ATTACK_STATES[i], 0, attackStates[i], 0, SIZE);
+			System.arraycopy(DEFAULT_BOARD[i], 0, board[i], 0, SIZE);
 		}
+
+		recomputeBitboards();
+		recomputeAttackStates();
+	}
+
+	/**
+	 * Полностью пересчитывает битборды по массиву {@link #board}
+	 */
+	private void recomputeBitboards() {
+		final var figureBitboards = this.figureBitboards;
+		final var sideBitboards = this.sideBitboards;
+
+		Arrays.fill(figureBitboards, 0);
+		Arrays.fill(sideBitboards, 0);
+
+		long figuresKey = 0;
+		int middlegameScore = 0,
+			endgameScore = 0,
+			phase = 0;
+
+		for (int y = 0; y < SIZE; y++) {
+			Figure[] row = board[y];
+
+			for (int x = 0; x < SIZE; x++) {
+				Figure figure = row[x];
+
+				if (figure != null) {
+					int index = Bitboards.index(x, y);
+					long bit = Bitboards.bit(index);
+					figureBitboards[figure.ordinal()] |= bit;
+					sideBitboards[figure.getSide().ordinal()] |= bit;
+					figuresKey ^= Zobrist.figure(figure, index);
+					middlegameScore += PieceSquareTables.middlegame(figure, index);
+					endgameScore += PieceSquareTables.endgame(figure, index);
+					phase += PieceSquareTables.phase(figure);
+				}
+			}
+		}
+
+		this.figuresKey = figuresKey;
+		this.middlegameScore = middlegameScore;
+		this.endgameScore = endgameScore;
+		this.phase = phase;
 	}
 
 	public void resetAllToDefault() {
@@ -124,6 +392,8 @@ public class ChessBoard {
 		blackData.resetAllToDefault(DEFULT_BLACK_KING_POS);
 		currentData = whiteData;
 		lastStep = null;
+		doublePawnStepSquare = Bitboards.NO_SQUARE;
+		historySize = 0;
 	}
 
 
@@ -176,8 +446,41 @@ public class ChessBoard {
 	}
 
 
+	/**
+	 * Ставит фигуру на позицию {@code pos} и обновляет битборды, хэш и оценку расстановки
+	 */
 	private void setFigure(Pos pos, @Nullable Figure figure) {
-		board[pos.getY()][pos.getX()] = figure;
+		final var row = board[pos.getY()];
+		int x = pos.getX();
+
+		Figure oldFigure = row[x];
+
+		if (oldFigure == figure) {
+			return;
+		}
+
+		row[x] = figure;
+
+		int index = pos.getIndex();
+		long bit = Bitboards.bit(index);
+
+		if (oldFigure != null) {
+			figureBitboards[oldFigure.ordinal()] &= ~bit;
+			sideBitboards[oldFigure.getSide().ordinal()] &= ~bit;
+			figuresKey ^= Zobrist.figure(oldFigure, index);
+			middlegameScore -= PieceSquareTables.middlegame(oldFigure, index);
+			endgameScore -= PieceSquareTables.endgame(oldFigure, index);
+			phase -= PieceSquareTables.phase(oldFigure);
+		}
+
+		if (figure != null) {
+			figureBitboards[figure.ordinal()] |= bit;
+			sideBitboards[figure.getSide().ordinal()] |= bit;
+			figuresKey ^= Zobrist.figure(figure, index);
+			middlegameScore += PieceSquareTables.middlegame(figure, index);
+			endgameScore += PieceSquareTables.endgame(figure, index);
+			phase += PieceSquareTables.phase(figure);
+		}
 	}
 
 
@@ -185,24 +488,119 @@ public class ChessBoard {
 	 * @return {@code true}, если на указанной позиции есть фигура
 	 */
 	public boolean hasFigure(Pos pos) {
-		return getFigure(pos) != null;
+		return Bitboards.has(getOccupancy(), pos);
 	}
 
 	/**
 	 * @return {@code true}, если на указанной позиции нет фигуры
 	 */
 	public boolean freeAt(Pos pos) {
-		return getFigure(pos) == null;
+		return !hasFigure(pos);
+	}
+
+	/**
+	 * @return Битборд полей, на которых стоит фигура {@code figure}
+	 */
+	public long getBitboard(Figure figure) {
+		return figureBitboards[figure.ordinal()];
+	}
+
+	/**
+	 * @return Битборд полей, на которых стоят фигуры стороны {@code side}
+	 */
+	public long getSideBitboard(Side side) {
+		return sideBitboards[side.ordinal()];
+	}
+
+	/**
+	 * @return Битборд всех занятых полей
+	 */
+	public long getOccupancy() {
+		return sideBitboards[0] | sideBitboards[1];
+	}
+
+	/**
+	 * @return Количество фигур {@code figure} на доске
+	 */
+	public int getFiguresCount(Figure figure) {
+		return Bitboards.count(figureBitboards[figure.ordinal()]);
+	}
+
+	/**
+	 * @return Оценку расстановки фигур для миттельшпиля с точки зрения белых: материал и бонусы за поля
+	 */
+	public int getMiddlegameScore() {
+		return middlegameScore;
+	}
+
+	/**
+	 * @return Оценку расстановки фигур для эндшпиля с точки зрения белых: материал и бонусы за поля
+	 */
+	public int getEndgameScore() {
+		return endgameScore;
+	}
+
+	/**
+	 * @return Стадию игры от {@code 0} (остались только короли и пешки) до {@link #MAX_PHASE} (все фигуры на доске).
+	 * После превращений пешек может быть больше {@link #MAX_PHASE}
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return Оценку расстановки фигур с точки зрения белых, смешанную из оценок миттельшпиля и эндшпиля по стадии игры.
+	 * Не требует обхода доски, так как слагаемые обновляются при каждом ходе
+	 */
+	public int getPositionScore() {
+		return PieceSquareTables.taper(middlegameScore, endgameScore, phase);
 	}
 
 	public Side currentSide() {
 		return currentSide;
 	}
 
+	/**
+	 * @return 64-битный хэш Зобриста текущей позиции. Учитывает расстановку фигур, сторону, которая ходит,
+	 * права на рокировку и вертикаль, на которой возможно взятие на проходе.
+	 * Часть хэша для фигур обновляется при каждом ходе, остальное вычисляется за несколько операций
+	 */
+	public long getZobristKey() {
+		return figuresKey ^ Zobrist.state(currentSide, getCastlingRights(), doublePawnStepSquare);
+	}
+
 	public @Nullable IStep getLastStep() {
 		return lastStep;
 	}
 
+	/**
+	 * @return Индекс поля пешки, которая последним ходом прошла две клетки
+	 * (и поэтому может быть взята на проходе), или {@link Bitboards#NO_SQUARE}
+	 */
+	public int getDoublePawnStepSquare() {
+		return doublePawnStepSquare;
+	}
+
+	private static int doublePawnStepSquareOf(@Nullable IStep step) {
+		return step != null && step.type() == IStep.Type.DOUBLE_PAWN_STEP ?
+				step.targetPos().getIndex() :
+				Bitboards.NO_SQUARE;
+	}
+
+	public boolean isUseLegalStepsGenerator() {
+		return useLegalStepsGenerator;
+	}
+
+	/**
+	 * Переключает способ проверки легальности ходов. Если {@code true}, то ходы фильтруются
+	 * по маскам шахов и связок, рассчитанным один раз для позиции, иначе каждый ход выполняется
+	 * и проверяется, не остался ли король под атакой.
+	 * Применяется при следующем расчёте ходов
+	 */
+	public void setUseLegalStepsGenerator(boolean useLegalStepsGenerator) {
+		this.useLegalStepsGenerator = useLegalStepsGenerator;
+	}
+
 
 	/**
 	 * @return Варианты ходов для фигуры на позиции {@code pos}.
@@ -224,31 +622,51 @@ public class ChessBoard {
 	 * Рассчитывает все возможные шаги. Также создаёт скриншоты, если необходимо
 	 */
 	private void computeAllPossibleSteps(boolean shouldMakeSnapshots) {
-		forEachPosWithCurrentFigure(pos -> computePossibleSteps(pos, shouldMakeSnapshots));
+		if (useLegalStepsGenerator) {
+			computeChecksAndPins();
+			forEachPosWithCurrentFigure(this::computeLegalSteps);
+		} else {
+			forEachPosWithCurrentFigure(this::computePossibleSteps);
+		}
+
+		if (shouldMakeSnapshots) {
+			makeSnapshots();
+		}
+
 		immutableCachedSnapshots = shouldMakeSnapshots ?
 				Collections.unmodifiableMap(cachedSnapshots) :
 				null;
 	}
 
-	private void computePossibleSteps(Pos pos, boolean shouldMakeSnapshots) {
+	/**
+	 * Создаёт снимки для всех рассчитанных ходов. Снимки хранят только ход и общую исходную позицию,
+	 * поэтому их создание не требует пробных ходов и копирования доски для каждого хода
+	 */
+	private void makeSnapshots() {
+		var origin = new Snapshot.Origin(figureBitboards, middlegameScore, endgameScore, phase);
 
-		List<? extends IStep> steps = getFigureWithCurrentSide(pos).getPossibleSteps(this, pos);
+		cachedSteps.forEach((pos, steps) -> {
+			Map<IStep, Snapshot> stepSnapshots = new HashMap<>();
 
-		var savedAttackStates = saveAttackStates();
+			for (IStep step : steps) {
+				stepSnapshots.put(step, new Snapshot(origin, pos, step));
+			}
 
-		Map<IStep, Snapshot> stepSnapshots = shouldMakeSnapshots ? new HashMap<>() : null;
+			cachedSnapshots.put(pos, Collections.unmodifiableMap(stepSnapshots));
+		});
+	}
+
+	private void computePossibleSteps(Pos pos) {
+
+		List<? extends IStep> steps = getFigureWithCurrentSide(pos).getPossibleSteps(this, pos);
+
+		saveAttackStates();
 
 		steps.removeIf(step -> {
 			Figure originalFigure = getFigureWithCurrentSide(pos);
 			Figure taken = performStep(pos, step, step.resultFigure(), false);
 
-			updateAttackStates(shouldMakeSnapshots ?
-					ExtendedAttackState.NOT_ATTACKED :
-					SimpleAttackState.NOT_ATTACKED);
-
-			Snapshot snapshot = shouldMakeSnapshots ?
-					new Snapshot(pos, step, board, attackStates) :
-					null;
+			updateAttackStates(touchedFields(pos, step));
 
 			// Запоминаем позицию короля, так как вызов cancelStep вернёт её обратно
 			Pos kingPos = currentData.kingPos;
@@ -257,22 +675,172 @@ public class ChessBoard {
 
 			boolean remove = isAttackedBySide(kingPos, currentSide.opposite());
 
-			if (shouldMakeSnapshots && !remove) {
-				stepSnapshots.put(step, snapshot);
-			}
+			restoreAttackStates();
 
 			return remove;
 		});
 
-		if (stepSnapshots != null) {
-			cachedSnapshots.put(pos, Collections.unmodifiableMap(stepSnapshots));
+		cachedSteps.put(pos, Collections.unmodifiableList(steps));
+	}
+
+
+	/**
+	 * Рассчитывает {@link #checkMask}, {@link #pinnedFigures} и {@link #pinRays} для текущей стороны
+	 */
+	private void computeChecksAndPins() {
+		final Side opposite = currentSide.opposite();
+
+		int king = currentData.kingPos.getIndex();
+		long own = getSideBitboard(currentSide),
+			enemy = getSideBitboard(opposite),
+			occupancy = own | enemy;
+
+		long checkers = getAttackersBitboard(king, occupancy) & enemy;
+
+		checkMask = switch (Bitboards.count(checkers)) {
+			case 0 -> Bitboards.ALL;
+			case 1 -> SliderAttacks.between(king, Bitboards.first(checkers)) | checkers;
+			default -> Bitboards.EMPTY; // При двойном шахе может ходить только король
+		};
+
+		long pinnedFigures = Bitboards.EMPTY;
+
+		// Лучи от короля проходят сквозь свои фигуры и останавливаются на первой фигуре противника
+		long pinners =
+				SliderAttacks.rookAttacks(king, enemy) & getRooksAndQueens(opposite) |
+				SliderAttacks.bishopAttacks(king, enemy) & getBishopsAndQueens(opposite);
+
+		for (; pinners != 0; pinners = Bitboards.removeFirst(pinners)) {
+			int pinner = Bitboards.first(pinners);
+			long between = SliderAttacks.between(king, pinner);
+			long blockers = between & occupancy;
+
+			if (Bitboards.count(blockers) == 1 && (blockers & own) != 0) {
+				pinnedFigures |= blockers;
+				pinRays[Bitboards.first(blockers)] = between | Bitboards.bit(pinner);
+			}
 		}
 
-		restoreAttackStates(savedAttackStates);
+		this.pinnedFigures = pinnedFigures;
+	}
+
+	/**
+	 * Рассчитывает ходы фигуры на позиции {@code pos}, оставляя только легальные.
+	 * Ходы не выполняются, вместо этого используются маски, рассчитанные в {@link #computeChecksAndPins()}
+	 */
+	private void computeLegalSteps(Pos pos) {
+		Figure figure = getFigureWithCurrentSide(pos);
+		List<? extends IStep> steps = figure.getPossibleSteps(this, pos);
+
+		int start = pos.getIndex();
+		long allowedFields = getAllowedFields(start);
+
+		steps.removeIf(step -> !isLegal(start, step.targetPos().getIndex(), step.takePos().getIndex(),
+				step.type(), figure, allowedFields));
 
 		cachedSteps.put(pos, Collections.unmodifiableList(steps));
 	}
 
+	/**
+	 * Записывает в {@code moves} все легальные ходы текущей стороны, закодированные в {@code int}.
+	 * Не создаёт объектов (кроме случаев, когда фигура не переопределяет
+	 * {@link x590.chess.figure.behaviour.FigureBehaviour#generateMoves}) и не изменяет кэшированные ходы,
+	 * поэтому может вызываться после {@link #makeMove(int)}
+	 */
+	public void generateLegalMoves(MoveList moves) {
+		generateLegalMoves(moves, false);
+	}
+
+	/**
+	 * Записывает в {@code moves} только легальные взятия (включая взятие на проходе) и превращения пешки
+	 * текущей стороны. Тихие ходы не генерируются вовсе. Предназначен для поиска взятий на листьях перебора
+	 * @see #generateLegalMoves(MoveList)
+	 */
+	public void generateLegalCaptures(MoveList moves) {
+		generateLegalMoves(moves, true);
+	}
+
+	private void generateLegalMoves(MoveList moves, boolean capturesOnly) {
+		moves.clear();
+		computeChecksAndPins();
+
+		for (long figures = getSideBitboard(currentSide); figures != 0; figures = Bitboards.removeFirst(figures)) {
+			int start = Bitboards.first(figures);
+			Pos pos = Pos.ofIndex(start);
+			Figure figure = board[pos.getY()][pos.getX()];
+
+			int from = moves.size();
+
+			if (capturesOnly) {
+				figure.generateCaptures(this, pos, moves);
+			} else {
+				figure.generateMoves(this, pos, moves);
+			}
+
+			long allowedFields = getAllowedFields(start);
+			int to = from;
+
+			for (int i = from, size = moves.size(); i < size; i++) {
+				int move = moves.get(i);
+
+				if (isLegal(start, IntMove.to(move), IntMove.takeSquare(move), IntMove.type(move), figure, allowedFields)) {
+					moves.set(to++, move);
+				}
+			}
+
+			moves.truncate(to);
+		}
+	}
+
+	/**
+	 * @return Поля, на которые может сходить фигура с поля {@code start} (кроме короля), не оставив короля под шахом
+	 */
+	private long getAllowedFields(int start) {
+		return Bitboards.has(pinnedFigures, start) ?
+				checkMask & pinRays[start] :
+				checkMask;
+	}
+
+	/**
+	 * @return {@code true}, если ход легален.
+	 * @param allowedFields результат {@link #getAllowedFields(int)} для начального поля
+	 */
+	private boolean isLegal(int start, int target, int take, IStep.Type type, Figure figure, long allowedFields) {
+		if (figure.getType() == FigureType.KING) {
+			return isLegalKingStep(start, target, type);
+		}
+
+		return type == IStep.Type.TAKING_PAWN_ON_THE_PASS ?
+				isLegalTakingOnThePass(start, target, take) :
+				Bitboards.has(allowedFields, target);
+	}
+
+	/**
+	 * @return {@code true}, если после хода король не окажется под атакой.
+	 * Король убирается с доски, чтобы дальнобойные фигуры, которые ему шахуют, атаковали поля за ним
+	 */
+	private boolean isLegalKingStep(int start, int target, IStep.Type type) {
+		// Условия рокировки (король не под шахом и не проходит через атакованные поля) проверяет KingBehaviour
+		if (type == IStep.Type.CASTLING) {
+			return true;
+		}
+
+		long occupancy = getOccupancy() & ~Bitboards.bit(start);
+		return (getAttackersBitboard(target, occupancy) & getSideBitboard(currentSide.opposite())) == 0;
+	}
+
+	/**
+	 * @return {@code true}, если после взятия на проходе король не окажется под атакой.
+	 * Взятие на проходе убирает с линии сразу две пешки, поэтому проверяется по занятости полей после хода
+	 */
+	private boolean isLegalTakingOnThePass(int start, int target, int take) {
+		long takeBit = Bitboards.bit(take);
+		long occupancy = getOccupancy() & ~Bitboards.bit(start) & ~takeBit | Bitboards.bit(target);
+
+		return (getAttackersBitboard(currentData.kingPos.getIndex(), occupancy) &
+				getSideBitboard(currentSide.opposite()) & ~takeBit) == 0;
+	}
+
 
 	/**
 	 * Применяет переданную функцию к каждой позиции, на которой есть фигура текущей стороны,
@@ -286,14 +854,8 @@ public class ChessBoard {
 	 * Применяет переданную функцию к каждой позиции, на которой есть фигура текущей стороны
 	 */
 	private void forEachPosWithCurrentFigure(Consumer<Pos> eachFunction) {
-		final var currentSide = this.currentSide;
-
-		for (Pos pos = Pos.START; pos != null; pos = pos.nextOrNull()) {
-			Figure figure = getFigure(pos);
-
-			if (figure != null && figure.getSide() == currentSide) {
-				eachFunction.accept(pos);
-			}
+		for (long figures = getSideBitboard(currentSide); figures != 0; figures = Bitboards.removeFirst(figures)) {
+			eachFunction.accept(Pos.ofIndex(Bitboards.first(figures)));
 		}
 	}
 
@@ -315,12 +877,25 @@ public class ChessBoard {
 		throw new IllegalStateException("Snapshots are not cached");
 	}
 
-	private AttackState[][] saveAttackStates() {
-		return ArrayUtil.clone2dArray(attackStates);
+	/**
+	 * Копирует состояния атак в буферы {@link #savedAttackedBitboards} и {@link #savedControlledFields}
+	 */
+	private void saveAttackStates() {
+		copyAttackStates(attackedBitboards, controlledFields, savedAttackedBitboards, savedControlledFields);
 	}
 
-	private void restoreAttackStates(AttackState[][] savedAttackStates) {
-		this.attackStates = savedAttackStates;
+	/**
+	 * Восстанавливает состояния атак, сохранённые методом {@link #saveAttackStates()}
+	 */
+	private void restoreAttackStates() {
+		copyAttackStates(savedAttackedBitboards, savedControlledFields, attackedBitboards, controlledFields);
+	}
+
+	private static void copyAttackStates(long[] srcAttacked, long[] srcFields, long[] dstAttacked, long[] dstFields) {
+		dstAttacked[0] = srcAttacked[0];
+		dstAttacked[1] = srcAttacked[1];
+
+		System.arraycopy(srcFields, 0, dstFields, 0, Bitboards.SQUARES);
 	}
 
 
@@ -345,7 +920,14 @@ public class ChessBoard {
 	 * (сторона фигуры и сторона, с которой идёт атака, могут и не отличаться)
 	 */
 	public boolean isAttackedBySide(Pos pos, Side side) {
-		return attackStates[pos.getY()][pos.getX()].isAttackedBy(side);
+		return Bitboards.has(attackedBitboards[side.ordinal()], pos);
+	}
+
+	/**
+	 * @return Битборд полей, которые атакует сторона {@code side}
+	 */
+	public long getAttackedBitboard(Side side) {
+		return attackedBitboards[side.ordinal()];
 	}
 
 
@@ -422,7 +1004,7 @@ public class ChessBoard {
 		Figure takenFigure = performStep(startPos, move,
 				move.queryResultFigure(currentSide, currentPlayingSide), true);
 
-		updateAttackStates();
+		updateAttackStates(touchedFields(startPos, move));
 		cachedSteps.clear();
 		cachedSnapshots.clear();
 
@@ -430,6 +1012,7 @@ public class ChessBoard {
 		currentData = currentSide.choose(whiteData, blackData);
 
 		lastStep = move;
+		doublePawnStepSquare = doublePawnStepSquareOf(move);
 
 		if (takenFigure != null) {
 			currentData.addTakenFigure(takenFigure);
@@ -444,6 +1027,12 @@ public class ChessBoard {
 			return isKingAttacked() ? StepResult.CHECKMATE : StepResult.STALEMATE;
 		}
 
+		final var drawAdjudicator = this.drawAdjudicator;
+
+		if (drawAdjudicator != null && drawAdjudicator.isDrawPosition(this)) {
+			return StepResult.DRAW;
+		}
+
 		return isKingAttacked() ? StepResult.CHECK : StepResult.CONTINUE;
 	}
 
@@ -461,17 +1050,146 @@ public class ChessBoard {
 		currentData = currentSide.choose(whiteData, blackData);
 
 		lastStep = prevStep;
+		doublePawnStepSquare = doublePawnStepSquareOf(prevStep);
 
 		cachedSteps.clear();
 		cachedSnapshots.clear();
 
 		cancelStep(move.startPos(), move, move.figure(), takenFigure);
 
-		updateAttackStates();
+		updateAttackStates(touchedFields(move.startPos(), move));
 
 		computeAllPossibleSteps(oppositePlayingSide.shouldMakeSnapshots());
 	}
 
+	/**
+	 * Быстро совершает ход, закодированный в {@code int} (см. {@link IntMove}), и меняет сторону.
+	 * В отличие от {@link #makeMove(IMove, PlayingSide, PlayingSide)} не проверяет ход, не рассчитывает
+	 * возможные ходы, не создаёт снимков и не изменяет списки взятых фигур, поэтому предназначен для перебора.
+	 * Ход должен быть легальным. Кэшированные ходы не изменяются и снова верны после отмены всех таких ходов.
+	 * @see #cancelMove(int)
+	 */
+	public void makeMove(int move) {
+		pushDoublePawnStepSquare();
+
+		performMove(move);
+		updateAttackStates(touchedFields(move));
+
+		currentSide = currentSide.opposite();
+		currentData = currentSide.choose(whiteData, blackData);
+
+		doublePawnStepSquare = IntMove.type(move) == IStep.Type.DOUBLE_PAWN_STEP ?
+				IntMove.to(move) :
+				Bitboards.NO_SQUARE;
+	}
+
+	/**
+	 * Отменяет ход, сделанный через {@link #makeMove(int)}. Ходы должны отменяться в обратном порядке
+	 */
+	public void cancelMove(int move) {
+		currentSide = currentSide.opposite();
+		currentData = currentSide.choose(whiteData, blackData);
+
+		doublePawnStepSquare = doublePawnStepSquareHistory[--historySize];
+
+		cancelPerformedMove(move);
+		updateAttackStates(touchedFields(move));
+	}
+
+	/**
+	 * Передаёт ход другой стороне, не двигая фигуры (нулевой ход). Сбрасывает возможность взятия на проходе.
+	 * Используется в переборе для отсечения нулевым ходом. Сторона, которая ходит, не должна быть под шахом
+	 * @see #cancelNullMove()
+	 */
+	public void makeNullMove() {
+		pushDoublePawnStepSquare();
+
+		currentSide = currentSide.opposite();
+		currentData = currentSide.choose(whiteData, blackData);
+
+		doublePawnStepSquare = Bitboards.NO_SQUARE;
+	}
+
+	/**
+	 * Отменяет ход, сделанный через {@link #makeNullMove()}
+	 */
+	public void cancelNullMove() {
+		currentSide = currentSide.opposite();
+		currentData = currentSide.choose(whiteData, blackData);
+
+		doublePawnStepSquare = doublePawnStepSquareHistory[--historySize];
+	}
+
+	private void pushDoublePawnStepSquare() {
+		if (historySize == doublePawnStepSquareHistory.length) {
+			doublePawnStepSquareHistory = Arrays.copyOf(doublePawnStepSquareHistory, historySize * 2);
+		}
+
+		doublePawnStepSquareHistory[historySize++] = doublePawnStepSquare;
+	}
+
+	private void performMove(int move) {
+		Pos startPos = Pos.ofIndex(IntMove.from(move)),
+			targetPos = Pos.ofIndex(IntMove.to(move)),
+			takePos = Pos.ofIndex(IntMove.takeSquare(move));
+
+		Figure figure = IntMove.figure(move);
+		Figure resultFigure = IntMove.resultFigure(move);
+
+		setFigure(startPos, null);
+		setFigure(takePos, null);
+		setFigure(targetPos, resultFigure == null ? figure : resultFigure);
+
+		updateSideData(startPos, targetPos, figure, true);
+
+		Figure takenFigure = IntMove.takenFigure(move);
+
+		if (takenFigure != null) {
+			updateTakenRook(takePos, takenFigure);
+		}
+
+		if (IntMove.type(move) == IStep.Type.CASTLING) {
+			Pos rookStartPos = Pos.ofIndex(IntMove.castlingRookFrom(move)),
+				rookTargetPos = Pos.ofIndex(IntMove.castlingRookTo(move));
+
+			Figure rook = getFigureWithCurrentSide(rookStartPos);
+
+			setFigure(rookStartPos, null);
+			setFigure(rookTargetPos, rook);
+
+			updateSideData(rookStartPos, rookTargetPos, rook, true);
+		}
+	}
+
+	private void cancelPerformedMove(int move) {
+		final var currentData = this.currentData;
+
+		if (IntMove.type(move) == IStep.Type.CASTLING) {
+			Pos rookStartPos = Pos.ofIndex(IntMove.castlingRookFrom(move)),
+				rookTargetPos = Pos.ofIndex(IntMove.castlingRookTo(move));
+
+			setFigure(rookStartPos, getFigureWithCurrentSide(rookTargetPos));
+			setFigure(rookTargetPos, null);
+
+			currentData.cancelStep();
+		}
+
+		Pos startPos = Pos.ofIndex(IntMove.from(move)),
+			targetPos = Pos.ofIndex(IntMove.to(move));
+
+		Figure figure = IntMove.figure(move);
+
+		setFigure(targetPos, null);
+		setFigure(Pos.ofIndex(IntMove.takeSquare(move)), IntMove.takenFigure(move));
+		setFigure(startPos, figure);
+
+		if (figure.getType() == FigureType.KING) {
+			currentData.kingPos = startPos;
+		}
+
+		currentData.cancelStep();
+	}
+
 	private @Nullable Figure performStep(Pos startPos, IStep step, @Nullable Figure newFigure, boolean updateWalkedFlags) {
 		Pos targetPos = step.targetPos(),
 			takePos = step.takePos();
@@ -491,6 +1209,27 @@ public class ChessBoard {
 			setFigure(takePos, null);
 		}
 
+		updateSideData(startPos, targetPos, figure, updateWalkedFlags);
+
+		if (takenFigure != null && updateWalkedFlags) {
+			updateTakenRook(takePos, takenFigure);
+		}
+
+		@Nullable IExtraStep extraStep = step.extraStep();
+
+		if (extraStep != null) {
+			if (performStep(extraStep.startPos(), extraStep, extraStep.resultFigure(), updateWalkedFlags) != null) {
+				throw new IllegalStateException("Extra step must not take any figure");
+			}
+		}
+
+		return takenFigure;
+	}
+
+	/**
+	 * Обновляет данные текущей стороны после того, как фигура {@code figure} сходила с {@code startPos} на {@code targetPos}
+	 */
+	private void updateSideData(Pos startPos, Pos targetPos, Figure figure, boolean updateWalkedFlags) {
 		final var currentData = this.currentData;
 
 		currentData.makeStep();
@@ -508,16 +1247,24 @@ public class ChessBoard {
 				currentData.setHRookWalked();
 			}
 		}
+	}
 
-		@Nullable IExtraStep extraStep = step.extraStep();
-
-		if (extraStep != null) {
-			if (performStep(extraStep.startPos(), extraStep, extraStep.resultFigure(), updateWalkedFlags) != null) {
-				throw new IllegalStateException("Extra step must not take any figure");
-			}
+	/**
+	 * Если взята ладья противника на её начальном поле, противник теряет право на рокировку с ней.
+	 * Отмечается у текущей стороны, поэтому отменяется вместе с её ходом. Вызывается после {@link #updateSideData}
+	 */
+	private void updateTakenRook(Pos takePos, Figure takenFigure) {
+		if (takenFigure.getType() != FigureType.ROOK) {
+			return;
 		}
 
-		return takenFigure;
+		int startY = currentSide.opposite().getStartY();
+
+		if (takePos.equals(0, startY)) {
+			currentData.setOpponentARookTaken();
+		} else if (takePos.equals(7, startY)) {
+			currentData.setOpponentHRookTaken();
+		}
 	}
 
 	private void cancelStep(Pos startPos, IStep step, Figure originalFigure, @Nullable Figure takenFigure) {
@@ -544,48 +1291,366 @@ public class ChessBoard {
 		}
 	}
 
-	private void updateAttackStates() {
-		updateAttackStates(NOT_ATTACKED);
+	/**
+	 * Полностью перестраивает состояния атак
+	 */
+	private void recomputeAttackStates() {
+		recomputeControlledFields();
+		recomputeAttackedBitboards();
 	}
 
-	private void updateAttackStates(AttackState initialState) {
-		final var attackStates = this.attackStates;
+	/**
+	 * Обновляет состояния атак после того, как изменились фигуры на полях {@code touchedFields}.
+	 * Пересчитываются только фигуры на этих полях и дальнобойные фигуры, которые атаковали
+	 * хотя бы одно из этих полей - только у них могли удлиниться или укоротиться лучи
+	 * (в том числе открыться атака через освободившееся поле).
+	 * Затем битборды атакованных полей собираются из {@link #controlledFields}.
+	 */
+	private void updateAttackStates(long touchedFields) {
+		final var controlledFields = this.controlledFields;
 
-		for (int y = 0; y < SIZE; y++) {
-			final var row = attackStates[y];
+		long affected = touchedFields;
 
-			for (int x = 0; x < SIZE; x++) {
-				row[x] = initialState;
+		for (long sliders = getSlidersBitboard() & ~touchedFields; sliders != 0; sliders = Bitboards.removeFirst(sliders)) {
+			int index = Bitboards.first(sliders);
+
+			if ((controlledFields[index] & touchedFields) != 0) {
+				affected |= Bitboards.bit(index);
 			}
 		}
 
-		forEachFigure((figure, pos) -> {
+		for (; affected != 0; affected = Bitboards.removeFirst(affected)) {
+			Pos pos = Pos.ofIndex(Bitboards.first(affected));
+			Figure figure = getFigure(pos);
+
+			controlledFields[pos.getIndex()] = figure == null ? Bitboards.EMPTY : figure.getControlledFieldsBitboard(this, pos);
+		}
 
-			if (figure != null) {
-				@Immutable List<Pos> controlledFields = figure.getControlledFields(this, pos);
+		recomputeAttackedBitboards();
+	}
 
-				for (Pos controlledPos : controlledFields) {
-					int cx = controlledPos.getX(),
-						cy = controlledPos.getY();
+	/**
+	 * Собирает {@link #attackedBitboards} из {@link #controlledFields} фигур каждой стороны
+	 */
+	private void recomputeAttackedBitboards() {
+		final var controlledFields = this.controlledFields;
 
-					attackStates[cy][cx] = attackStates[cy][cx].attackedBy(figure);
+		for (int side = 0; side < attackedBitboards.length; side++) {
+			long attacked = Bitboards.EMPTY;
+
+			for (long figures = sideBitboards[side]; figures != 0; figures = Bitboards.removeFirst(figures)) {
+				attacked |= controlledFields[Bitboards.first(figures)];
+			}
+
+			attackedBitboards[side] = attacked;
+		}
+	}
+
+	/**
+	 * Пересчитывает {@link #controlledFields} для всех полей
+	 */
+	private void recomputeControlledFields() {
+		Arrays.fill(controlledFields, Bitboards.EMPTY);
+
+		forEachFigure((figure, pos) ->
+				controlledFields[pos.getIndex()] = figure.getControlledFieldsBitboard(this, pos));
+	}
+
+	/**
+	 * @return Битборд полей, на которых стоят фигуры обеих сторон, контролирующие поле с индексом {@code index}
+	 */
+	public long getAttackersBitboard(int index) {
+		return getAttackersBitboard(index, getOccupancy());
+	}
+
+	/**
+	 * @return Битборд полей, на которых стоят фигуры обеих сторон, контролирующие поле с индексом {@code index},
+	 * если бы были заняты поля {@code occupancy}. Фигуры на незанятых полях всё равно учитываются,
+	 * их нужно исключить из результата отдельно
+	 */
+	public long getAttackersBitboard(int index, long occupancy) {
+		return getAttackersBitboard(figureBitboards, index, occupancy);
+	}
+
+	/**
+	 * То же, что и {@link #getAttackersBitboard(int, long)}, но для расстановки {@code figureBitboards}
+	 */
+	private static long getAttackersBitboard(long[] figureBitboards, int index, long occupancy) {
+		long rooksAndQueens =
+				figureBitboards[WHITE_ROOK.ordinal()] | figureBitboards[BLACK_ROOK.ordinal()] |
+				figureBitboards[WHITE_QUEEN.ordinal()] | figureBitboards[BLACK_QUEEN.ordinal()];
+
+		long bishopsAndQueens =
+				figureBitboards[WHITE_BISHOP.ordinal()] | figureBitboards[BLACK_BISHOP.ordinal()] |
+				figureBitboards[WHITE_QUEEN.ordinal()] | figureBitboards[BLACK_QUEEN.ordinal()];
+
+		// Пешка атакует поле, если с этого поля её атаковала бы пешка противоположной стороны
+		return  LeaperAttacks.pawnAttacks(Side.BLACK, index) & figureBitboards[WHITE_PAWN.ordinal()] |
+				LeaperAttacks.pawnAttacks(Side.WHITE, index) & figureBitboards[BLACK_PAWN.ordinal()] |
+				LeaperAttacks.knightAttacks(index) & (figureBitboards[WHITE_KNIGHT.ordinal()] | figureBitboards[BLACK_KNIGHT.ordinal()]) |
+				LeaperAttacks.kingAttacks(index) & (figureBitboards[WHITE_KING.ordinal()] | figureBitboards[BLACK_KING.ordinal()]) |
+				SliderAttacks.rookAttacks(index, occupancy) & rooksAndQueens |
+				SliderAttacks.bishopAttacks(index, occupancy) & bishopsAndQueens;
+	}
+
+
+
+	/**
+	 * Оценивает размен на поле с индексом {@code square} (static exchange evaluation):
+	 * сторона {@code side} берёт стоящую там фигуру противника, после чего стороны по очереди бьют на этом поле
+	 * самыми дешёвыми фигурами, пока это выгодно. Учитываются фигуры, которые открываются после ухода других
+	 * (например, ладья за ладьёй). Связки и шахи не учитываются. Не выделяет память
+	 * @return Выигрыш стороны {@code side} в единицах {@link Worth#PAWN_SCORE}. Так как сторона может не брать
+	 * фигуру, результат не меньше нуля. Если на поле нет фигуры противника или стоит король, возвращает {@code 0}
+	 */
+	public int staticExchange(int square, Side side) {
+		return staticExchange(figureBitboards, exchangeGains, square, side);
+	}
+
+	/**
+	 * То же, что и {@link #staticExchange(int, Side)}, но для расстановки {@code figureBitboards}
+	 * @param gains буфер длиной не менее {@link #MAX_EXCHANGE_LENGTH}
+	 */
+	static int staticExchange(long[] figureBitboards, int[] gains, int square, Side side) {
+		long occupancy = getOccupancy(figureBitboards);
+		Figure target = getFigure(figureBitboards, square);
+
+		// Короля взять нельзя, шах проверяется отдельно
+		if (target == null || target.getSide() == side || target.getType() == FigureType.KING) {
+			return 0;
+		}
+
+		long attackers = getAttackersBitboard(figureBitboards, square, occupancy);
+
+		for (Figure attacker : FIGURES_BY_WORTH[side.ordinal()]) {
+			long bitboard = figureBitboards[attacker.ordinal()] & attackers;
+
+			if (bitboard != 0) {
+				int gain = exchange(figureBitboards, gains, square, exchangeValue(target), exchangeValue(attacker),
+						side.opposite(), occupancy & ~Bitboards.bit(Bitboards.first(bitboard)));
+
+				return Math.max(gain, 0);
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Оценивает размен после хода {@code move} текущей стороны (см. {@link #staticExchange(int, Side)}).
+	 * Превращение пешки учитывается только для самого хода
+	 * @return Выигрыш текущей стороны в единицах {@link Worth#PAWN_SCORE}, отрицательный, если ход теряет материал
+	 */
+	public int staticExchange(int move) {
+		Figure figure = IntMove.figure(move),
+				taken = IntMove.takenFigure(move),
+				result = IntMove.resultFigure(move);
+
+		return staticExchange(IntMove.from(move), IntMove.to(move), IntMove.takeSquare(move), figure, taken, result);
+	}
+
+	/**
+	 * Оценивает размен после шага {@code step} фигуры текущей стороны с позиции {@code startPos}
+	 * (см. {@link #staticExchange(int)})
+	 */
+	public int staticExchange(Pos startPos, IStep step) {
+		Figure figure = getFigureWithCurrentSide(startPos);
+		Pos takePos = step.takePos();
+
+		return staticExchange(startPos.getIndex(), step.targetPos().getIndex(), takePos.getIndex(),
+				figure, getFigure(takePos), step.resultFigure());
+	}
+
+	private int staticExchange(int from, int to, int take, Figure figure, @Nullable Figure taken, @Nullable Figure result) {
+		int gain = taken == null ? 0 : exchangeValue(taken);
+		Figure standing = figure;
+
+		if (result != null) {
+			gain += exchangeValue(result) - exchangeValue(figure);
+			standing = result;
+		}
+
+		long occupancy = getOccupancy() & ~Bitboards.bit(from) & ~Bitboards.bit(take);
+
+		return exchange(figureBitboards, exchangeGains, to, gain, exchangeValue(standing), figure.getSide().opposite(), occupancy);
+	}
+
+	/**
+	 * Досчитывает размен на поле {@code square} после первого взятия
+	 * @param firstGain выигрыш от первого взятия
+	 * @param standing ценность фигуры, которая встала на поле
+	 * @param side сторона, которая бьёт следующей
+	 * @param occupancy занятые поля после первого взятия
+	 * @return Выигрыш стороны, сделавшей первое взятие
+	 */
+	private static int exchange(long[] figureBitboards, int[] gains, int square, int firstGain, int standing,
+	                            Side side, long occupancy) {
+		int depth = 0;
+		gains[0] = firstGain;
+
+		for (;;) {
+			// Пересчёт атакующих по новой занятости открывает дальнобойные фигуры за ушедшими
+			long attackers = getAttackersBitboard(figureBitboards, square, occupancy) & occupancy;
+			Figure attacker = null;
+			long attackerBit = Bitboards.EMPTY;
+
+			for (Figure figure : FIGURES_BY_WORTH[side.ordinal()]) {
+				long bitboard = figureBitboards[figure.ordinal()] & attackers;
+
+				if (bitboard != 0) {
+					attacker = figure;
+					attackerBit = bitboard & -bitboard;
+					break;
 				}
 			}
-		});
+
+			if (attacker == null) {
+				break;
+			}
+
+			depth++;
+			gains[depth] = standing - gains[depth - 1];
+			occupancy &= ~attackerBit;
+			standing = exchangeValue(attacker);
+			side = side.opposite();
+		}
+
+		// Каждая сторона выбирает между взятием и отказом от него, начиная с последнего взятия
+		for (; depth > 0; depth--) {
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+		}
+
+		return gains[0];
+	}
+
+	private static int exchangeValue(Figure figure) {
+		return figure.getWorth() * Worth.PAWN_SCORE;
 	}
 
 	/**
-	 * @param eachFunction Функция, которая применяется к каждой фигуре
+	 * @return Фигуру на поле с индексом {@code square} в расстановке {@code figureBitboards} или {@code null}
 	 */
-	private void forEachFigure(BiConsumer<Figure, Pos> eachFunction) {
-		final var board = this.board;
+	static @Nullable Figure getFigure(long[] figureBitboards, int square) {
+		for (Figure figure : FIGURES) {
+			if (Bitboards.has(figureBitboards[figure.ordinal()], square)) {
+				return figure;
+			}
+		}
 
-		for (int y = 0; y < SIZE; y++) {
-			Figure[] row = board[y];
+		return null;
+	}
 
-			for (int x = 0; x < SIZE; x++) {
-				eachFunction.accept(row[x], Pos.of(x, y));
+	private static long getOccupancy(long[] figureBitboards) {
+		long occupancy = Bitboards.EMPTY;
+
+		for (long bitboard : figureBitboards) {
+			occupancy |= bitboard;
+		}
+
+		return occupancy;
+	}
+
+	/**
+	 * Заполняет {@code attackCounters} упакованными счётчиками фигур (см. {@link AttackCounters}),
+	 * которые контролируют каждое поле в расстановке {@code figureBitboards}. Счётчики обновляются на месте
+	 * @param attackCounters массив из {@link Bitboards#SQUARES} элементов, индексируется по индексу поля
+	 */
+	static void countAttackers(long[] figureBitboards, long[] attackCounters) {
+		long occupancy = getOccupancy(figureBitboards);
+
+		Arrays.fill(attackCounters, 0);
+
+		for (Figure figure : FIGURES) {
+			for (long pieces = figureBitboards[figure.ordinal()]; pieces != 0; pieces = Bitboards.removeFirst(pieces)) {
+				long attacks = getAttacksBitboard(figure, Bitboards.first(pieces), occupancy);
+
+				for (; attacks != 0; attacks = Bitboards.removeFirst(attacks)) {
+					int index = Bitboards.first(attacks);
+					attackCounters[index] = AttackCounters.increment(attackCounters[index], figure);
+				}
 			}
 		}
 	}
+
+	/**
+	 * @return Битборд полей, которые контролирует фигура {@code figure} с поля {@code square}
+	 */
+	private static long getAttacksBitboard(Figure figure, int square, long occupancy) {
+		return switch (figure.getType()) {
+			case PAWN -> LeaperAttacks.pawnAttacks(figure.getSide(), square);
+			case KNIGHT -> LeaperAttacks.knightAttacks(square);
+			case KING -> LeaperAttacks.kingAttacks(square);
+			case BISHOP -> SliderAttacks.bishopAttacks(square, occupancy);
+			case ROOK -> SliderAttacks.rookAttacks(square, occupancy);
+			case QUEEN -> SliderAttacks.queenAttacks(square, occupancy);
+		};
+	}
+
+	/**
+	 * @return Битборд ладей и ферзей стороны {@code side}
+	 */
+	private long getRooksAndQueens(Side side) {
+		return  figureBitboards[Figure.valueOf(side, FigureType.ROOK).ordinal()] |
+				figureBitboards[Figure.valueOf(side, FigureType.QUEEN).ordinal()];
+	}
+
+	/**
+	 * @return Битборд слонов и ферзей стороны {@code side}
+	 */
+	private long getBishopsAndQueens(Side side) {
+		return  figureBitboards[Figure.valueOf(side, FigureType.BISHOP).ordinal()] |
+				figureBitboards[Figure.valueOf(side, FigureType.QUEEN).ordinal()];
+	}
+
+	/**
+	 * @return Битборд всех ладей, слонов и ферзей обеих сторон
+	 */
+	private long getSlidersBitboard() {
+		final var figureBitboards = this.figureBitboards;
+
+		return  figureBitboards[WHITE_QUEEN.ordinal()] | figureBitboards[BLACK_QUEEN.ordinal()] |
+				figureBitboards[WHITE_ROOK.ordinal()] | figureBitboards[BLACK_ROOK.ordinal()] |
+				figureBitboards[WHITE_BISHOP.ordinal()] | figureBitboards[BLACK_BISHOP.ordinal()];
+	}
+
+	/**
+	 * @return Битборд полей, на которых могли измениться фигуры в результате хода {@code step} с позиции {@code startPos}
+	 */
+	private static long touchedFields(Pos startPos, IStep step) {
+		long fields = Bitboards.bit(startPos) | Bitboards.bit(step.targetPos()) | Bitboards.bit(step.takePos());
+
+		IExtraStep extraStep = step.extraStep();
+
+		if (extraStep != null) {
+			fields |= touchedFields(extraStep.startPos(), extraStep);
+		}
+
+		return fields;
+	}
+
+	/**
+	 * @return Битборд полей, на которых изменились фигуры в результате хода {@code move}
+	 */
+	private static long touchedFields(int move) {
+		long fields = Bitboards.bit(IntMove.from(move)) | Bitboards.bit(IntMove.to(move)) | Bitboards.bit(IntMove.takeSquare(move));
+
+		if (IntMove.type(move) == IStep.Type.CASTLING) {
+			fields |= Bitboards.bit(IntMove.castlingRookFrom(move)) | Bitboards.bit(IntMove.castlingRookTo(move));
+		}
+
+		return fields;
+	}
+
+	/**
+	 * @param eachFunction Функция, которая применяется к каждой фигуре на доске и её позиции.
+	 *                     Пустые поля пропускаются
+	 */
+	private void forEachFigure(BiConsumer<Figure, Pos> eachFunction) {
+		final var board = this.board;
+
+		for (long figures = getOccupancy(); figures != 0; figures = Bitboards.removeFirst(figures)) {
+			Pos pos = Pos.ofIndex(Bitboards.first(figures));
+			eachFunction.accept(board[pos.getY()][pos.getX()], pos);
+		}
+	}
 }
@@ -0,0 +1,14 @@
+package x590.chess.board;
+
+/**
+ * Объявляет ничью в позициях, которые доска сама ничейными не считает,
+ * например по таблицам эндшпиля. Задаётся методом {@link ChessBoard#setDrawAdjudicator(DrawAdjudicator)}
+ */
+@FunctionalInterface
+public interface DrawAdjudicator {
+
+	/**
+	 * @return {@code true}, если текущая позиция доски - ничья
+	 */
+	boolean isDrawPosition(ChessBoard board);
+}
@@ -0,0 +1,195 @@
+package x590.chess.board;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Pos;
+import x590.chess.figure.Side;
+
+import static x590.chess.board.ChessBoard.*;
+
+/**
+ * Чтение и запись позиций в нотации FEN (Forsyth-Edwards Notation).
+ * Например, начальная позиция записывается как {@value #START_POSITION}
+ */
+public final class Fen {
+
+	private Fen() {}
+
+	public static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/** Флаги прав на рокировку */
+	static final int
+			WHITE_H_CASTLING = 0x1,
+			WHITE_A_CASTLING = 0x2,
+			BLACK_H_CASTLING = 0x4,
+			BLACK_A_CASTLING = 0x8;
+
+	private static final String NO_VALUE = "-";
+
+	static ChessBoard parse(String fen) {
+		String[] parts = fen.trim().split("\\s+");
+
+		if (parts.length < 2) {
+			throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": expected at least placement and side");
+		}
+
+		Figure[][] figures = parsePlacement(fen, parts[0]);
+
+		Side currentSide = switch (parts[1]) {
+			case "w" -> Side.WHITE;
+			case "b" -> Side.BLACK;
+			default -> throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": unknown side \"" + parts[1] + "\"");
+		};
+
+		int castlingRights = parts.length > 2 ? parseCastlingRights(fen, parts[2]) : 0;
+
+		int doublePawnStepSquare = parts.length > 3 ?
+				parseDoublePawnStepSquare(fen, parts[3], currentSide) :
+				Bitboards.NO_SQUARE;
+
+		return ChessBoard.ofPlacement(figures, currentSide, castlingRights, doublePawnStepSquare);
+	}
+
+	private static Figure[][] parsePlacement(String fen, String placement) {
+		String[] ranks = placement.split("/");
+
+		if (ranks.length != SIZE) {
+			throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": expected " + SIZE + " ranks");
+		}
+
+		Figure[][] figures = new Figure[SIZE][SIZE];
+
+		for (int i = 0; i < SIZE; i++) {
+			String rank = ranks[i];
+			int y = END - i;
+			int x = START;
+
+			for (int j = 0, length = rank.length(); j < length; j++) {
+				char c = rank.charAt(j);
+
+				if (c >= '1' && c <= '8') {
+					x += c - '0';
+					continue;
+				}
+
+				FigureType type = FigureType.byLetter(Character.toLowerCase(c));
+
+				if (type == null || x > END) {
+					throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": unexpected '" + c + "' in rank " + (y + 1));
+				}
+
+				figures[y][x++] = Figure.valueOf(Character.isUpperCase(c) ? Side.WHITE : Side.BLACK, type);
+			}
+
+			if (x != SIZE) {
+				throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": rank " + (y + 1) + " has wrong length");
+			}
+		}
+
+		return figures;
+	}
+
+	private static int parseCastlingRights(String fen, String castling) {
+		if (castling.equals(NO_VALUE)) {
+			return 0;
+		}
+
+		int rights = 0;
+
+		for (int i = 0, length = castling.length(); i < length; i++) {
+			rights |= switch (castling.charAt(i)) {
+				case 'K' -> WHITE_H_CASTLING;
+				case 'Q' -> WHITE_A_CASTLING;
+				case 'k' -> BLACK_H_CASTLING;
+				case 'q' -> BLACK_A_CASTLING;
+				default -> throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": unknown castling \"" + castling + "\"");
+			};
+		}
+
+		return rights;
+	}
+
+	/**
+	 * В FEN записывается поле, через которое перешагнула пешка, а в {@link ChessBoard} хранится поле самой пешки
+	 */
+	private static int parseDoublePawnStepSquare(String fen, String enPassant, Side currentSide) {
+		if (enPassant.equals(NO_VALUE)) {
+			return Bitboards.NO_SQUARE;
+		}
+
+		if (enPassant.length() != 2) {
+			throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": illegal en passant square \"" + enPassant + "\"");
+		}
+
+		int x = enPassant.charAt(0) - 'a',
+			y = enPassant.charAt(1) - '1';
+
+		if (x < START || x > END || y != currentSide.choose(END - 2, START + 2)) {
+			throw new IllegalArgumentException("Illegal FEN \"" + fen + "\": illegal en passant square \"" + enPassant + "\"");
+		}
+
+		return Bitboards.index(x, y + currentSide.choose(-1, 1));
+	}
+
+
+	static String toString(ChessBoard board) {
+		var str = new StringBuilder();
+
+		for (int y = END; y >= START; y--) {
+			int empty = 0;
+
+			for (int x = START; x <= END; x++) {
+				Figure figure = board.getFigure(Pos.of(x, y));
+
+				if (figure == null) {
+					empty++;
+					continue;
+				}
+
+				if (empty > 0) {
+					str.append(empty);
+					empty = 0;
+				}
+
+				char letter = figure.getType().getLetter();
+				str.append(figure.getSide() == Side.WHITE ? Character.toUpperCase(letter) : letter);
+			}
+
+			if (empty > 0) {
+				str.append(empty);
+			}
+
+			if (y > START) {
+				str.append('/');
+			}
+		}
+
+		Side currentSide = board.currentSide();
+
+		str.append(' ').append(currentSide == Side.WHITE ? 'w' : 'b').append(' ');
+
+		int length = str.length();
+
+		if (board.hasHCastlingRight(Side.WHITE)) str.append('K');
+		if (board.hasACastlingRight(Side.WHITE)) str.append('Q');
+		if (board.hasHCastlingRight(Side.BLACK)) str.append('k');
+		if (board.hasACastlingRight(Side.BLACK)) str.append('q');
+
+		if (str.length() == length) {
+			str.append(NO_VALUE);
+		}
+
+		str.append(' ');
+
+		int doublePawnStepSquare = board.getDoublePawnStepSquare();
+
+		if (doublePawnStepSquare == Bitboards.NO_SQUARE) {
+			str.append(NO_VALUE);
+		} else {
+			str.append(Pos.ofIndex(doublePawnStepSquare + currentSide.choose(SIZE, -SIZE)).toString().toLowerCase());
+		}
+
+		return str.append(" 0 1").toString();
+	}
+}
@@ -0,0 +1,200 @@
+package x590.chess.board;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.chess.figure.Worth;
+
+/**
+ * Оценки фигур на полях для миттельшпиля и эндшпиля: ценность фигуры плюс бонус за поле.
+ * Оценки даны с точки зрения белых, то есть для чёрных фигур они отрицательные.
+ * {@link ChessBoard} складывает их для всех фигур при каждой перестановке, поэтому оценка позиции не требует обхода доски.
+ * <p>
+ * Таблицы записаны для белых так, как доска выглядит с их стороны: первая строка - восьмая горизонталь.
+ * Для чёрных таблицы отражаются по горизонтали.
+ */
+final class PieceSquareTables {
+
+	private PieceSquareTables() {}
+
+	/** Стадия игры в начальной позиции. Чем больше стадия, тем ближе оценка к оценке миттельшпиля */
+	static final int MAX_PHASE = 24;
+
+	/** Флаг для отражения поля по горизонтали */
+	private static final int FLIP_RANK = 0x38;
+
+	private static final int
+			KNIGHT_PHASE = 1,
+			BISHOP_PHASE = 1,
+			ROOK_PHASE = 2,
+			QUEEN_PHASE = 4;
+
+	private static final int[]
+			PAWN_MIDDLEGAME = {
+					 0,  0,  0,  0,  0,  0,  0,  0,
+					50, 50, 50, 50, 50, 50, 50, 50,
+					10, 10, 20, 30, 30, 20, 10, 10,
+					 5,  5, 10, 25, 25, 10,  5,  5,
+					 0,  0,  0, 20, 20,  0,  0,  0,
+					 5, -5,-10,  0,  0,-10, -5,  5,
+					 5, 10, 10,-20,-20, 10, 10,  5,
+					 0,  0,  0,  0,  0,  0,  0,  0,
+			},
+
+			PAWN_ENDGAME = {
+					 0,  0,  0,  0,  0,  0,  0,  0,
+					80, 80, 80, 80, 80, 80, 80, 80,
+					50, 50, 50, 50, 50, 50, 50, 50,
+					30, 30, 30, 30, 30, 30, 30, 30,
+					20, 20, 20, 20, 20, 20, 20, 20,
+					10, 10, 10, 10, 10, 10, 10, 10,
+					 0,  0,  0,  0,  0,  0,  0,  0,
+					 0,  0,  0,  0,  0,  0,  0,  0,
+			},
+
+			KNIGHT = {
+					-50,-40,-30,-30,-30,-30,-40,-50,
+					-40,-20,  0,  0,  0,  0,-20,-40,
+					-30,  0, 10, 15, 15, 10,  0,-30,
+					-30,  5, 15, 20, 20, 15,  5,-30,
+					-30,  0, 15, 20, 20, 15,  0,-30,
+					-30,  5, 10, 15, 15, 10,  5,-30,
+					-40,-20,  0,  5,  5,  0,-20,-40,
+					-50,-40,-30,-30,-30,-30,-40,-50,
+			},
+
+			BISHOP = {
+					-20,-10,-10,-10,-10,-10,-10,-20,
+					-10,  0,  0,  0,  0,  0,  0,-10,
+					-10,  0,  5, 10, 10,  5,  0,-10,
+					-10,  5,  5, 10, 10,  5,  5,-10,
+					-10,  0, 10, 10, 10, 10,  0,-10,
+					-10, 10, 10, 10, 10, 10, 10,-10,
+					-10,  5,  0,  0,  0,  0,  5,-10,
+					-20,-10,-10,-10,-10,-10,-10,-20,
+			},
+
+			ROOK = {
+					 0,  0,  0,  0,  0,  0,  0,  0,
+					 5, 10, 10, 10, 10, 10, 10,  5,
+					-5,  0,  0,  0,  0,  0,  0, -5,
+					-5,  0,  0,  0,  0,  0,  0, -5,
+					-5,  0,  0,  0,  0,  0,  0, -5,
+					-5,  0,  0,  0,  0,  0,  0, -5,
+					-5,  0,  0,  0,  0,  0,  0, -5,
+					 0,  0,  0,  5,  5,  0,  0,  0,
+			},
+
+			QUEEN = {
+					-20,-10,-10, -5, -5,-10,-10,-20,
+					-10,  0,  0,  0,  0,  0,  0,-10,
+					-10,  0,  5,  5,  5,  5,  0,-10,
+					 -5,  0,  5,  5,  5,  5,  0, -5,
+					  0,  0,  5,  5,  5,  5,  0, -5,
+					-10,  5,  5,  5,  5,  5,  0,-10,
+					-10,  0,  5,  0,  0,  0,  0,-10,
+					-20,-10,-10, -5, -5,-10,-10,-20,
+			},
+
+			KING_MIDDLEGAME = {
+					-30,-40,-40,-50,-50,-40,-40,-30,
+					-30,-40,-40,-50,-50,-40,-40,-30,
+					-30,-40,-40,-50,-50,-40,-40,-30,
+					-30,-40,-40,-50,-50,-40,-40,-30,
+					-20,-30,-30,-40,-40,-30,-30,-20,
+					-10,-20,-20,-20,-20,-20,-20,-10,
+					 20, 20,  0,  0,  0,  0, 20, 20,
+					 20, 30, 10,  0,  0, 10, 30, 20,
+			},
+
+			KING_ENDGAME = {
+					-50,-40,-30,-20,-20,-30,-40,-50,
+					-30,-20,-10,  0,  0,-10,-20,-30,
+					-30,-10, 20, 30, 30, 20,-10,-30,
+					-30,-10, 30, 40, 40, 30,-10,-30,
+					-30,-10, 30, 40, 40, 30,-10,-30,
+					-30,-10, 20, 30, 30, 20,-10,-30,
+					-30,-30,  0,  0,  0,  0,-30,-30,
+					-50,-30,-30,-30,-30,-30,-30,-50,
+			};
+
+	/** Оценки для каждой фигуры на каждом поле, индексируются по {@link Figure#ordinal()} и индексу поля */
+	private static final int[][]
+			MIDDLEGAME = new int[Figure.COUNT][Bitboards.SQUARES],
+			ENDGAME = new int[Figure.COUNT][Bitboards.SQUARES];
+
+	/** Вклад фигуры в стадию игры, индексируется по {@link Figure#ordinal()} */
+	private static final int[] PHASES = new int[Figure.COUNT];
+
+	static {
+		for (Figure figure : Figure.values()) {
+			FigureType type = figure.getType();
+
+			int[] middlegame = switch (type) {
+				case KING -> KING_MIDDLEGAME;
+				case QUEEN -> QUEEN;
+				case ROOK -> ROOK;
+				case BISHOP -> BISHOP;
+				case KNIGHT -> KNIGHT;
+				case PAWN -> PAWN_MIDDLEGAME;
+			};
+
+			int[] endgame = switch (type) {
+				case KING -> KING_ENDGAME;
+				case PAWN -> PAWN_ENDGAME;
+				default -> middlegame;
+			};
+
+			// Король всегда на доске, его ценность не влияет на оценку
+			int worth = type == FigureType.KING ? 0 : type.getWorth() * Worth.PAWN_SCORE;
+			int sign = figure.getSide() == Side.WHITE ? 1 : -1;
+
+			for (int square = 0; square < Bitboards.SQUARES; square++) {
+				// Таблицы записаны с восьмой горизонтали, поэтому для белых поле отражается
+				int tableSquare = figure.getSide() == Side.WHITE ? square ^ FLIP_RANK : square;
+
+				MIDDLEGAME[figure.ordinal()][square] = sign * (worth + middlegame[tableSquare]);
+				ENDGAME[figure.ordinal()][square] = sign * (worth + endgame[tableSquare]);
+			}
+
+			PHASES[figure.ordinal()] = switch (type) {
+				case QUEEN -> QUEEN_PHASE;
+				case ROOK -> ROOK_PHASE;
+				case BISHOP -> BISHOP_PHASE;
+				case KNIGHT -> KNIGHT_PHASE;
+				default -> 0;
+			};
+		}
+	}
+
+	/**
+	 * @return Оценку фигуры {@code figure} на поле с индексом {@code square} в миттельшпиле
+	 */
+	static int middlegame(Figure figure, int square) {
+		return MIDDLEGAME[figure.ordinal()][square];
+	}
+
+	/**
+	 * @return Оценку фигуры {@code figure} на поле с индексом {@code square} в эндшпиле
+	 */
+	static int endgame(Figure figure, int square) {
+		return ENDGAME[figure.ordinal()][square];
+	}
+
+	/**
+	 * @return Вклад фигуры в стадию игры
+	 */
+	static int phase(Figure figure) {
+		return PHASES[figure.ordinal()];
+	}
+
+	/**
+	 * Смешивает оценки миттельшпиля и эндшпиля пропорционально стадии игры
+	 * @param phase стадия игры, после превращений может быть больше {@link #MAX_PHASE}
+	 */
+	static int taper(int middlegameScore, int endgameScore, int phase) {
+		phase = Math.min(phase, MAX_PHASE);
+		return (middlegameScore * phase + endgameScore * (MAX_PHASE - phase)) / MAX_PHASE;
+	}
+}
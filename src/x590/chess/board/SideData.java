@@ -19,12 +19,36 @@ final class SideData {
 
 	private int step;
 
+	/** Номер хода, который означает, что фигура ходила до начала отсчёта ходов */
+	private static final int WALKED_BEFORE_START = -1;
+
 	private int kingWalkedStep, aRookWalkedStep, hRookWalkedStep;
 
+	/**
+	 * Номера ходов этой стороны, которыми она взяла ладью противника на её начальном поле на вертикали A или H.
+	 * Хранятся у взявшей стороны, так как отменяются вместе с её ходом
+	 */
+	private int opponentARookTakenStep, opponentHRookTakenStep;
+
 	SideData(Pos kingPos) {
 		this.kingPos = kingPos;
 	}
 
+	/**
+	 * Создаёт независимую копию {@code other}
+	 */
+	SideData(SideData other) {
+		this.takenFigures.addAll(other.takenFigures);
+		this.takenFiguresListChanged = other.takenFiguresListChanged;
+		this.kingPos = other.kingPos;
+		this.step = other.step;
+		this.kingWalkedStep = other.kingWalkedStep;
+		this.aRookWalkedStep = other.aRookWalkedStep;
+		this.hRookWalkedStep = other.hRookWalkedStep;
+		this.opponentARookTakenStep = other.opponentARookTakenStep;
+		this.opponentHRookTakenStep = other.opponentHRookTakenStep;
+	}
+
 	void addTakenFigure(Figure takenFigure) {
 		final var takenFigures = this.takenFigures;
 		takenFigures.add(takenFigure);
@@ -54,26 +78,44 @@ final class SideData {
 		if (hRookWalkedStep > step) {
 			hRookWalkedStep = 0;
 		}
+		if (opponentARookTakenStep > step) {
+			opponentARookTakenStep = 0;
+		}
+		if (opponentHRookTakenStep > step) {
+			opponentHRookTakenStep = 0;
+		}
 	}
 
 	void setKingWalked() {
-		if (kingWalkedStep != 0) {
+		if (kingWalkedStep == 0) {
 			kingWalkedStep = step;
 		}
 	}
 
 	void setARookWalked() {
-		if (aRookWalkedStep != 0) {
+		if (aRookWalkedStep == 0) {
 			aRookWalkedStep = step;
 		}
 	}
 
 	void setHRookWalked() {
-		if (hRookWalkedStep != 0) {
+		if (hRookWalkedStep == 0) {
 			hRookWalkedStep = step;
 		}
 	}
 
+	void setOpponentARookTaken() {
+		if (opponentARookTakenStep == 0) {
+			opponentARookTakenStep = step;
+		}
+	}
+
+	void setOpponentHRookTaken() {
+		if (opponentHRookTakenStep == 0) {
+			opponentHRookTakenStep = step;
+		}
+	}
+
 	boolean isKingWalked() {
 		return kingWalkedStep != 0;
 	}
@@ -86,9 +128,30 @@ final class SideData {
 		return hRookWalkedStep != 0;
 	}
 
+	boolean isOpponentARookTaken() {
+		return opponentARookTakenStep != 0;
+	}
+
+	boolean isOpponentHRookTaken() {
+		return opponentHRookTakenStep != 0;
+	}
+
+	/**
+	 * Устанавливает права на рокировку для позиции, заданной не с начала партии.
+	 * Потерянные права отмечаются как ход с номером {@link #WALKED_BEFORE_START}, который не отменяется в {@link #cancelStep()}
+	 */
+	void setCastlingRights(boolean canDoACastling, boolean canDoHCastling) {
+		kingWalkedStep = canDoACastling || canDoHCastling ? 0 : WALKED_BEFORE_START;
+		aRookWalkedStep = canDoACastling ? 0 : WALKED_BEFORE_START;
+		hRookWalkedStep = canDoHCastling ? 0 : WALKED_BEFORE_START;
+		opponentARookTakenStep = opponentHRookTakenStep = 0;
+	}
+
 	void resetAllToDefault(Pos defaultKingPos) {
 		takenFigures.clear();
 		kingPos = defaultKingPos;
-		kingWalkedStep = aRookWalkedStep = hRookWalkedStep = -1;
+		step = 0;
+		kingWalkedStep = aRookWalkedStep = hRookWalkedStep = 0;
+		opponentARookTakenStep = opponentHRookTakenStep = 0;
 	}
 }
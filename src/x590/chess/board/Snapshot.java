@@ -1,20 +1,17 @@
 package x590.chess.board;
 
-import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import x590.chess.bitboard.Bitboards;
 import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
 import x590.chess.figure.step.IStep;
-import x590.util.ArrayUtil;
-
-import java.util.LinkedList;
-import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import x590.chess.figure.step.IStep.IExtraStep;
+import x590.util.annotation.Nullable;
 
 /**
- * Представляет собой снимок позиции определённого хода
+ * Представляет собой снимок позиции определённого хода. Снимок хранит только сам ход и ссылку на общую для всех
+ * ходов исходную позицию ({@link Origin}), а расстановка после хода строится при первом обращении к {@link #getNice(Side)}
  */
 public class Snapshot {
 
@@ -24,19 +21,51 @@ public class Snapshot {
 			FIGURE_WORTH_MULTIPLIER = 3,
 			STATE_WORTH_MULTIPLIER = 1;
 
+	private static final Figure[] FIGURES = Figure.values();
+
+	/**
+	 * Позиция, из которой сделаны ходы снимков. Одна на все снимки позиции, не изменяется
+	 */
+	static final class Origin {
+
+		private final long[] figureBitboards;
+
+		private final int middlegameScore, endgameScore, phase;
+
+		/**
+		 * @param figureBitboards битборды фигур, копируются
+		 */
+		Origin(long[] figureBitboards, int middlegameScore, int endgameScore, int phase) {
+			this.figureBitboards = figureBitboards.clone();
+			this.middlegameScore = middlegameScore;
+			this.endgameScore = endgameScore;
+			this.phase = phase;
+		}
+	}
+
+	private final Origin origin;
+
 	private final Pos pos;
 	private final IStep step;
 
-	private final Figure[][] board;
-	private final AttackState[][] attackStates;
+	/** Битборды фигур после хода или {@code null}, пока расстановка не построена */
+	private @Nullable long[] figureBitboards;
+
+	/** Оценки расстановки после хода (см. {@link PieceSquareTables}), действительны, если {@link #figureBitboards} построены */
+	private int middlegameScore, endgameScore, phase;
+
+	/**
+	 * Упакованные счётчики фигур, атакующих каждое поле после хода (см. {@link AttackCounters}),
+	 * создаются вместе с {@link #figureBitboards}
+	 */
+	private @Nullable long[] attackCounters;
 
 	private int nice = NONE_NICE;
 
-	Snapshot(Pos pos, IStep step, Figure[][] board, AttackState[][] attackStates) {
+	Snapshot(Origin origin, Pos pos, IStep step) {
+		this.origin = origin;
 		this.pos = pos;
 		this.step = step;
-		this.board = ArrayUtil.clone2dArray(board);
-		this.attackStates = ArrayUtil.clone2dArray(attackStates);
 	}
 
 	public Pos getPos() {
@@ -57,60 +86,95 @@ public class Snapshot {
 		return this.nice = computeNice(currentSide);
 	}
 
-	private int computeNice(Side currentSide) {
-		final var board = this.board;
-		final var attackStates = this.attackStates;
+	/**
+	 * Строит расстановку после хода и счётчики атак, если они ещё не построены
+	 * @return Битборды фигур после хода
+	 */
+	private long[] materialize() {
+		var figureBitboards = this.figureBitboards;
 
-		int nice = 0;
+		if (figureBitboards != null) {
+			return figureBitboards;
+		}
 
-		for (int y = 0; y < ChessBoard.SIZE; y++) {
-			final var boardRow = board[y];
-			final var attackStatesRow = attackStates[y];
+		final var origin = this.origin;
 
-			for (int x = 0; x < ChessBoard.SIZE; x++) {
-				Figure figure = boardRow[x];
+		figureBitboards = origin.figureBitboards.clone();
+		middlegameScore = origin.middlegameScore;
+		endgameScore = origin.endgameScore;
+		phase = origin.phase;
 
-				if (figure != null) {
+		applyStep(figureBitboards, pos, step);
+		ChessBoard.countAttackers(figureBitboards, attackCounters = new long[Bitboards.SQUARES]);
 
-					Side figureSide = figure.getSide();
+		return this.figureBitboards = figureBitboards;
+	}
+
+	/**
+	 * Повторяет {@link ChessBoard} {@code performStep} на битбордах {@code figureBitboards}
+	 */
+	private void applyStep(long[] figureBitboards, Pos startPos, IStep step) {
+		int start = startPos.getIndex(),
+			target = step.targetPos().getIndex(),
+			take = step.takePos().getIndex();
+
+		Figure figure = ChessBoard.getFigure(figureBitboards, start),
+				taken = ChessBoard.getFigure(figureBitboards, take),
+				resultFigure = step.resultFigure();
+
+		assert figure != null;
+
+		setFigure(figureBitboards, figure, start, false);
+
+		if (taken != null) {
+			setFigure(figureBitboards, taken, take, false);
+		}
 
-					nice += (figureSide == currentSide ? figure.getWorth() : -figure.getWorth()) * FIGURE_WORTH_MULTIPLIER;
+		setFigure(figureBitboards, resultFigure == null ? figure : resultFigure, target, true);
 
-					Object2IntMap<Figure> figures = Objects.requireNonNull(attackStatesRow[x].getFigures());
+		IExtraStep extraStep = step.extraStep();
 
-					if (!figures.isEmpty()) {
-						Map<Side, LinkedList<Figure>> groupedFigures = figures.object2IntEntrySet().stream()
-								.flatMap(
-										entry -> IntStream.range(1, entry.getIntValue()).mapToObj(k -> entry.getKey())
-								).collect(Collectors.groupingBy(
-										Figure::getSide,
-										Collectors.toCollection(LinkedList::new)
-								));
+		if (extraStep != null) {
+			applyStep(figureBitboards, extraStep.startPos(), extraStep);
+		}
+	}
 
-						LinkedList<Figure> thisFigures     = groupedFigures.computeIfAbsent(figureSide,            side -> new LinkedList<>());
-						LinkedList<Figure> opponentFigures = groupedFigures.computeIfAbsent(figureSide.opposite(), side -> new LinkedList<>());
+	/**
+	 * Ставит фигуру {@code figure} на поле {@code square} или убирает её оттуда и обновляет оценки расстановки
+	 */
+	private void setFigure(long[] figureBitboards, Figure figure, int square, boolean place) {
+		int sign = place ? 1 : -1;
 
-						thisFigures.add(figure);
+		figureBitboards[figure.ordinal()] ^= Bitboards.bit(square);
+		middlegameScore += sign * PieceSquareTables.middlegame(figure, square);
+		endgameScore += sign * PieceSquareTables.endgame(figure, square);
+		phase += sign * PieceSquareTables.phase(figure);
+	}
 
-						thisFigures.sort(Figure::compareByWorth);
-						opponentFigures.sort(Figure::compareByWorth);
+	private int computeNice(Side currentSide) {
+		final var figureBitboards = materialize();
+		final var attackCounters = this.attackCounters;
 
-						assert thisFigures != opponentFigures;
+		// Материал и поля фигур уже оценены, обход нужен только для разменов
+		int positionScore = PieceSquareTables.taper(middlegameScore, endgameScore, phase);
+		int nice = currentSide.choose(positionScore, -positionScore) * FIGURE_WORTH_MULTIPLIER;
 
-						int niceForFigure = 0;
+		int[] gains = new int[ChessBoard.MAX_EXCHANGE_LENGTH];
 
-						while (!thisFigures.isEmpty() && !opponentFigures.isEmpty()) {
-							niceForFigure -= thisFigures.pollLast().getWorth(); // Противник берёт фигуру
+		for (Figure figure : FIGURES) {
+			if (figure.getType() == FigureType.KING) {
+				continue;
+			}
 
-							if (thisFigures.isEmpty()) {
-								break;
-							}
+			Side opponent = figure.getSide().opposite();
 
-							niceForFigure += opponentFigures.pollLast().getWorth(); // Мы берём фигуру
-						}
+			for (long bitboard = figureBitboards[figure.ordinal()]; bitboard != 0; bitboard = Bitboards.removeFirst(bitboard)) {
+				int square = Bitboards.first(bitboard);
 
-						nice += (figureSide == currentSide ? niceForFigure : -niceForFigure) * STATE_WORTH_MULTIPLIER;
-					}
+				if (AttackCounters.isAttackedBy(attackCounters[square], opponent)) {
+					// Сколько противник выиграет, взяв эту фигуру
+					int loss = ChessBoard.staticExchange(figureBitboards, gains, square, opponent);
+					nice += (figure.getSide() == currentSide ? -loss : loss) * STATE_WORTH_MULTIPLIER;
 				}
 			}
 		}
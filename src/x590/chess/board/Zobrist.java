@@ -0,0 +1,76 @@
+package x590.chess.board;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.figure.Figure;
+import x590.chess.figure.Side;
+
+import java.util.SplittableRandom;
+
+/**
+ * Случайные числа для хэширования позиций методом Зобриста.
+ * Хэш позиции - это XOR чисел всех фигур на их полях, стороны, которая ходит,
+ * оставшихся прав на рокировку и вертикали, на которой возможно взятие на проходе.
+ * Числа генерируются из фиксированного seed, поэтому хэши одинаковы при каждом запуске.
+ */
+final class Zobrist {
+
+	private Zobrist() {}
+
+	private static final long SEED = 0x5EED_C4E55_B0A4DL;
+
+	private static final long[][] FIGURES = new long[Figure.COUNT][Bitboards.SQUARES];
+
+	private static final long
+			BLACK_TO_MOVE,
+			WHITE_A_CASTLING, WHITE_H_CASTLING,
+			BLACK_A_CASTLING, BLACK_H_CASTLING;
+
+	private static final long[] EN_PASSANT_FILES = new long[ChessBoard.SIZE];
+
+	static {
+		var random = new SplittableRandom(SEED);
+
+		for (long[] figureKeys : FIGURES) {
+			for (int square = 0; square < Bitboards.SQUARES; square++) {
+				figureKeys[square] = random.nextLong();
+			}
+		}
+
+		BLACK_TO_MOVE = random.nextLong();
+		WHITE_A_CASTLING = random.nextLong();
+		WHITE_H_CASTLING = random.nextLong();
+		BLACK_A_CASTLING = random.nextLong();
+		BLACK_H_CASTLING = random.nextLong();
+
+		for (int x = 0; x < ChessBoard.SIZE; x++) {
+			EN_PASSANT_FILES[x] = random.nextLong();
+		}
+	}
+
+	/**
+	 * @return Число для фигуры {@code figure} на поле с индексом {@code square}
+	 */
+	static long figure(Figure figure, int square) {
+		return FIGURES[figure.ordinal()][square];
+	}
+
+	/**
+	 * @return Часть хэша, которая не зависит от расстановки фигур
+	 * @param castlingRights права на рокировку, комбинация флагов {@link Fen}
+	 * @param doublePawnStepSquare поле пешки, которую можно взять на проходе, или {@link Bitboards#NO_SQUARE}
+	 */
+	static long state(Side currentSide, int castlingRights, int doublePawnStepSquare) {
+		long key = currentSide == Side.BLACK ? BLACK_TO_MOVE : 0;
+
+		if ((castlingRights & Fen.WHITE_A_CASTLING) != 0) key ^= WHITE_A_CASTLING;
+		if ((castlingRights & Fen.WHITE_H_CASTLING) != 0) key ^= WHITE_H_CASTLING;
+		if ((castlingRights & Fen.BLACK_A_CASTLING) != 0) key ^= BLACK_A_CASTLING;
+		if ((castlingRights & Fen.BLACK_H_CASTLING) != 0) key ^= BLACK_H_CASTLING;
+
+		if (doublePawnStepSquare != Bitboards.NO_SQUARE) {
+			key ^= EN_PASSANT_FILES[Bitboards.x(doublePawnStepSquare)];
+		}
+
+		return key;
+	}
+}
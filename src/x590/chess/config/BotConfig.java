@@ -0,0 +1,194 @@
+package x590.chess.config;
+
+import x590.util.annotation.Nullable;
+
+/**
+ * Настройки бота, сохранённые в конфиг
+ */
+public class BotConfig {
+
+	public static final int
+			MIN_HASH_SIZE = 1,
+			MAX_HASH_SIZE = 4096,
+			DEFAULT_HASH_SIZE = 64;
+
+	public static final int
+			MIN_SEARCH_TIME = 10,
+			MAX_SEARCH_TIME = 600_000,
+			DEFAULT_SEARCH_TIME = 1000;
+
+	public static final int
+			MIN_SEARCH_DEPTH = 1,
+			MAX_SEARCH_DEPTH = 64,
+			DEFAULT_SEARCH_DEPTH = MAX_SEARCH_DEPTH;
+
+	public static final int
+			MIN_THREADS = 1,
+			MAX_THREADS = 256;
+
+	public static final int
+			MIN_CLOCK_TIME = 0,
+			MAX_CLOCK_TIME = 3 * 60 * 60 * 1000,
+			DEFAULT_CLOCK_TIME = 0;
+
+	public static final int
+			MIN_CLOCK_INCREMENT = 0,
+			MAX_CLOCK_INCREMENT = 60_000,
+			DEFAULT_CLOCK_INCREMENT = 0;
+
+	public static final int
+			MIN_CLOCK_MOVES = 0,
+			MAX_CLOCK_MOVES = 200,
+			DEFAULT_CLOCK_MOVES = 0;
+
+	public static final boolean DEFAULT_PONDER = true;
+
+	public static final BotConfig DEFAULT_INSTANCE = new BotConfig().initDefaultValues();
+
+	// Размер таблицы транспозиций в мегабайтах
+	private int hashSize;
+
+	// Время на ход в миллисекундах
+	private int searchTime;
+
+	// Максимальная глубина поиска в полуходах
+	private int searchDepth;
+
+	// Количество потоков поиска. По умолчанию равно количеству процессоров
+	private int threads;
+
+	// Время на часах бота на партию или на контроль в миллисекундах. 0 - часов нет, время на ход равно searchTime
+	private int clockTime;
+
+	// Добавка времени за каждый ход в миллисекундах
+	private int clockIncrement;
+
+	// Количество ходов до следующего контроля, после которого на часы снова добавляется clockTime.
+	// 0 - всё время на партию
+	private int clockMoves;
+
+	// Искать во время хода противника, ожидая его наиболее вероятный ход. null - не указано в конфиге
+	private Boolean ponder;
+
+	// Путь к книге дебютов в формате Polyglot (.bin) или null, если книги нет
+	private String bookPath;
+
+	// Путь к директории с таблицами эндшпиля (*.tb) или null, если таблиц нет
+	private String tablebasePath;
+
+	// Вызывается из gson через рефлексию, поэтому должен быть пустым
+	private BotConfig() {}
+
+	BotConfig initDefaultValues() {
+		if (hashSize < MIN_HASH_SIZE || hashSize > MAX_HASH_SIZE) {
+			hashSize = DEFAULT_HASH_SIZE;
+		}
+
+		if (searchTime < MIN_SEARCH_TIME || searchTime > MAX_SEARCH_TIME) {
+			searchTime = DEFAULT_SEARCH_TIME;
+		}
+
+		if (searchDepth < MIN_SEARCH_DEPTH || searchDepth > MAX_SEARCH_DEPTH) {
+			searchDepth = DEFAULT_SEARCH_DEPTH;
+		}
+
+		if (threads < MIN_THREADS || threads > MAX_THREADS) {
+			threads = Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS);
+		}
+
+		if (clockTime < MIN_CLOCK_TIME || clockTime > MAX_CLOCK_TIME) {
+			clockTime = DEFAULT_CLOCK_TIME;
+		}
+
+		if (clockIncrement < MIN_CLOCK_INCREMENT || clockIncrement > MAX_CLOCK_INCREMENT) {
+			clockIncrement = DEFAULT_CLOCK_INCREMENT;
+		}
+
+		if (clockMoves < MIN_CLOCK_MOVES || clockMoves > MAX_CLOCK_MOVES) {
+			clockMoves = DEFAULT_CLOCK_MOVES;
+		}
+
+		if (ponder == null) {
+			ponder = DEFAULT_PONDER;
+		}
+
+		return this;
+	}
+
+	/**
+	 * @return Размер таблицы транспозиций в мегабайтах
+	 */
+	public int getHashSize() {
+		return hashSize;
+	}
+
+	/**
+	 * @return Время на ход в миллисекундах
+	 */
+	public int getSearchTime() {
+		return searchTime;
+	}
+
+	/**
+	 * @return Максимальную глубину поиска в полуходах
+	 */
+	public int getSearchDepth() {
+		return searchDepth;
+	}
+
+	/**
+	 * @return Количество потоков поиска
+	 */
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * @return {@code true}, если у бота есть часы и время распределяется по ним, а не по {@link #getSearchTime()}
+	 */
+	public boolean hasClock() {
+		return clockTime > 0;
+	}
+
+	/**
+	 * @return Время на часах на партию или на контроль в миллисекундах или {@code 0}, если часов нет
+	 */
+	public int getClockTime() {
+		return clockTime;
+	}
+
+	/**
+	 * @return Добавку времени за ход в миллисекундах
+	 */
+	public int getClockIncrement() {
+		return clockIncrement;
+	}
+
+	/**
+	 * @return Количество ходов в контроле или {@code 0}, если время дано на всю партию
+	 */
+	public int getClockMoves() {
+		return clockMoves;
+	}
+
+	/**
+	 * @return {@code true}, если бот ищет во время хода противника
+	 */
+	public boolean isPonder() {
+		return ponder;
+	}
+
+	/**
+	 * @return Путь к книге дебютов в формате Polyglot или {@code null}, если книга не используется
+	 */
+	public @Nullable String getBookPath() {
+		return bookPath;
+	}
+
+	/**
+	 * @return Путь к директории с таблицами эндшпиля или {@code null}, если таблицы не используются
+	 */
+	public @Nullable String getTablebasePath() {
+		return tablebasePath;
+	}
+}
@@ -2,6 +2,7 @@ package x590.chess.config;
 
 import com.google.gson.*;
 import x590.chess.LowercaseEnumJsonSerializable;
+import x590.util.annotation.Nullable;
 
 import javax.swing.*;
 import java.io.*;
@@ -21,6 +22,12 @@ public class Config {
 
 	private SerializedGameConfig defaultGameConfig;
 
+	private BotConfig botConfig;
+
+	// Путь к директории с таблицами эндшпиля (*.tb), по которым партия объявляется ничьей, или null.
+	// Действует во всех партиях независимо от того, кто играет, см. ChessBoard.setDrawAdjudicator
+	private String tablebaseDrawPath;
+
 	// Вызывается из gson через рефлексию, поэтому должен быть пустым
 	private Config() {}
 
@@ -33,6 +40,10 @@ public class Config {
 			defaultGameConfig = SerializedGameConfig.DEFAULT_INSTANCE;
 		}
 
+		botConfig = botConfig == null ?
+				BotConfig.DEFAULT_INSTANCE :
+				botConfig.initDefaultValues();
+
 		return this;
 	}
 
@@ -69,6 +80,18 @@ public class Config {
 		return defaultGameConfig;
 	}
 
+	public BotConfig botConfig() {
+		return botConfig;
+	}
+
+	/**
+	 * @return Путь к директории с таблицами эндшпиля, по которым партия объявляется ничьей,
+	 * или {@code null}, если ничья по таблицам не объявляется
+	 */
+	public @Nullable String getTablebaseDrawPath() {
+		return tablebaseDrawPath;
+	}
+
 	public void setAndTrySave(String name, SerializedGameConfig gameConfig) {
 		this.name = name;
 		this.defaultGameConfig = gameConfig;
@@ -0,0 +1,47 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.Worth;
+import x590.chess.figure.move.IntMove;
+
+/**
+ * Статическая оценка позиции для поиска. Оценка выбирается в {@link SearchSettings#setEvaluator(Evaluator)}
+ */
+@FunctionalInterface
+public interface Evaluator {
+
+	/** Количество единиц оценки в одной пешке, см. {@link Worth#PAWN_SCORE} */
+	int PAWN_SCORE = Worth.PAWN_SCORE;
+
+	/** Оценка только по материалу */
+	Evaluator MATERIAL = new MaterialEvaluator();
+
+	/**
+	 * Оценка по материалу и полям фигур, смешанная из оценок миттельшпиля и эндшпиля по стадии игры
+	 * (см. {@link ChessBoard#getPositionScore()})
+	 */
+	Evaluator PIECE_SQUARE = new PieceSquareEvaluator();
+
+	/**
+	 * @return Оценку позиции с точки зрения стороны, которая ходит. Положительная оценка означает преимущество
+	 */
+	int evaluate(ChessBoard board);
+
+	/**
+	 * @return Изменение материала после хода {@code move} с точки зрения стороны, которая ходит:
+	 * ценность взятой фигуры плюс выигрыш от превращения пешки
+	 */
+	static int materialGain(int move) {
+		Figure taken = IntMove.takenFigure(move),
+				result = IntMove.resultFigure(move);
+
+		int gain = taken == null ? 0 : taken.getWorth();
+
+		if (result != null) {
+			gain += result.getWorth() - IntMove.figure(move).getWorth();
+		}
+
+		return gain * PAWN_SCORE;
+	}
+}
@@ -0,0 +1,190 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+import x590.util.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Многопоточный поиск по схеме Lazy SMP: несколько экземпляров {@link Search} одновременно ищут
+ * в одной и той же позиции, каждый на своей копии доски, и обмениваются результатами
+ * только через общую таблицу транспозиций. Вспомогательные потоки с нечётным номером начинают
+ * на один полуход глубже, чтобы потоки не повторяли одни и те же итерации одновременно.
+ * <p>
+ * Поиск в основном потоке ограничен глубиной и временем, вспомогательные потоки останавливаются,
+ * когда он заканчивается. Из результатов выбирается результат с наибольшей завершённой глубиной.
+ * Экземпляр не потокобезопасен, кроме метода {@link #stop()}.
+ */
+public final class LazySmpSearch implements AutoCloseable {
+
+	private final TranspositionTable table;
+
+	private final SearchSettings settings = new SearchSettings();
+
+	/** Сумма счётчиков всех потоков за последний поиск */
+	private final SearchStatistics statistics = new SearchStatistics();
+
+	/** Первый элемент - поиск в вызывающем потоке, остальные - во вспомогательных потоках */
+	private final Search[] searches;
+
+	private final @Nullable ExecutorService helpers;
+
+	/**
+	 * @param threads количество потоков, включая вызывающий
+	 * @throws IllegalArgumentException если количество потоков меньше 1
+	 */
+	public LazySmpSearch(TranspositionTable table, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads count must be at least 1, got " + threads);
+		}
+
+		this.table = table;
+		this.searches = new Search[threads];
+
+		for (int i = 0; i < threads; i++) {
+			searches[i] = new Search(table, settings);
+		}
+
+		this.helpers = threads > 1 ?
+				Executors.newFixedThreadPool(threads - 1, runnable -> {
+					var thread = new Thread(runnable, "Lazy SMP helper");
+					thread.setDaemon(true);
+					return thread;
+				}) :
+				null;
+	}
+
+	/**
+	 * @return Количество потоков, включая вызывающий
+	 */
+	public int getThreads() {
+		return searches.length;
+	}
+
+	/**
+	 * @return Настройки выборочного поиска, общие для всех потоков
+	 */
+	public SearchSettings getSettings() {
+		return settings;
+	}
+
+	/**
+	 * @return Счётчики выборочных техник за последний поиск, просуммированные по всем потокам
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+
+	/**
+	 * Прерывает поиск во всех потоках. Может вызываться из любого потока
+	 */
+	public void stop() {
+		for (Search search : searches) {
+			search.stop();
+		}
+	}
+
+	/**
+	 * Ищет лучший ход в текущей позиции доски. Основной поиск идёт на самой доске в вызывающем потоке,
+	 * вспомогательные - на копиях. После поиска позиция остаётся прежней
+	 * @param maxDepth максимальная глубина в полуходах
+	 * @param timeLimit ограничение времени в миллисекундах или {@code 0}, если время не ограничено
+	 * @return Результат с наибольшей завершённой глубиной. Количество позиций - сумма по всем потокам
+	 */
+	public SearchResult search(ChessBoard board, int maxDepth, long timeLimit) {
+		return search(board, maxDepth, TimeManager.fixed(timeLimit));
+	}
+
+	/**
+	 * Ищет лучший ход в текущей позиции доски. Основной поиск идёт на самой доске в вызывающем потоке,
+	 * вспомогательные - на копиях. После поиска позиция остаётся прежней
+	 * @param maxDepth максимальная глубина в полуходах
+	 * @param timeManager распределение времени на этот ход, общее для всех потоков
+	 * @return Результат с наибольшей завершённой глубиной. Количество позиций - сумма по всем потокам
+	 */
+	public SearchResult search(ChessBoard board, int maxDepth, TimeManager timeManager) {
+		final var searches = this.searches;
+
+		table.newSearch();
+
+		// Флаги сбрасываются до запуска потоков: вспомогательный поиск может начаться уже после stop()
+		for (Search search : searches) {
+			search.resetStop();
+		}
+
+		if (searches.length == 1) {
+			SearchResult result = searches[0].search(board, 1, maxDepth, timeManager);
+			collectStatistics();
+			return result;
+		}
+
+		List<Future<SearchResult>> futures = new ArrayList<>(searches.length - 1);
+
+		for (int i = 1; i < searches.length; i++) {
+			Search search = searches[i];
+			ChessBoard copy = board.copy();
+			int startDepth = 1 + i % 2;
+
+			futures.add(helpers.submit(() -> search.search(copy, startDepth, maxDepth, timeManager)));
+		}
+
+		SearchResult best = searches[0].search(board, 1, maxDepth, timeManager);
+
+		for (int i = 1; i < searches.length; i++) {
+			searches[i].stop();
+		}
+
+		long nodes = best.nodes();
+
+		for (Future<SearchResult> future : futures) {
+			SearchResult result = getResult(future);
+			nodes += result.nodes();
+
+			if (result.depth() > best.depth()) {
+				best = result;
+			}
+		}
+
+		collectStatistics();
+
+		return new SearchResult(best.move(), best.ponderMove(), best.score(), best.depth(), nodes, best.time());
+	}
+
+	private void collectStatistics() {
+		statistics.reset();
+
+		for (Search search : searches) {
+			statistics.add(search.getStatistics());
+		}
+	}
+
+	private static SearchResult getResult(Future<SearchResult> future) {
+		try {
+			return future.get();
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+		}
+	}
+
+	/**
+	 * Останавливает вспомогательные потоки
+	 */
+	@Override
+	public void close() {
+		stop();
+
+		if (helpers != null) {
+			helpers.shutdownNow();
+		}
+	}
+}
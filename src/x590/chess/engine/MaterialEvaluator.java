@@ -0,0 +1,37 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+
+/**
+ * Оценка позиции только по материалу (см. {@link Evaluator#MATERIAL})
+ */
+final class MaterialEvaluator implements Evaluator {
+
+	private static final Figure[] FIGURES = Figure.values();
+
+	MaterialEvaluator() {}
+
+	@Override
+	public int evaluate(ChessBoard board) {
+		int score = 0;
+
+		for (Figure figure : FIGURES) {
+			if (figure.getType() == FigureType.KING) {
+				continue;
+			}
+
+			int figureScore = board.getFiguresCount(figure) * figure.getWorth() * PAWN_SCORE;
+			score += figure.getSide() == Side.WHITE ? figureScore : -figureScore;
+		}
+
+		return board.currentSide() == Side.WHITE ? score : -score;
+	}
+
+	@Override
+	public String toString() {
+		return "MaterialEvaluator";
+	}
+}
@@ -0,0 +1,189 @@
+package x590.chess.engine;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.Side;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
+
+import java.util.Arrays;
+
+/**
+ * Упорядочивание ходов для поиска. Порядок такой:
+ * <ol>
+ *     <li>ход из таблицы транспозиций;</li>
+ *     <li>взятия и превращения, которые не теряют материал, по схеме MVV-LVA (самая ценная жертва - самый дешёвый нападающий),
+ *     ценность фигур берётся из {@link Figure#getWorth()};</li>
+ *     <li>два хода-убийцы на каждый полуход - тихие ходы, которые недавно вызвали отсечение на том же полуходе;</li>
+ *     <li>остальные тихие ходы по таблице истории (butterfly history), индексируемой стороной, начальным и целевым полем;</li>
+ *     <li>взятия, которые теряют материал по оценке размена ({@link ChessBoard#staticExchange(int)}), по схеме MVV-LVA.</li>
+ * </ol>
+ * Ходы не сортируются целиком: {@link #pickNext(MoveList, int, int)} на каждом шаге выбирает лучший
+ * из оставшихся, так как после отсечения остальные ходы не нужны.
+ * Экземпляр не потокобезопасен, у каждого потока поиска должен быть свой.
+ */
+final class MoveOrdering {
+
+	private static final int
+			HASH_MOVE_SCORE = Integer.MAX_VALUE,
+			CAPTURE_SCORE = 1 << 30,
+			FIRST_KILLER_SCORE = (1 << 29) + 1,
+			SECOND_KILLER_SCORE = 1 << 29,
+			LOSING_CAPTURE_SCORE = -(1 << 29);
+
+	/** Множитель ценности жертвы, чтобы она была важнее ценности нападающего (ценность короля - 255) */
+	private static final int VICTIM_MULTIPLIER = 256;
+
+	/** При достижении этого значения вся таблица истории делится пополам, чтобы оценки оставались меньше оценок убийц */
+	private static final int MAX_HISTORY = 1 << 20;
+
+	private static final int KILLERS = 2;
+
+	/** Оценки ходов для каждого полухода, в том же порядке, что и ходы в списке */
+	private final int[][] scores = new int[Search.MAX_PLY][MoveList.DEFAULT_CAPACITY];
+
+	private final int[][] killers = new int[Search.MAX_PLY][KILLERS];
+
+	/** Индексируется как {@code history[side][from * 64 + to]} */
+	private final int[][] history = new int[Side.values().length][Bitboards.SQUARES * Bitboards.SQUARES];
+
+	/**
+	 * Сбрасывает ходы-убийцы и ослабляет историю. Вызывается перед каждым поиском
+	 */
+	void newSearch() {
+		for (int[] plyKillers : killers) {
+			Arrays.fill(plyKillers, IntMove.NONE);
+		}
+
+		for (int[] sideHistory : history) {
+			for (int i = 0; i < sideHistory.length; i++) {
+				sideHistory[i] >>= 1;
+			}
+		}
+	}
+
+	/**
+	 * Оценивает все ходы списка для полухода {@code ply}
+	 * @param hashMove ход из таблицы транспозиций или {@link IntMove#NONE}
+	 */
+	void scoreMoves(ChessBoard board, MoveList moves, int ply, int hashMove) {
+		int size = moves.size();
+
+		if (scores[ply].length < size) {
+			scores[ply] = new int[size];
+		}
+
+		final int[] scores = this.scores[ply];
+		final int[] killers = this.killers[ply];
+
+		for (int i = 0; i < size; i++) {
+			int move = moves.get(i);
+
+			scores[i] = move == hashMove ? HASH_MOVE_SCORE :
+					!isQuiet(move) ? (losesMaterial(board, move) ? LOSING_CAPTURE_SCORE : CAPTURE_SCORE) + mvvLva(move) :
+					move == killers[0] ? FIRST_KILLER_SCORE :
+					move == killers[1] ? SECOND_KILLER_SCORE :
+					history[IntMove.figure(move).getSide().ordinal()][historyIndex(move)];
+		}
+	}
+
+	/**
+	 * Перемещает ход с наибольшей оценкой среди ходов, начиная с {@code index}, на позицию {@code index}
+	 * @return Этот ход
+	 */
+	int pickNext(MoveList moves, int ply, int index) {
+		final int[] scores = this.scores[ply];
+
+		int bestIndex = index;
+		int bestScore = scores[index];
+
+		for (int i = index + 1, size = moves.size(); i < size; i++) {
+			if (scores[i] > bestScore) {
+				bestScore = scores[i];
+				bestIndex = i;
+			}
+		}
+
+		if (bestIndex != index) {
+			moves.swap(index, bestIndex);
+			scores[bestIndex] = scores[index];
+			scores[index] = bestScore;
+		}
+
+		return moves.get(index);
+	}
+
+	/**
+	 * @return {@code true}, если ход, перемещённый {@link #pickNext(MoveList, int, int)} на позицию {@code index},
+	 * - взятие, которое теряет материал. Все следующие ходы тогда тоже такие взятия
+	 */
+	boolean isLosingCapture(int ply, int index) {
+		return scores[ply][index] < 0;
+	}
+
+	/**
+	 * Запоминает тихий ход, вызвавший отсечение по beta, как ход-убийцу и увеличивает его историю
+	 */
+	void onCutoff(int move, int ply, int depth) {
+		if (!isQuiet(move)) {
+			return;
+		}
+
+		final int[] killers = this.killers[ply];
+
+		if (killers[0] != move) {
+			killers[1] = killers[0];
+			killers[0] = move;
+		}
+
+		int[] sideHistory = history[IntMove.figure(move).getSide().ordinal()];
+		int index = historyIndex(move);
+
+		if ((sideHistory[index] += depth * depth) >= MAX_HISTORY) {
+			for (int i = 0; i < sideHistory.length; i++) {
+				sideHistory[i] >>= 1;
+			}
+		}
+	}
+
+	/**
+	 * @return {@code true}, если ход ничего не берёт и не превращает пешку
+	 */
+	static boolean isQuiet(int move) {
+		return IntMove.takenFigure(move) == null && IntMove.resultFigure(move) == null;
+	}
+
+	/**
+	 * @return {@code true}, если взятие теряет материал по оценке размена. Взятие более ценной
+	 * или равной фигуры не проверяется, так как оно не может потерять материал
+	 */
+	private static boolean losesMaterial(ChessBoard board, int move) {
+		Figure taken = IntMove.takenFigure(move);
+
+		if (IntMove.resultFigure(move) == null && taken != null && taken.getWorth() >= IntMove.figure(move).getWorth()) {
+			return false;
+		}
+
+		return board.staticExchange(move) < 0;
+	}
+
+	/**
+	 * @return Оценку взятия или превращения: чем ценнее жертва и чем дешевле нападающий, тем больше
+	 */
+	private static int mvvLva(int move) {
+		Figure taken = IntMove.takenFigure(move),
+				result = IntMove.resultFigure(move);
+
+		Figure figure = IntMove.figure(move);
+
+		int victimWorth = (taken == null ? 0 : taken.getWorth()) +
+				(result == null ? 0 : result.getWorth() - figure.getWorth());
+
+		return victimWorth * VICTIM_MULTIPLIER - figure.getWorth();
+	}
+
+	private static int historyIndex(int move) {
+		return IntMove.from(move) * Bitboards.SQUARES + IntMove.to(move);
+	}
+}
@@ -0,0 +1,321 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.Pos;
+import x590.chess.figure.Side;
+import x590.chess.figure.move.IMove;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
+import x590.chess.figure.move.TurningAPawnMove;
+import x590.chess.figure.step.IStep;
+import x590.chess.playingside.PlayingSide;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Подсчёт количества листьев дерева ходов до заданной глубины (perft).
+ * Используется для проверки генерации ходов: результаты сравниваются с известными
+ * значениями для стандартных позиций (см. {@link PerftPosition}).
+ * <p>
+ * Основной подсчёт идёт через ходы, закодированные в {@code int} ({@link ChessBoard#generateLegalMoves(MoveList)}
+ * и {@link ChessBoard#makeMove(int)}). Для сравнения есть подсчёт через объекты ходов
+ * ({@link #perftSteps(ChessBoard, int)}), который проходит через тот же код, что и ходы в игре.
+ * <p>
+ * Запуск из командной строки:
+ * <pre>
+ * java x590.chess.engine.Perft [--fen FEN | --position NAME] [--depth N] [--divide] [--threads N] [--steps]
+ * </pre>
+ */
+public final class Perft {
+
+	private static final int DEFAULT_DEPTH = 5;
+
+	private static final long NANOS_IN_SECOND = 1_000_000_000;
+
+	/** Сторона, которая используется для ходов через объекты. Фигура превращения пешки всегда указывается в ходе */
+	private static final PlayingSide PERFT_SIDE = new PlayingSide() {
+		@Override
+		public String getName() {
+			return "perft";
+		}
+
+		@Override
+		public boolean canSelectField() {
+			return false;
+		}
+
+		@Override
+		public Figure queryPawnTurningFigure(Side side) {
+			throw new IllegalStateException("Pawn turning figure must be specified in the move");
+		}
+	};
+
+	private final ChessBoard board;
+	private MoveList[] moveLists = new MoveList[0];
+
+	/**
+	 * @param board доска, на которой будут выполняться ходы. После подсчёта позиция остаётся прежней.
+	 *              Доска не должна одновременно использоваться в другом потоке
+	 */
+	public Perft(ChessBoard board) {
+		this.board = board;
+	}
+
+	/**
+	 * @return Количество листьев дерева ходов глубины {@code depth} из текущей позиции доски
+	 * @throws IllegalArgumentException если глубина отрицательная
+	 */
+	public long perft(int depth) {
+		checkDepth(depth);
+
+		if (moveLists.length < depth) {
+			var moveLists = new MoveList[depth];
+
+			for (int i = 0; i < depth; i++) {
+				moveLists[i] = new MoveList();
+			}
+
+			this.moveLists = moveLists;
+		}
+
+		return perft(depth, 0);
+	}
+
+	private long perft(int depth, int ply) {
+		if (depth == 0) {
+			return 1;
+		}
+
+		final var board = this.board;
+		MoveList moves = moveLists[ply];
+		board.generateLegalMoves(moves);
+
+		// На последнем уровне ходы не выполняются: каждый ход - это один лист
+		if (depth == 1) {
+			return moves.size();
+		}
+
+		long nodes = 0;
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = moves.get(i);
+
+			board.makeMove(move);
+			nodes += perft(depth - 1, ply + 1);
+			board.cancelMove(move);
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * @return Количество листьев дерева ходов глубины {@code depth} из текущей позиции доски
+	 */
+	public static long perft(ChessBoard board, int depth) {
+		return new Perft(board).perft(depth);
+	}
+
+	/**
+	 * Считает количество листьев отдельно для каждого хода из текущей позиции.
+	 * Ходы распределяются между {@code threads} потоками, каждый из которых работает со своей копией доски
+	 * @return Количество листьев для каждого хода в порядке генерации.
+	 * Ключ - ход в длинной алгебраической нотации ({@link IntMove#toLongAlgebraic(int)})
+	 * @throws IllegalArgumentException если глубина меньше 1 или количество потоков меньше 1
+	 */
+	public static Map<String, Long> divide(ChessBoard board, int depth, int threads) {
+		if (depth < 1) {
+			throw new IllegalArgumentException("Depth must be at least 1, got " + depth);
+		}
+
+		if (threads < 1) {
+			throw new IllegalArgumentException("Threads count must be at least 1, got " + threads);
+		}
+
+		var rootMoves = new MoveList();
+		board.generateLegalMoves(rootMoves);
+
+		Map<String, Long> result = new LinkedHashMap<>();
+
+		if (threads == 1) {
+			var perft = new Perft(board);
+
+			for (int i = 0, size = rootMoves.size(); i < size; i++) {
+				int move = rootMoves.get(i);
+
+				board.makeMove(move);
+				result.put(IntMove.toLongAlgebraic(move), perft.perft(depth - 1));
+				board.cancelMove(move);
+			}
+
+			return result;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+		try {
+			List<Future<Long>> futures = new ArrayList<>(rootMoves.size());
+
+			for (int i = 0, size = rootMoves.size(); i < size; i++) {
+				int move = rootMoves.get(i);
+				ChessBoard copy = board.copy();
+
+				futures.add(executor.submit(() -> {
+					copy.makeMove(move);
+					return perft(copy, depth - 1);
+				}));
+			}
+
+			for (int i = 0, size = rootMoves.size(); i < size; i++) {
+				result.put(IntMove.toLongAlgebraic(rootMoves.get(i)), futures.get(i).get());
+			}
+
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(ex.getCause());
+
+		} finally {
+			executor.shutdownNow();
+		}
+
+		return result;
+	}
+
+	/**
+	 * @return Количество листьев дерева ходов глубины {@code depth}, посчитанное через объекты ходов
+	 * ({@link ChessBoard#getPossibleSteps(Pos)} и {@link ChessBoard#makeMove(IMove, PlayingSide, PlayingSide)}).
+	 * Значительно медленнее, чем {@link #perft(ChessBoard, int)}. Сбрасывает кэшированные ходы доски
+	 * @throws IllegalArgumentException если глубина отрицательная
+	 */
+	public static long perftSteps(ChessBoard board, int depth) {
+		checkDepth(depth);
+		board.setup(PERFT_SIDE);
+		return perftSteps(board, depth, board.currentSide());
+	}
+
+	private static long perftSteps(ChessBoard board, int depth, Side side) {
+		if (depth == 0) {
+			return 1;
+		}
+
+		List<IMove> moves = new ArrayList<>();
+
+		board.forEachPossibleSteps((pos, steps) -> {
+			for (IStep step : steps) {
+				addMoves(moves, step.asMove(pos, board), side);
+			}
+		});
+
+		if (depth == 1) {
+			return moves.size();
+		}
+
+		long nodes = 0;
+
+		for (IMove move : moves) {
+			IStep prevStep = board.getLastStep();
+
+			board.makeMove(move, PERFT_SIDE, PERFT_SIDE);
+			nodes += perftSteps(board, depth - 1, side.opposite());
+			board.cancelMove(move, prevStep, PERFT_SIDE);
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Добавляет ход в список. Превращение пешки добавляется отдельным ходом для каждой фигуры
+	 */
+	private static void addMoves(List<IMove> moves, IMove move, Side side) {
+		if (move.type() != IStep.Type.TURNING_A_PAWN) {
+			moves.add(move);
+			return;
+		}
+
+		for (Figure figure : Figure.getPawnTurningFigures(side)) {
+			moves.add(new TurningAPawnMove(move.startPos(), move.targetPos(), side, move.takenFigure(), figure));
+		}
+	}
+
+	private static void checkDepth(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("Depth must not be negative, got " + depth);
+		}
+	}
+
+
+	/**
+	 * @return Количество узлов в секунду
+	 */
+	static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : nodes * NANOS_IN_SECOND / nanos;
+	}
+
+	public static void main(String[] args) {
+		String fen = PerftPosition.START.getFen();
+		int depth = DEFAULT_DEPTH;
+		int threads = 1;
+		boolean divide = false,
+				steps = false;
+
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "--fen" -> fen = requireValue(args, ++i);
+				case "--position" -> fen = PerftPosition.valueOf(requireValue(args, ++i).toUpperCase()).getFen();
+				case "--depth" -> depth = Integer.parseInt(requireValue(args, ++i));
+				case "--threads" -> threads = Integer.parseInt(requireValue(args, ++i));
+				case "--divide" -> divide = true;
+				case "--steps" -> steps = true;
+				default -> throw new IllegalArgumentException("Unknown argument \"" + args[i] + "\"");
+			}
+		}
+
+		ChessBoard board = ChessBoard.fromFen(fen);
+
+		System.out.println(board.toFen());
+
+		long startTime = System.nanoTime();
+		long nodes;
+
+		if (steps) {
+			nodes = perftSteps(board, depth);
+
+		} else if (divide || threads > 1) {
+			Map<String, Long> result = divide(board, depth, threads);
+
+			if (divide) {
+				result.forEach((move, moveNodes) -> System.out.println(move + ": " + moveNodes));
+				System.out.println();
+				System.out.println("Moves: " + result.size());
+			}
+
+			nodes = result.values().stream().mapToLong(Long::longValue).sum();
+
+		} else {
+			nodes = perft(board, depth);
+		}
+
+		long time = System.nanoTime() - startTime;
+
+		System.out.printf("Depth: %d, nodes: %d, time: %d ms, nodes/s: %d%n",
+				depth, nodes, time / 1_000_000, nodesPerSecond(nodes, time));
+	}
+
+	private static String requireValue(String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Expected value after \"" + args[index - 1] + "\"");
+		}
+
+		return args[index];
+	}
+}
@@ -0,0 +1,67 @@
+package x590.chess.engine;
+
+import x590.chess.board.Fen;
+
+/**
+ * Стандартные позиции для проверки генерации ходов и известные для них количества
+ * листьев дерева ходов на каждой глубине, начиная с 1
+ */
+public enum PerftPosition {
+	START(Fen.START_POSITION,
+			20, 400, 8902, 197281, 4865609, 119060324),
+
+	// Рокировки, взятия на проходе, связки и превращения в одной позиции
+	KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			48, 2039, 97862, 4085603, 193690690),
+
+	// Эндшпиль со взятиями на проходе, открывающими шах по горизонтали
+	ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			14, 191, 2812, 43238, 674624, 11030083),
+
+	// Превращения со взятием, рокировки под шахом
+	PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+			6, 264, 9467, 422333, 15833292),
+
+	// Та же позиция, отражённая по цветам
+	PROMOTIONS_MIRRORED("r2q1rk1/pP1p2pp/Q4n2/bbp1p3/Np6/1B3NBn/pPPP1PPP/R3K2R b KQ - 0 1",
+			6, 264, 9467, 422333, 15833292),
+
+	// Превращение со взятием и шах конём
+	TALKCHESS("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			44, 1486, 62379, 2103487, 89941194),
+
+	// Симметричная позиция из миттельшпиля
+	MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+			46, 2079, 89890, 3894594, 164075551);
+
+	private final String fen;
+	private final long[] nodes;
+
+	PerftPosition(String fen, long... nodes) {
+		this.fen = fen;
+		this.nodes = nodes;
+	}
+
+	public String getFen() {
+		return fen;
+	}
+
+	/**
+	 * @return Максимальную глубину, для которой известно количество листьев
+	 */
+	public int getMaxDepth() {
+		return nodes.length;
+	}
+
+	/**
+	 * @return Количество листьев на глубине {@code depth}
+	 * @throws IllegalArgumentException если глубина меньше 1 или больше {@link #getMaxDepth()}
+	 */
+	public long getNodes(int depth) {
+		if (depth < 1 || depth > nodes.length) {
+			throw new IllegalArgumentException("Depth " + depth + " is out of range 1.." + nodes.length + " for " + this);
+		}
+
+		return nodes[depth - 1];
+	}
+}
@@ -0,0 +1,74 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+
+/**
+ * Регрессионная проверка генерации ходов: считает perft для всех позиций из {@link PerftPosition}
+ * и сравнивает с известными значениями. Завершается с кодом 1, если хотя бы одно значение не совпало.
+ * <p>
+ * Запуск из командной строки:
+ * <pre>
+ * java x590.chess.engine.PerftSuite [MAX_DEPTH [MAX_STEPS_DEPTH]]
+ * </pre>
+ * {@code MAX_DEPTH} ограничивает глубину подсчёта через {@code int} ходы, а {@code MAX_STEPS_DEPTH} -
+ * через объекты ходов, который значительно медленнее.
+ */
+public final class PerftSuite {
+
+	private PerftSuite() {}
+
+	private static final int
+			DEFAULT_MAX_DEPTH = 4,
+			DEFAULT_MAX_STEPS_DEPTH = 3;
+
+	public static void main(String[] args) {
+		int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_DEPTH;
+		int maxStepsDepth = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_STEPS_DEPTH;
+
+		int failed = 0;
+
+		for (PerftPosition position : PerftPosition.values()) {
+			System.out.println(position + " (" + position.getFen() + ")");
+
+			for (int depth = 1, end = Math.min(maxDepth, position.getMaxDepth()); depth <= end; depth++) {
+				ChessBoard board = ChessBoard.fromFen(position.getFen());
+
+				long startTime = System.nanoTime();
+				long nodes = Perft.perft(board, depth);
+				long time = System.nanoTime() - startTime;
+
+				if (!check(position, depth, nodes, "moves", time)) {
+					failed++;
+				}
+
+				if (depth <= maxStepsDepth) {
+					startTime = System.nanoTime();
+					nodes = Perft.perftSteps(board, depth);
+					time = System.nanoTime() - startTime;
+
+					if (!check(position, depth, nodes, "steps", time)) {
+						failed++;
+					}
+				}
+			}
+		}
+
+		if (failed > 0) {
+			System.out.println("FAILED: " + failed);
+			System.exit(1);
+		}
+
+		System.out.println("OK");
+	}
+
+	private static boolean check(PerftPosition position, int depth, long nodes, String mode, long time) {
+		long expected = position.getNodes(depth);
+		boolean passed = nodes == expected;
+
+		System.out.printf("  %s depth %d: %d%s (%d ms, %d nodes/s)%n",
+				mode, depth, nodes, passed ? "" : " != " + expected,
+				time / 1_000_000, Perft.nodesPerSecond(nodes, time));
+
+		return passed;
+	}
+}
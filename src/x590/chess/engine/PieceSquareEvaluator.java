@@ -0,0 +1,23 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+
+/**
+ * Оценка позиции по материалу и полям фигур (см. {@link Evaluator#PIECE_SQUARE}).
+ * Доска сама обновляет слагаемые оценки при каждом ходе, поэтому оценка не обходит доску
+ */
+final class PieceSquareEvaluator implements Evaluator {
+
+	PieceSquareEvaluator() {}
+
+	@Override
+	public int evaluate(ChessBoard board) {
+		int score = board.getPositionScore();
+		return board.currentSide().choose(score, -score);
+	}
+
+	@Override
+	public String toString() {
+		return "PieceSquareEvaluator";
+	}
+}
@@ -0,0 +1,730 @@
+package x590.chess.engine;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.engine.TranspositionTable.Bound;
+import x590.chess.engine.tablebase.Tablebases;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
+import x590.util.annotation.Nullable;
+
+/**
+ * Поиск лучшего хода: negamax с альфа-бета отсечением и итеративным углублением.
+ * Ходы выполняются и отменяются на самой доске через {@link ChessBoard#makeMove(int)}
+ * и {@link ChessBoard#cancelMove(int)}, копии позиций не создаются.
+ * <p>
+ * Все ходы после первого ищутся с нулевым окном (PVS) и перепроверяются с полным окном, если превысили alpha.
+ * Выборочные техники (отсечение нулевым ходом, сокращение поздних ходов, отсечение бесперспективных ходов у листьев)
+ * включаются через {@link SearchSettings}, количество их срабатываний считается в {@link SearchStatistics}.
+ * <p>
+ * Если в настройках заданы таблицы эндшпиля ({@link Tablebases}), позиции из них не ищутся, а оцениваются
+ * по расстоянию до мата. Если в таблицах есть позиция в корне и все позиции после ходов из неё,
+ * ход выбирается сразу по таблицам.
+ * <p>
+ * Экземпляр не потокобезопасен, кроме метода {@link #stop()}.
+ * Таблица транспозиций может быть общей для нескольких экземпляров.
+ */
+public final class Search {
+
+	/** Максимальная глубина поиска в полуходах */
+	public static final int MAX_PLY = 128;
+
+	public static final int
+			INFINITY = 32000,
+			MATE = 31000,
+			DRAW = 0;
+
+	/**
+	 * Оценки, по модулю не меньшие этого значения, означают мат. Запас покрывает и мат в поиске,
+	 * и мат по таблицам эндшпиля, найденный на любой глубине (см. {@link #tablebaseScore(int, int)})
+	 */
+	private static final int MATE_BOUND = MATE - MAX_PLY - Tablebases.MAX_DISTANCE_TO_MATE;
+
+	/** Запас для delta pruning в поиске взятий: позиционные факторы, не учтённые в материале */
+	private static final int DELTA_MARGIN = 2 * Evaluator.PAWN_SCORE;
+
+	/** Жёсткий предел времени проверяется раз в столько позиций. Должно быть степенью двойки */
+	private static final int TIME_CHECK_INTERVAL = 2048;
+
+	private static final int
+			NULL_MOVE_MIN_DEPTH = 3,
+			NULL_MOVE_DEEP_DEPTH = 7,
+			NULL_MOVE_REDUCTION = 2,
+			NULL_MOVE_DEEP_REDUCTION = 3;
+
+	private static final int
+			LMR_MIN_DEPTH = 3,
+			LMR_MIN_MOVE_INDEX = 3,
+			LMR_TABLE_SIZE = 64;
+
+	/** Максимальная глубина, на которой применяется отсечение по статической оценке */
+	private static final int FUTILITY_MAX_DEPTH = 3;
+
+	/** Запас на полуход для reverse futility pruning */
+	private static final int REVERSE_FUTILITY_MARGIN = Evaluator.PAWN_SCORE;
+
+	/** Запас для futility pruning по оставшейся глубине */
+	private static final int[] FUTILITY_MARGINS = {
+			0,
+			2 * Evaluator.PAWN_SCORE,
+			3 * Evaluator.PAWN_SCORE,
+			5 * Evaluator.PAWN_SCORE,
+	};
+
+	/** Сокращение глубины по оставшейся глубине и номеру хода */
+	private static final int[][] LMR_REDUCTIONS = new int[LMR_TABLE_SIZE][LMR_TABLE_SIZE];
+
+	static {
+		for (int depth = 1; depth < LMR_TABLE_SIZE; depth++) {
+			for (int index = 1; index < LMR_TABLE_SIZE; index++) {
+				LMR_REDUCTIONS[depth][index] = (int)(0.75 + Math.log(depth) * Math.log(index) / 2.25);
+			}
+		}
+	}
+
+	private final TranspositionTable table;
+
+	private final SearchSettings settings;
+
+	private final SearchStatistics statistics = new SearchStatistics();
+
+	private final MoveList[] moveLists = new MoveList[MAX_PLY];
+
+	private final MoveOrdering ordering = new MoveOrdering();
+
+	/** Хэши позиций на текущем пути от корня, для обнаружения повторений */
+	private final long[] keys = new long[MAX_PLY];
+
+	private ChessBoard board;
+
+	private long nodes;
+
+	private TimeManager timeManager;
+
+	private volatile boolean stopped;
+
+	private int rootBestMove;
+
+	public Search(TranspositionTable table) {
+		this(table, new SearchSettings());
+	}
+
+	/**
+	 * @param settings настройки выборочного поиска, могут быть общими для нескольких экземпляров
+	 */
+	public Search(TranspositionTable table, SearchSettings settings) {
+		this.table = table;
+		this.settings = settings;
+
+		for (int i = 0; i < MAX_PLY; i++) {
+			moveLists[i] = new MoveList();
+		}
+	}
+
+	/**
+	 * Прерывает поиск. Может вызываться из любого потока. Поиск вернёт результат последней завершённой итерации.
+	 * Флаг сбрасывается только в начале {@link #search(ChessBoard, int, TimeManager)}, поэтому вызов,
+	 * сделанный после этого, но до начала итераций, не теряется
+	 */
+	public void stop() {
+		stopped = true;
+	}
+
+	/**
+	 * Сбрасывает флаг остановки перед новым поиском. Вызывается один раз до запуска поиска,
+	 * а не внутри него, чтобы не потерять {@link #stop()}, вызванный из другого потока
+	 */
+	void resetStop() {
+		stopped = false;
+	}
+
+	/**
+	 * Ищет лучший ход в текущей позиции доски. После поиска позиция остаётся прежней
+	 * @param maxDepth максимальная глубина в полуходах, ограничивается {@link #MAX_PLY}
+	 * @param timeLimit ограничение времени в миллисекундах или {@code 0}, если время не ограничено
+	 */
+	public SearchResult search(ChessBoard board, int maxDepth, long timeLimit) {
+		return search(board, maxDepth, TimeManager.fixed(timeLimit));
+	}
+
+	/**
+	 * Ищет лучший ход в текущей позиции доски. После поиска позиция остаётся прежней
+	 * @param maxDepth максимальная глубина в полуходах, ограничивается {@link #MAX_PLY}
+	 * @param timeManager распределение времени на этот ход
+	 */
+	public SearchResult search(ChessBoard board, int maxDepth, TimeManager timeManager) {
+		table.newSearch();
+		resetStop();
+		return search(board, 1, maxDepth, timeManager);
+	}
+
+	/**
+	 * Итеративное углубление, начиная с глубины {@code startDepth}.
+	 * Не начинает новый поиск в таблице транспозиций и не сбрасывает флаг остановки (см. {@link #resetStop()}),
+	 * это делает вызывающий код
+	 */
+	SearchResult search(ChessBoard board, int startDepth, int maxDepth, TimeManager timeManager) {
+		long startTime = System.nanoTime();
+
+		this.board = board;
+		this.nodes = 0;
+		this.timeManager = timeManager;
+
+		ordering.newSearch();
+		statistics.reset();
+
+		MoveList rootMoves = moveLists[0];
+		board.generateLegalMoves(rootMoves);
+
+		if (rootMoves.isEmpty()) {
+			return new SearchResult(IntMove.NONE, IntMove.NONE, board.isKingAttacked() ? -MATE : DRAW, 0, 0, System.nanoTime() - startTime);
+		}
+
+		SearchResult tablebaseResult = searchTablebases(rootMoves, startTime);
+
+		if (tablebaseResult != null) {
+			return tablebaseResult;
+		}
+
+		int bestMove = rootMoves.get(0),
+			bestScore = 0,
+			completedDepth = 0,
+			stableIterations = 0;
+
+		for (int depth = Math.max(startDepth, 1), end = Math.min(maxDepth, MAX_PLY - 1); depth <= end; depth++) {
+			int score = searchRoot(rootMoves, depth, bestMove);
+
+			if (stopped) {
+				break;
+			}
+
+			int scoreDrop = completedDepth > 0 ? bestScore - score : 0;
+
+			stableIterations = completedDepth > 0 && rootBestMove == bestMove ? stableIterations + 1 : 0;
+
+			bestMove = rootBestMove;
+			bestScore = score;
+			completedDepth = depth;
+
+			// Единственный ход не нужно искать глубже, как и найденный мат
+			if (rootMoves.size() == 1 || isMateScore(score) ||
+				timeManager.shouldStopIterating(stableIterations, scoreDrop)) {
+				break;
+			}
+		}
+
+		return new SearchResult(bestMove, predictReply(bestMove), bestScore, completedDepth, nodes, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @return Лучший ответ противника на ход {@code move} из таблицы транспозиций
+	 * или {@link IntMove#NONE}, если его там нет
+	 */
+	private int predictReply(int move) {
+		final var board = this.board;
+
+		board.makeMove(move);
+
+		int reply = IntMove.NONE;
+		long data = table.probe(board.getZobristKey());
+
+		if (data != TranspositionTable.NO_ENTRY) {
+			MoveList moves = moveLists[1];
+			board.generateLegalMoves(moves);
+
+			// Запись может принадлежать другой позиции с тем же индексом и совпавшей частью хэша
+			if (moves.contains(TranspositionTable.move(data))) {
+				reply = TranspositionTable.move(data);
+			}
+		}
+
+		board.cancelMove(move);
+		return reply;
+	}
+
+	/**
+	 * Выбирает ход по таблицам эндшпиля
+	 * @return Результат или {@code null}, если таблиц нет или в них нет позиции в корне или после одного из ходов
+	 */
+	private @Nullable SearchResult searchTablebases(MoveList rootMoves, long startTime) {
+		final var board = this.board;
+		Tablebases tablebases = settings.getTablebases();
+
+		if (tablebases == null) {
+			return null;
+		}
+
+		int value = tablebases.probe(board);
+
+		if (value == Tablebases.NOT_FOUND) {
+			return null;
+		}
+
+		int move = bestTablebaseMove(tablebases, rootMoves);
+
+		if (move == IntMove.NONE) {
+			return null;
+		}
+
+		board.makeMove(move);
+
+		MoveList replies = moveLists[1];
+		board.generateLegalMoves(replies);
+		int reply = bestTablebaseMove(tablebases, replies);
+
+		board.cancelMove(move);
+
+		return new SearchResult(move, reply, tablebaseScore(value, 0), 1, nodes, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * @return Ход, лучший по таблицам эндшпиля: самый быстрый мат, ничья или самый долгий проигрыш.
+	 * {@link IntMove#NONE}, если ходов нет или позиции после одного из ходов нет в таблицах
+	 */
+	private int bestTablebaseMove(Tablebases tablebases, MoveList moves) {
+		final var board = this.board;
+
+		int bestMove = IntMove.NONE,
+			bestScore = -INFINITY;
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = moves.get(i);
+
+			board.makeMove(move);
+			int value = tablebases.probe(board);
+			board.cancelMove(move);
+
+			nodes++;
+
+			if (value == Tablebases.NOT_FOUND) {
+				return IntMove.NONE;
+			}
+
+			int score = -tablebaseScore(value, 1);
+
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+			}
+		}
+
+		return bestMove;
+	}
+
+	/**
+	 * @param value байт таблицы эндшпиля (см. {@link Tablebases#probe(ChessBoard)})
+	 * @return Оценка позиции на расстоянии {@code ply} полуходов от корня
+	 */
+	private static int tablebaseScore(int value, int ply) {
+		if (Tablebases.isDraw(value)) {
+			return DRAW;
+		}
+
+		int score = MATE - ply - Tablebases.distanceToMate(value);
+		return Tablebases.isWin(value) ? score : -score;
+	}
+
+	private int searchRoot(MoveList moves, int depth, int prevBestMove) {
+		final var board = this.board;
+
+		ordering.scoreMoves(board, moves, 0, prevBestMove);
+
+		int alpha = -INFINITY;
+		int bestMove = IntMove.NONE;
+
+		keys[0] = board.getZobristKey();
+		nodes++;
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = ordering.pickNext(moves, 0, i);
+
+			board.makeMove(move);
+			int score;
+
+			if (i == 0) {
+				score = -alphaBeta(depth - 1, 1, -INFINITY, -alpha, true);
+			} else {
+				// Остальные ходы только проверяются на превышение alpha, полное окно нужно лишь для нового лучшего хода
+				score = -alphaBeta(depth - 1, 1, -alpha - 1, -alpha, true);
+
+				if (score > alpha) {
+					score = -alphaBeta(depth - 1, 1, -INFINITY, -alpha, true);
+				}
+			}
+
+			board.cancelMove(move);
+
+			if (stopped) {
+				return 0;
+			}
+
+			if (score > alpha) {
+				alpha = score;
+				bestMove = move;
+			}
+		}
+
+		table.store(keys[0], bestMove, alpha, depth, Bound.EXACT);
+
+		rootBestMove = bestMove;
+		return alpha;
+	}
+
+	/**
+	 * @param nullMoveAllowed можно ли попробовать нулевой ход. Запрещается сразу после нулевого хода
+	 */
+	private int alphaBeta(int depth, int ply, int alpha, int beta, boolean nullMoveAllowed) {
+		if (depth <= 0) {
+			return quiescence(ply, alpha, beta);
+		}
+
+		if (checkStop()) {
+			return 0;
+		}
+
+		final var board = this.board;
+		long key = board.getZobristKey();
+
+		if (isRepetition(key, ply)) {
+			return DRAW;
+		}
+
+		if (ply >= MAX_PLY - 1) {
+			return settings.getEvaluator().evaluate(board);
+		}
+
+		keys[ply] = key;
+
+		Tablebases tablebases = settings.getTablebases();
+
+		if (tablebases != null) {
+			int value = tablebases.probe(board);
+
+			if (value != Tablebases.NOT_FOUND) {
+				statistics.tablebaseHits++;
+				return tablebaseScore(value, ply);
+			}
+		}
+
+		int hashMove = IntMove.NONE;
+		long data = table.probe(key);
+
+		if (data != TranspositionTable.NO_ENTRY) {
+			hashMove = TranspositionTable.move(data);
+
+			if (TranspositionTable.depth(data) >= depth) {
+				int score = scoreFromTable(TranspositionTable.score(data), ply);
+
+				switch (TranspositionTable.bound(data)) {
+					case EXACT -> { return score; }
+					case LOWER -> { if (score >= beta) return score; }
+					case UPPER -> { if (score <= alpha) return score; }
+				}
+			}
+		}
+
+		final var settings = this.settings;
+		final var statistics = this.statistics;
+
+		boolean pvNode = beta - alpha > 1,
+				inCheck = board.isKingAttacked(),
+				selective = !pvNode && !inCheck && !isMateScore(beta);
+
+		int staticEval = selective ? settings.getEvaluator().evaluate(board) : -INFINITY;
+
+		// Reverse futility pruning: статическая оценка превышает beta с запасом, который не отыграть за оставшуюся глубину
+		if (selective && depth <= FUTILITY_MAX_DEPTH && settings.isFutilityPruning() &&
+				staticEval - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+
+			statistics.reverseFutilityCutoffs++;
+			return staticEval;
+		}
+
+		// Отсечение нулевым ходом: если даже после пропуска хода противник не опускает оценку ниже beta,
+		// то позиция достаточно хороша, чтобы не искать дальше
+		if (selective && nullMoveAllowed && depth >= NULL_MOVE_MIN_DEPTH && settings.isNullMovePruning() &&
+				staticEval >= beta && hasNonPawnMaterial(board)) {
+
+			int reduction = depth >= NULL_MOVE_DEEP_DEPTH ? NULL_MOVE_DEEP_REDUCTION : NULL_MOVE_REDUCTION;
+
+			statistics.nullMoveTries++;
+
+			board.makeNullMove();
+			int score = -alphaBeta(depth - 1 - reduction, ply + 1, -beta, -beta + 1, false);
+			board.cancelNullMove();
+
+			if (stopped) {
+				return 0;
+			}
+
+			if (score >= beta) {
+				statistics.nullMoveCutoffs++;
+				// Мат после нулевого хода не доказан, поэтому возвращается только граница
+				return isMateScore(score) ? beta : score;
+			}
+		}
+
+		MoveList moves = moveLists[ply];
+		board.generateLegalMoves(moves);
+
+		if (moves.isEmpty()) {
+			return inCheck ? -MATE + ply : DRAW;
+		}
+
+		ordering.scoreMoves(board, moves, ply, hashMove);
+
+		boolean futile = selective && depth <= FUTILITY_MAX_DEPTH && settings.isFutilityPruning() &&
+				staticEval + FUTILITY_MARGINS[depth] <= alpha;
+
+		boolean reductionsAllowed = !inCheck && depth >= LMR_MIN_DEPTH && settings.isLateMoveReductions();
+
+		int originalAlpha = alpha;
+		int bestScore = -INFINITY,
+			bestMove = IntMove.NONE;
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = ordering.pickNext(moves, ply, i);
+			boolean quiet = MoveOrdering.isQuiet(move);
+
+			board.makeMove(move);
+
+			boolean givesCheck = board.isKingAttacked();
+
+			// Futility pruning: тихий ход без шаха не поднимет оценку до alpha. Первый ход всегда просматривается
+			if (futile && i > 0 && quiet && !givesCheck) {
+				board.cancelMove(move);
+				statistics.futilityPrunedMoves++;
+				continue;
+			}
+
+			int score;
+
+			if (i == 0) {
+				score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha, true);
+
+			} else {
+				int reduction = 0;
+
+				// Late move reductions: поздние тихие ходы после хорошей сортировки редко оказываются лучшими
+				if (reductionsAllowed && i >= LMR_MIN_MOVE_INDEX && quiet && !givesCheck) {
+					reduction = Math.min(
+							LMR_REDUCTIONS[Math.min(depth, LMR_TABLE_SIZE - 1)][Math.min(i, LMR_TABLE_SIZE - 1)],
+							depth - 2
+					);
+
+					if (pvNode && reduction > 0) {
+						reduction--;
+					}
+
+					if (reduction > 0) {
+						statistics.lateMoveReductions++;
+					}
+				}
+
+				score = -alphaBeta(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+
+				if (reduction > 0 && score > alpha) {
+					statistics.lateMoveResearches++;
+					score = -alphaBeta(depth - 1, ply + 1, -alpha - 1, -alpha, true);
+				}
+
+				if (score > alpha && score < beta) {
+					score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha, true);
+				}
+			}
+
+			board.cancelMove(move);
+
+			if (stopped) {
+				return 0;
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+				bestMove = move;
+
+				if (score > alpha) {
+					alpha = score;
+
+					if (alpha >= beta) {
+						ordering.onCutoff(move, ply, depth);
+						break;
+					}
+				}
+			}
+		}
+
+		Bound bound = bestScore >= beta ? Bound.LOWER :
+				bestScore > originalAlpha ? Bound.EXACT :
+				Bound.UPPER;
+
+		table.store(key, bestMove, scoreToTable(bestScore, ply), depth, bound);
+
+		return bestScore;
+	}
+
+	/**
+	 * Поиск на листьях, который рассматривает только взятия и превращения, пока позиция не станет спокойной.
+	 * Сторона, которая ходит, может отказаться от взятий и получить статическую оценку (stand pat).
+	 * Под шахом рассматриваются все ходы, так как отказаться от хода нельзя
+	 */
+	private int quiescence(int ply, int alpha, int beta) {
+		if (checkStop()) {
+			return 0;
+		}
+
+		final var board = this.board;
+
+		if (ply >= MAX_PLY - 1) {
+			return settings.getEvaluator().evaluate(board);
+		}
+
+		MoveList moves = moveLists[ply];
+		boolean inCheck = board.isKingAttacked();
+
+		final var statistics = this.statistics;
+
+		int standPat, bestScore;
+
+		if (inCheck) {
+			board.generateLegalMoves(moves);
+
+			if (moves.isEmpty()) {
+				return -MATE + ply;
+			}
+
+			standPat = bestScore = -INFINITY;
+
+		} else {
+			standPat = bestScore = settings.getEvaluator().evaluate(board);
+
+			if (standPat >= beta) {
+				return standPat;
+			}
+
+			if (standPat > alpha) {
+				alpha = standPat;
+			}
+
+			board.generateLegalCaptures(moves);
+		}
+
+		ordering.scoreMoves(board, moves, ply, IntMove.NONE);
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			int move = ordering.pickNext(moves, ply, i);
+
+			// Взятия, которые теряют материал по оценке размена, не поднимут оценку выше stand pat.
+			// Они идут последними, поэтому пропускаются все оставшиеся ходы
+			if (!inCheck && ordering.isLosingCapture(ply, i)) {
+				statistics.losingCapturesPruned += size - i;
+				break;
+			}
+
+			// Delta pruning: даже выигрыш взятой фигуры с запасом не поднимет оценку до alpha
+			if (!inCheck && standPat + Evaluator.materialGain(move) + DELTA_MARGIN <= alpha) {
+				continue;
+			}
+
+			board.makeMove(move);
+			int score = -quiescence(ply + 1, -beta, -alpha);
+			board.cancelMove(move);
+
+			if (stopped) {
+				return 0;
+			}
+
+			if (score > bestScore) {
+				bestScore = score;
+
+				if (score > alpha) {
+					alpha = score;
+
+					if (alpha >= beta) {
+						break;
+					}
+				}
+			}
+		}
+
+		return bestScore;
+	}
+
+	/**
+	 * Считает позицию и раз в {@link #TIME_CHECK_INTERVAL} позиций проверяет жёсткий предел времени
+	 * @return {@code true}, если поиск должен быть прерван
+	 */
+	private boolean checkStop() {
+		if ((++nodes & (TIME_CHECK_INTERVAL - 1)) == 0 && timeManager.isHardLimitReached()) {
+			stopped = true;
+		}
+
+		return stopped;
+	}
+
+	/**
+	 * @return {@code true}, если у стороны, которая ходит, есть фигуры, кроме пешек и короля.
+	 * Без них нулевой ход опасен из-за цугцванга
+	 */
+	private static boolean hasNonPawnMaterial(ChessBoard board) {
+		Side side = board.currentSide();
+
+		return (board.getSideBitboard(side) &
+				~board.getBitboard(Figure.valueOf(side, FigureType.PAWN)) &
+				~board.getBitboard(Figure.valueOf(side, FigureType.KING))) != 0;
+	}
+
+	/**
+	 * @return {@code true}, если позиция с хэшем {@code key} уже встречалась на текущем пути
+	 * с той же стороной, которая ходит
+	 */
+	private boolean isRepetition(long key, int ply) {
+		final var keys = this.keys;
+
+		for (int i = ply - 2; i >= 0; i -= 2) {
+			if (keys[i] == key) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Оценка мата в таблице хранится относительно текущей позиции, а не корня
+	 */
+	private static int scoreToTable(int score, int ply) {
+		return score >= MATE_BOUND ? score + ply :
+				score <= -MATE_BOUND ? score - ply :
+				score;
+	}
+
+	private static int scoreFromTable(int score, int ply) {
+		return score >= MATE_BOUND ? score - ply :
+				score <= -MATE_BOUND ? score + ply :
+				score;
+	}
+
+	/**
+	 * @return {@code true}, если оценка означает мат одной из сторон
+	 */
+	public static boolean isMateScore(int score) {
+		return Math.abs(score) >= MATE_BOUND;
+	}
+
+	/**
+	 * @return Количество позиций, просмотренных в последнем поиске
+	 */
+	public long getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * @return Счётчики выборочных техник за последний поиск
+	 */
+	public SearchStatistics getStatistics() {
+		return statistics;
+	}
+}
@@ -0,0 +1,45 @@
+package x590.chess.engine;
+
+import x590.chess.figure.move.IntMove;
+
+/**
+ * Результат поиска
+ * @param move лучший найденный ход или {@link IntMove#NONE}, если ходов нет
+ * @param ponderMove ожидаемый ответ противника на {@code move} или {@link IntMove#NONE}, если он неизвестен
+ * @param score оценка хода с точки зрения стороны, которая ходит
+ * @param depth глубина последней полностью завершённой итерации
+ * @param nodes количество просмотренных позиций
+ * @param time время поиска в наносекундах
+ */
+public record SearchResult(int move, int ponderMove, int score, int depth, long nodes, long time) {
+
+	private static final long NANOS_IN_SECOND = 1_000_000_000;
+
+	/**
+	 * @return Количество просмотренных позиций в секунду
+	 */
+	public long nodesPerSecond() {
+		return time == 0 ? 0 : nodes * NANOS_IN_SECOND / time;
+	}
+
+	/**
+	 * @param ponderMove ожидаемый ответ противника
+	 * @return Результат с заменённым ожидаемым ответом
+	 */
+	public SearchResult withPonderMove(int ponderMove) {
+		return new SearchResult(move, ponderMove, score, depth, nodes, time);
+	}
+
+	/**
+	 * @return {@code true}, если оценка означает мат одной из сторон
+	 */
+	public boolean isMateScore() {
+		return Search.isMateScore(score);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SearchResult { move = %s, ponder = %s, score = %d, depth = %d, nodes = %d, time = %d ms, nodes/s = %d }",
+				IntMove.toLongAlgebraic(move), IntMove.toLongAlgebraic(ponderMove), score, depth, nodes, time / 1_000_000, nodesPerSecond());
+	}
+}
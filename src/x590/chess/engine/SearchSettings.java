@@ -0,0 +1,91 @@
+package x590.chess.engine;
+
+import x590.chess.engine.tablebase.Tablebases;
+import x590.util.annotation.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Включение и отключение выборочных техник поиска, выбор статической оценки и таблицы эндшпиля.
+ * Один экземпляр может быть общим для нескольких поисков (например, для всех потоков {@link LazySmpSearch}),
+ * изменения видны им при следующем обращении к настройке. По умолчанию все техники включены,
+ * оценка - {@link Evaluator#PIECE_SQUARE}, таблиц нет.
+ */
+public final class SearchSettings {
+
+	private volatile boolean
+			nullMovePruning = true,
+			lateMoveReductions = true,
+			futilityPruning = true;
+
+	private volatile Evaluator evaluator = Evaluator.PIECE_SQUARE;
+
+	private volatile @Nullable Tablebases tablebases;
+
+	/**
+	 * @return {@code true}, если включено отсечение нулевым ходом
+	 */
+	public boolean isNullMovePruning() {
+		return nullMovePruning;
+	}
+
+	public SearchSettings setNullMovePruning(boolean nullMovePruning) {
+		this.nullMovePruning = nullMovePruning;
+		return this;
+	}
+
+	/**
+	 * @return {@code true}, если включено сокращение глубины для поздних ходов (LMR)
+	 */
+	public boolean isLateMoveReductions() {
+		return lateMoveReductions;
+	}
+
+	public SearchSettings setLateMoveReductions(boolean lateMoveReductions) {
+		this.lateMoveReductions = lateMoveReductions;
+		return this;
+	}
+
+	/**
+	 * @return {@code true}, если включены обратное отсечение бесперспективных ветвей и отсечение бесперспективных ходов
+	 * (reverse futility pruning и futility pruning) рядом с листьями
+	 */
+	public boolean isFutilityPruning() {
+		return futilityPruning;
+	}
+
+	public SearchSettings setFutilityPruning(boolean futilityPruning) {
+		this.futilityPruning = futilityPruning;
+		return this;
+	}
+
+	/**
+	 * @return Статическую оценку позиции в листьях поиска
+	 */
+	public Evaluator getEvaluator() {
+		return evaluator;
+	}
+
+	public SearchSettings setEvaluator(Evaluator evaluator) {
+		this.evaluator = Objects.requireNonNull(evaluator);
+		return this;
+	}
+
+	/**
+	 * @return Таблицы эндшпиля, которые поиск использует в позициях с малым количеством фигур, или {@code null}
+	 */
+	public @Nullable Tablebases getTablebases() {
+		return tablebases;
+	}
+
+	public SearchSettings setTablebases(@Nullable Tablebases tablebases) {
+		this.tablebases = tablebases;
+		return this;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SearchSettings { nullMovePruning = %b, lateMoveReductions = %b, futilityPruning = %b, evaluator = %s, tablebases = %s }",
+				nullMovePruning, lateMoveReductions, futilityPruning, evaluator, tablebases);
+	}
+}
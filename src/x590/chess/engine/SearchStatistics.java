@@ -0,0 +1,103 @@
+package x590.chess.engine;
+
+/**
+ * Счётчики срабатываний выборочных техник поиска и обращений к таблицам эндшпиля.
+ * Экземпляр принадлежит одному поиску и не потокобезопасен
+ */
+public final class SearchStatistics {
+
+	long
+			nullMoveTries,
+			nullMoveCutoffs,
+			lateMoveReductions,
+			lateMoveResearches,
+			reverseFutilityCutoffs,
+			futilityPrunedMoves,
+			losingCapturesPruned,
+			tablebaseHits;
+
+	void reset() {
+		nullMoveTries = nullMoveCutoffs = 0;
+		lateMoveReductions = lateMoveResearches = 0;
+		reverseFutilityCutoffs = futilityPrunedMoves = 0;
+		losingCapturesPruned = 0;
+		tablebaseHits = 0;
+	}
+
+	/**
+	 * Прибавляет к счётчикам значения счётчиков {@code other}
+	 */
+	void add(SearchStatistics other) {
+		nullMoveTries += other.nullMoveTries;
+		nullMoveCutoffs += other.nullMoveCutoffs;
+		lateMoveReductions += other.lateMoveReductions;
+		lateMoveResearches += other.lateMoveResearches;
+		reverseFutilityCutoffs += other.reverseFutilityCutoffs;
+		futilityPrunedMoves += other.futilityPrunedMoves;
+		losingCapturesPruned += other.losingCapturesPruned;
+		tablebaseHits += other.tablebaseHits;
+	}
+
+	/**
+	 * @return Количество поисков после нулевого хода
+	 */
+	public long getNullMoveTries() {
+		return nullMoveTries;
+	}
+
+	/**
+	 * @return Количество отсечений нулевым ходом
+	 */
+	public long getNullMoveCutoffs() {
+		return nullMoveCutoffs;
+	}
+
+	/**
+	 * @return Количество ходов, просмотренных с сокращённой глубиной
+	 */
+	public long getLateMoveReductions() {
+		return lateMoveReductions;
+	}
+
+	/**
+	 * @return Количество сокращённых ходов, которые пришлось просмотреть заново на полную глубину
+	 */
+	public long getLateMoveResearches() {
+		return lateMoveResearches;
+	}
+
+	/**
+	 * @return Количество позиций, отсечённых по статической оценке (reverse futility pruning)
+	 */
+	public long getReverseFutilityCutoffs() {
+		return reverseFutilityCutoffs;
+	}
+
+	/**
+	 * @return Количество тихих ходов, пропущенных рядом с листьями (futility pruning)
+	 */
+	public long getFutilityPrunedMoves() {
+		return futilityPrunedMoves;
+	}
+
+	/**
+	 * @return Количество взятий, пропущенных в поиске на листьях, так как они теряют материал по оценке размена
+	 */
+	public long getLosingCapturesPruned() {
+		return losingCapturesPruned;
+	}
+
+	/**
+	 * @return Количество позиций, оценка которых взята из таблиц эндшпиля
+	 */
+	public long getTablebaseHits() {
+		return tablebaseHits;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("SearchStatistics { null move: %d/%d, LMR: %d (researches %d), reverse futility: %d, futility: %d, losing captures: %d, tablebase hits: %d }",
+				nullMoveCutoffs, nullMoveTries, lateMoveReductions, lateMoveResearches, reverseFutilityCutoffs, futilityPrunedMoves,
+				losingCapturesPruned, tablebaseHits);
+	}
+}
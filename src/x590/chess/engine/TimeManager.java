@@ -0,0 +1,231 @@
+package x590.chess.engine;
+
+import x590.util.annotation.Nullable;
+
+/**
+ * Распределение времени на один ход. Время отсчитывается по монотонным часам {@link System#nanoTime()}
+ * с момента создания экземпляра.
+ * <p>
+ * Жёсткий предел проверяется прямо во время поиска и прерывает его в любой момент.
+ * Мягкий предел проверяется между итерациями углубления: новая итерация не начинается, если он истёк.
+ * Мягкий предел уменьшается, когда лучший ход не меняется несколько итераций подряд,
+ * и увеличивается, когда оценка падает или лучший ход меняется, но никогда не превышает жёсткий.
+ * <p>
+ * Экземпляр для поиска во время хода противника ({@link #ponder()}) не ограничен по времени, пока противник
+ * не сходит. Тогда вызывается {@link #ponderHit(TimeManager)}, если ход угадан, и с этого момента действует
+ * переданное распределение, или {@link #stopPondering()}, если не угадан.
+ * Состояние хранится в самом экземпляре, поэтому неважно, успел ли поиск начаться к этому моменту.
+ * <p>
+ * Остальные экземпляры неизменяемы. Все экземпляры можно использовать в нескольких потоках одновременно.
+ */
+public final class TimeManager {
+
+	private static final long NANOS_IN_MILLI = 1_000_000;
+
+	private static final long NO_LIMIT = Long.MAX_VALUE;
+
+	/** Предполагаемое количество оставшихся ходов, если контроль времени его не задаёт */
+	private static final int DEFAULT_MOVES_TO_GO = 30;
+
+	/** Время в миллисекундах, которое оставляется на задержки вне поиска */
+	private static final long MOVE_OVERHEAD = 50;
+
+	/** Минимальное время на ход в миллисекундах */
+	private static final long MIN_MOVE_TIME = 10;
+
+	/** Во сколько раз жёсткий предел больше мягкого */
+	private static final int HARD_LIMIT_FACTOR = 4;
+
+	/** Максимальная доля оставшегося времени на один ход, в процентах */
+	private static final int MAX_REMAINING_PERCENT = 75;
+
+	/** Множители мягкого предела в процентах по количеству итераций подряд с тем же лучшим ходом */
+	private static final int[] STABILITY_PERCENTS = { 150, 110, 90, 75, 60 };
+
+	/** Падение оценки, начиная с которого мягкий предел увеличивается */
+	private static final int SCORE_DROP_THRESHOLD = Evaluator.PAWN_SCORE / 4;
+
+	private static final int
+			SCORE_DROP_PERCENT = 150,
+			MAX_SCALE_PERCENT = 300;
+
+	private final long startTime;
+
+	/** Пределы в наносекундах от {@link #startTime} или {@link #NO_LIMIT} */
+	private final long softLimit, hardLimit;
+
+	private final boolean adaptive;
+
+	private final boolean pondering;
+
+	/** Распределение времени после ожидаемого хода противника */
+	private volatile @Nullable TimeManager ponderHit;
+
+	private volatile boolean ponderStopped;
+
+	private TimeManager(long softLimit, long hardLimit, boolean adaptive, boolean pondering) {
+		this.startTime = System.nanoTime();
+		this.softLimit = softLimit;
+		this.hardLimit = hardLimit;
+		this.adaptive = adaptive;
+		this.pondering = pondering;
+	}
+
+	private TimeManager(long softLimit, long hardLimit, boolean adaptive) {
+		this(softLimit, hardLimit, adaptive, false);
+	}
+
+	/**
+	 * @return Время без ограничений
+	 */
+	public static TimeManager infinite() {
+		return new TimeManager(NO_LIMIT, NO_LIMIT, false);
+	}
+
+	/**
+	 * @return Время для поиска во время хода противника: не ограничено, пока не вызван
+	 * {@link #ponderHit(TimeManager)} или {@link #stopPondering()}
+	 */
+	public static TimeManager ponder() {
+		return new TimeManager(NO_LIMIT, NO_LIMIT, false, true);
+	}
+
+	/**
+	 * Противник сделал ожидаемый ход: дальше поиск ограничен распределением {@code timeManager}
+	 * @throws IllegalStateException если экземпляр создан не через {@link #ponder()}
+	 */
+	public void ponderHit(TimeManager timeManager) {
+		checkPondering();
+		this.ponderHit = timeManager;
+	}
+
+	/**
+	 * Противник сделал другой ход: поиск должен быть прерван
+	 * @throws IllegalStateException если экземпляр создан не через {@link #ponder()}
+	 */
+	public void stopPondering() {
+		checkPondering();
+		this.ponderStopped = true;
+	}
+
+	/**
+	 * @return Распределение времени, переданное в {@link #ponderHit(TimeManager)}, или {@code null},
+	 * если противник ещё не сделал ожидаемый ход или экземпляр создан не через {@link #ponder()}
+	 */
+	public @Nullable TimeManager getPonderHit() {
+		return ponderHit;
+	}
+
+	private void checkPondering() {
+		if (!pondering) {
+			throw new IllegalStateException("Time manager is not for pondering");
+		}
+	}
+
+	/**
+	 * @param moveTime время на ход в миллисекундах или {@code 0}, если время не ограничено
+	 * @return Фиксированное время на ход. Поиск использует его целиком, если не закончится раньше по глубине
+	 */
+	public static TimeManager fixed(long moveTime) {
+		if (moveTime <= 0) {
+			return infinite();
+		}
+
+		long limit = moveTime * NANOS_IN_MILLI;
+		return new TimeManager(limit, limit, false);
+	}
+
+	/**
+	 * Распределяет время по часам партии
+	 * @param remaining оставшееся на часах время в миллисекундах
+	 * @param increment добавка за ход в миллисекундах
+	 * @param movesToGo количество ходов до следующего контроля или {@code 0}, если контроль на всю партию
+	 */
+	public static TimeManager forClock(long remaining, long increment, int movesToGo) {
+		long available = Math.max(remaining - MOVE_OVERHEAD, MIN_MOVE_TIME);
+		int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+
+		long maxTime = Math.max(available * MAX_REMAINING_PERCENT / 100, MIN_MOVE_TIME);
+		long soft = Math.min(available / moves + increment * 3 / 4, maxTime);
+		long hard = Math.min(soft * HARD_LIMIT_FACTOR, maxTime);
+
+		soft = Math.max(soft, MIN_MOVE_TIME);
+		hard = Math.max(hard, soft);
+
+		return new TimeManager(soft * NANOS_IN_MILLI, hard * NANOS_IN_MILLI, true);
+	}
+
+	/**
+	 * @return Время с начала хода в наносекундах
+	 */
+	public long elapsed() {
+		return System.nanoTime() - startTime;
+	}
+
+	/**
+	 * @return {@code true}, если жёсткий предел истёк и поиск должен быть прерван немедленно
+	 */
+	public boolean isHardLimitReached() {
+		if (pondering) {
+			var ponderHit = this.ponderHit;
+			return ponderStopped || ponderHit != null && ponderHit.isHardLimitReached();
+		}
+
+		return hardLimit != NO_LIMIT && elapsed() >= hardLimit;
+	}
+
+	/**
+	 * Вызывается после каждой завершённой итерации углубления
+	 * @param stableIterations сколько итераций подряд лучший ход не менялся, {@code 0} - ход только что сменился
+	 * @param scoreDrop насколько оценка упала по сравнению с предыдущей итерацией (отрицательное значение - выросла)
+	 * @return {@code true}, если следующую итерацию начинать не нужно
+	 */
+	public boolean shouldStopIterating(int stableIterations, int scoreDrop) {
+		if (pondering) {
+			var ponderHit = this.ponderHit;
+			return ponderStopped || ponderHit != null && ponderHit.shouldStopIterating(stableIterations, scoreDrop);
+		}
+
+		if (softLimit == NO_LIMIT) {
+			return false;
+		}
+
+		long elapsed = elapsed();
+
+		if (!adaptive) {
+			return elapsed >= softLimit;
+		}
+
+		int percent = STABILITY_PERCENTS[Math.min(stableIterations, STABILITY_PERCENTS.length - 1)];
+
+		if (scoreDrop >= SCORE_DROP_THRESHOLD) {
+			percent = Math.min(percent * SCORE_DROP_PERCENT / 100, MAX_SCALE_PERCENT);
+		}
+
+		return elapsed >= Math.min(softLimit / 100 * percent, hardLimit);
+	}
+
+	/**
+	 * @return Мягкий предел в миллисекундах или {@code 0}, если время не ограничено
+	 */
+	public long getSoftLimit() {
+		return softLimit == NO_LIMIT ? 0 : softLimit / NANOS_IN_MILLI;
+	}
+
+	/**
+	 * @return Жёсткий предел в миллисекундах или {@code 0}, если время не ограничено
+	 */
+	public long getHardLimit() {
+		return hardLimit == NO_LIMIT ? 0 : hardLimit / NANOS_IN_MILLI;
+	}
+
+	@Override
+	public String toString() {
+		if (pondering) {
+			return "TimeManager { ponder" + (ponderHit != null ? " hit: " + ponderHit : "") + " }";
+		}
+
+		return String.format("TimeManager { soft = %d ms, hard = %d ms, adaptive = %b }",
+				getSoftLimit(), getHardLimit(), adaptive);
+	}
+}
@@ -0,0 +1,284 @@
+package x590.chess.engine;
+
+import x590.chess.figure.move.IntMove;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Таблица транспозиций фиксированного размера, общая для всех потоков поиска.
+ * <p>
+ * Таблица разбита на корзины по два слота: в первый слот записываются результаты
+ * с наибольшей глубиной (или устаревшие), во второй - всё остальное. Каждый слот занимает
+ * два {@code long}: хэш позиции, сложенный по XOR с данными, и сами данные.
+ * Блокировки не используются: если два потока одновременно запишут в слот, то хэш
+ * не совпадёт с {@code key ^ data} и запись просто не будет найдена.
+ * <p>
+ * Данные упакованы в один {@code long} (от младших битов к старшим):
+ * ход (27 бит, {@link IntMove}), оценка (16 бит со знаком), глубина (8 бит),
+ * тип оценки (2 бита, {@link Bound}) и поколение поиска (6 бит).
+ */
+public final class TranspositionTable {
+
+	/**
+	 * Тип оценки, записанной в таблицу
+	 */
+	public enum Bound {
+		/** Точная оценка */
+		EXACT,
+		/** Оценка не меньше записанной (произошло отсечение по beta) */
+		LOWER,
+		/** Оценка не больше записанной (ни один ход не улучшил alpha) */
+		UPPER;
+
+		private static final Bound[] VALUES = values();
+	}
+
+	/** Возвращается из {@link #probe(long)}, если позиция не найдена. Никакие данные не равны нулю, так как тип оценки хранится со сдвигом */
+	public static final long NO_ENTRY = 0;
+
+	private static final int BYTES_IN_MB = 1 << 20;
+
+	/** Количество {@code long} в корзине: по два на каждый из двух слотов */
+	private static final int BUCKET_LONGS = 4;
+
+	private static final int
+			MOVE_SHIFT = 0,
+			SCORE_SHIFT = 27,
+			DEPTH_SHIFT = 43,
+			BOUND_SHIFT = 51,
+			GENERATION_SHIFT = 53;
+
+	private static final long
+			MOVE_MASK = (1L << 27) - 1,
+			SCORE_MASK = 0xFFFF,
+			DEPTH_MASK = 0xFF,
+			BOUND_MASK = 0x3,
+			GENERATION_MASK = 0x3F;
+
+	/** Максимальная глубина, которая может быть записана */
+	public static final int MAX_DEPTH = (int) DEPTH_MASK;
+
+	private final long[] table;
+	private final int bucketMask;
+
+	private volatile int generation;
+
+	private final LongAdder
+			probes = new LongAdder(),
+			hits = new LongAdder(),
+			collisions = new LongAdder(),
+			stores = new LongAdder();
+
+	/**
+	 * Создаёт таблицу размером не больше {@code sizeMb} мегабайт.
+	 * Количество корзин округляется вниз до степени двойки
+	 * @throws IllegalArgumentException если размер меньше 1
+	 */
+	public TranspositionTable(int sizeMb) {
+		if (sizeMb < 1) {
+			throw new IllegalArgumentException("Transposition table size must be at least 1 MB, got " + sizeMb);
+		}
+
+		long buckets = Long.highestOneBit((long) sizeMb * BYTES_IN_MB / (BUCKET_LONGS * Long.BYTES));
+
+		this.table = new long[(int) (buckets * BUCKET_LONGS)];
+		this.bucketMask = (int) buckets - 1;
+	}
+
+	/**
+	 * Должен вызываться перед каждым новым поиском. Записи предыдущих поисков
+	 * становятся устаревшими и в первую очередь заменяются новыми
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & (int) GENERATION_MASK;
+	}
+
+	/**
+	 * Очищает таблицу и сбрасывает счётчики. Не должен вызываться во время поиска
+	 */
+	public void clear() {
+		Arrays.fill(table, 0);
+		generation = 0;
+		resetCounters();
+	}
+
+	public void resetCounters() {
+		probes.reset();
+		hits.reset();
+		collisions.reset();
+		stores.reset();
+	}
+
+
+	private int bucketIndex(long key) {
+		return ((int) key & bucketMask) * BUCKET_LONGS;
+	}
+
+	/**
+	 * @return Данные позиции с хэшем {@code key} или {@link #NO_ENTRY}, если позиция не найдена.
+	 * Данные разбираются методами {@link #move(long)}, {@link #score(long)}, {@link #depth(long)} и {@link #bound(long)}
+	 */
+	public long probe(long key) {
+		final var table = this.table;
+		int index = bucketIndex(key);
+
+		probes.increment();
+
+		boolean occupied = false;
+
+		for (int slot = index; slot < index + BUCKET_LONGS; slot += 2) {
+			long data = table[slot + 1];
+
+			if ((table[slot] ^ data) == key) {
+				hits.increment();
+				return data;
+			}
+
+			occupied |= data != NO_ENTRY;
+		}
+
+		if (occupied) {
+			collisions.increment();
+		}
+
+		return NO_ENTRY;
+	}
+
+	/**
+	 * Записывает результат поиска позиции с хэшем {@code key}.
+	 * Первый слот корзины заменяется, если в нём та же позиция, запись из прошлого поиска
+	 * или новая глубина не меньше записанной. Иначе запись попадает во второй слот, который заменяется всегда
+	 * @param move лучший ход или {@link IntMove#NONE}
+	 * @param score оценка, должна помещаться в {@code short}
+	 * @param depth глубина поиска, обрезается до {@link #MAX_DEPTH}
+	 */
+	public void store(long key, int move, int score, int depth, Bound bound) {
+		final var table = this.table;
+		int index = bucketIndex(key);
+
+		int generation = this.generation;
+		long data = pack(move, score, Math.min(Math.max(depth, 0), MAX_DEPTH), bound, generation);
+
+		stores.increment();
+
+		long oldData = table[index + 1];
+
+		boolean replaceFirst =
+				(table[index] ^ oldData) == key ||
+				oldData == NO_ENTRY ||
+				generation(oldData) != generation ||
+				depth >= depth(oldData);
+
+		int slot = replaceFirst ? index : index + 2;
+
+		table[slot] = key ^ data;
+		table[slot + 1] = data;
+	}
+
+	private static long pack(int move, int score, int depth, Bound bound, int generation) {
+		return  (move & MOVE_MASK) << MOVE_SHIFT |
+				(score & SCORE_MASK) << SCORE_SHIFT |
+				(depth & DEPTH_MASK) << DEPTH_SHIFT |
+				(long) (bound.ordinal() + 1) << BOUND_SHIFT |
+				(generation & GENERATION_MASK) << GENERATION_SHIFT;
+	}
+
+
+	/**
+	 * @return Лучший ход из данных записи или {@link IntMove#NONE}
+	 */
+	public static int move(long data) {
+		return (int) (data >>> MOVE_SHIFT & MOVE_MASK);
+	}
+
+	/**
+	 * @return Оценку из данных записи
+	 */
+	public static int score(long data) {
+		return (short) (data >>> SCORE_SHIFT & SCORE_MASK);
+	}
+
+	/**
+	 * @return Глубину из данных записи
+	 */
+	public static int depth(long data) {
+		return (int) (data >>> DEPTH_SHIFT & DEPTH_MASK);
+	}
+
+	/**
+	 * @return Тип оценки из данных записи
+	 */
+	public static Bound bound(long data) {
+		return Bound.VALUES[(int) (data >>> BOUND_SHIFT & BOUND_MASK) - 1];
+	}
+
+	private static int generation(long data) {
+		return (int) (data >>> GENERATION_SHIFT & GENERATION_MASK);
+	}
+
+
+	/**
+	 * @return Размер таблицы в байтах
+	 */
+	public long getSizeInBytes() {
+		return (long) table.length * Long.BYTES;
+	}
+
+	/**
+	 * @return Количество запросов к таблице
+	 */
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	/**
+	 * @return Количество найденных позиций
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Количество запросов, при которых корзина была занята другими позициями
+	 * (или запись была испорчена одновременной записью из другого потока)
+	 */
+	public long getCollisions() {
+		return collisions.sum();
+	}
+
+	/**
+	 * @return Количество записей в таблицу
+	 */
+	public long getStores() {
+		return stores.sum();
+	}
+
+	/**
+	 * @return Примерную заполненность таблицы записями текущего поиска в промилле,
+	 * посчитанную по первой тысяче слотов
+	 */
+	public int getHashfull() {
+		final var table = this.table;
+		int generation = this.generation;
+
+		int slots = Math.min(1000, table.length / 2);
+		int used = 0;
+
+		for (int i = 0; i < slots; i++) {
+			long data = table[i * 2 + 1];
+
+			if (data != NO_ENTRY && generation(data) == generation) {
+				used++;
+			}
+		}
+
+		return used * 1000 / slots;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("TranspositionTable { size = %d MB, probes = %d, hits = %d, collisions = %d, stores = %d, hashfull = %d/1000 }",
+				getSizeInBytes() / BYTES_IN_MB, getProbes(), getHits(), getCollisions(), getStores(), getHashfull());
+	}
+}
@@ -0,0 +1,240 @@
+package x590.chess.engine.book;
+
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Pos;
+import x590.chess.figure.move.IMove;
+import x590.chess.figure.move.TurningAPawnMove;
+import x590.chess.figure.step.IStep;
+import x590.util.annotation.Immutable;
+import x590.util.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Книга дебютов в формате Polyglot ({@code .bin}). Файл отображается в память целиком и не читается заранее:
+ * записи отсортированы по хэшу позиции ({@link PolyglotHash}), поэтому поиск - бинарный по отображённому буферу.
+ * <p>
+ * Запись занимает 16 байт (big-endian): хэш позиции (8 байт), ход (2 байта), вес (2 байта)
+ * и данные обучения (4 байта, не используются). Ход кодируется так (от младших битов к старшим):
+ * вертикаль и горизонталь целевого поля, вертикаль и горизонталь начального поля (по 3 бита)
+ * и фигура превращения пешки (3 бита: 0 - нет, 1 - конь, 2 - слон, 3 - ладья, 4 - ферзь).
+ * Рокировка записывается как ход короля на поле своей ладьи.
+ * <p>
+ * Экземпляр потокобезопасен.
+ */
+public final class PolyglotBook {
+
+	private static final int ENTRY_SIZE = 16;
+
+	private static final int
+			MOVE_OFFSET = 8,
+			WEIGHT_OFFSET = 10;
+
+	private static final int
+			TO_X_SHIFT = 0,
+			TO_Y_SHIFT = 3,
+			FROM_X_SHIFT = 6,
+			FROM_Y_SHIFT = 9,
+			PROMOTION_SHIFT = 12;
+
+	private static final int
+			COORD_MASK = 0x7,
+			PROMOTION_MASK = 0x7;
+
+	private static final FigureType[] PROMOTION_TYPES = {
+			null, FigureType.KNIGHT, FigureType.BISHOP, FigureType.ROOK, FigureType.QUEEN
+	};
+
+	/** Вертикали, на которые встаёт король при рокировке в короткую и длинную сторону */
+	private static final int
+			CASTLING_H_KING_X = 6,
+			CASTLING_A_KING_X = 2;
+
+	private static final int KING_START_X = 4;
+
+	/**
+	 * Запись книги
+	 * @param move ход в формате Polyglot
+	 * @param weight вес хода, от 0 до 65535. Чем больше вес, тем чаще выбирается ход
+	 */
+	public record Entry(int move, int weight) {}
+
+	private final MappedByteBuffer buffer;
+
+	private final int size;
+
+	private PolyglotBook(MappedByteBuffer buffer) {
+		this.buffer = buffer;
+		this.size = buffer.capacity() / ENTRY_SIZE;
+	}
+
+	/**
+	 * Отображает файл книги в память
+	 * @throws IOException если файл не удалось открыть или он больше 2 ГБ
+	 */
+	public static PolyglotBook open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+
+			if (fileSize > Integer.MAX_VALUE) {
+				throw new IOException("Book \"" + path + "\" is too large: " + fileSize + " bytes");
+			}
+
+			// Отображение остаётся действительным после закрытия канала
+			return new PolyglotBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize));
+		}
+	}
+
+	/**
+	 * @return Количество записей в книге
+	 */
+	public int size() {
+		return size;
+	}
+
+	private long key(int index) {
+		return buffer.getLong(index * ENTRY_SIZE);
+	}
+
+	/**
+	 * @return Индекс первой записи с хэшем, не меньшим {@code key}.
+	 * Хэши сравниваются как беззнаковые числа, так как в этом порядке отсортирован файл
+	 */
+	private int lowerBound(long key) {
+		int low = 0,
+			high = size;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (Long.compareUnsigned(key(middle), key) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * @return Записи для позиции с хэшем Polyglot {@code key} в порядке файла
+	 */
+	public @Immutable List<Entry> getEntries(long key) {
+		final var buffer = this.buffer;
+		List<Entry> entries = new ArrayList<>();
+
+		for (int i = lowerBound(key); i < size && key(i) == key; i++) {
+			int offset = i * ENTRY_SIZE;
+
+			entries.add(new Entry(
+					Short.toUnsignedInt(buffer.getShort(offset + MOVE_OFFSET)),
+					Short.toUnsignedInt(buffer.getShort(offset + WEIGHT_OFFSET))
+			));
+		}
+
+		return List.copyOf(entries);
+	}
+
+	/**
+	 * @return Записи для текущей позиции доски
+	 */
+	public @Immutable List<Entry> getEntries(ChessBoard board) {
+		return getEntries(PolyglotHash.of(board));
+	}
+
+	/**
+	 * Выбирает ход для текущей позиции доски случайно с вероятностью, пропорциональной весу.
+	 * Ходы, которых нет среди возможных ходов доски (например, при совпадении хэшей), пропускаются.
+	 * Доска должна быть подготовлена к ходу стороны, которая ходит (см. {@link ChessBoard#getPossibleSteps(Pos)})
+	 * @return Ход из книги или {@code null}, если позиции нет в книге
+	 */
+	public @Nullable IMove findMove(ChessBoard board, RandomGenerator random) {
+		List<IMove> moves = new ArrayList<>();
+		List<Integer> weights = new ArrayList<>();
+		int totalWeight = 0;
+
+		for (Entry entry : getEntries(board)) {
+			IMove move = toMove(board, entry.move());
+
+			if (move != null && entry.weight() > 0) {
+				moves.add(move);
+				weights.add(entry.weight());
+				totalWeight += entry.weight();
+			}
+		}
+
+		if (moves.isEmpty()) {
+			return null;
+		}
+
+		int value = random.nextInt(totalWeight);
+
+		for (int i = 0, size = moves.size(); i < size; i++) {
+			value -= weights.get(i);
+
+			if (value < 0) {
+				return moves.get(i);
+			}
+		}
+
+		throw new IllegalStateException("Unreachable");
+	}
+
+	/**
+	 * @return Ход Polyglot {@code move} как один из возможных ходов доски или {@code null}, если такого хода нет
+	 */
+	public static @Nullable IMove toMove(ChessBoard board, int move) {
+		Pos from = Pos.of(move >>> FROM_X_SHIFT & COORD_MASK, move >>> FROM_Y_SHIFT & COORD_MASK);
+		int toX = move >>> TO_X_SHIFT & COORD_MASK,
+			toY = move >>> TO_Y_SHIFT & COORD_MASK;
+
+		Figure figure = board.getFigure(from);
+
+		if (figure == null || figure.getSide() != board.currentSide()) {
+			return null;
+		}
+
+		// Рокировка записана как ход короля на поле ладьи
+		if (figure.getType() == FigureType.KING && from.getX() == KING_START_X && toY == from.getY()) {
+			if (toX == ChessBoard.END) {
+				toX = CASTLING_H_KING_X;
+			} else if (toX == ChessBoard.START) {
+				toX = CASTLING_A_KING_X;
+			}
+		}
+
+		Pos to = Pos.of(toX, toY);
+
+		int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+		FigureType promotionType = promotion < PROMOTION_TYPES.length ? PROMOTION_TYPES[promotion] : null;
+
+		for (IStep step : board.getPossibleSteps(from)) {
+			if (!step.targetPos().equals(to)) {
+				continue;
+			}
+
+			if (step.type() == IStep.Type.TURNING_A_PAWN) {
+				if (promotionType == null) {
+					return null;
+				}
+
+				return new TurningAPawnMove(from, to, figure.getSide(), board.getFigure(to),
+						Figure.valueOf(figure.getSide(), promotionType));
+			}
+
+			return step.asMove(from, board);
+		}
+
+		return null;
+	}
+}
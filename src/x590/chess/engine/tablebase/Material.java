@@ -0,0 +1,246 @@
+package x590.chess.engine.tablebase;
+
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.util.annotation.Immutable;
+
+import java.util.Arrays;
+
+/**
+ * Набор фигур эндшпиля, например {@code KQvK} или {@code KBNvK}. Фигуры белых записываются до {@code v},
+ * фигуры чёрных - после, каждая сторона начинается с короля, остальные фигуры идут в порядке {@link FigureType}.
+ * <p>
+ * Этот же порядок задаёт номера фигур в таблице: белый король, чёрный король, фигуры белых, фигуры чёрных.
+ */
+@Immutable
+public final class Material {
+
+	/** Количество типов фигур, кроме короля */
+	private static final int TYPES = FigureType.values().length - 1;
+
+	/** Бит на количество фигур одного типа в ключе */
+	private static final int COUNT_BITS = 4;
+
+	private static final int SIDE_SHIFT = TYPES * COUNT_BITS;
+
+	private static final char SEPARATOR = 'v';
+
+	private final FigureType[] white, black;
+
+	private Material(FigureType[] white, FigureType[] black) {
+		this.white = white;
+		this.black = black;
+	}
+
+	/**
+	 * @param name имя вида {@code KQvK}. Регистр букв не важен
+	 * @throws IllegalArgumentException если имя некорректно
+	 */
+	public static Material parse(String name) {
+		int separator = name.toLowerCase().indexOf(SEPARATOR);
+
+		if (separator < 0) {
+			throw new IllegalArgumentException("Material \"" + name + "\" has no '" + SEPARATOR + "' separator");
+		}
+
+		return new Material(
+				parseSide(name, name.substring(0, separator)),
+				parseSide(name, name.substring(separator + 1))
+		);
+	}
+
+	private static FigureType[] parseSide(String name, String side) {
+		if (side.isEmpty() || FigureType.byLetter(Character.toLowerCase(side.charAt(0))) != FigureType.KING) {
+			throw new IllegalArgumentException("Each side of material \"" + name + "\" must start with a king");
+		}
+
+		FigureType[] types = new FigureType[side.length() - 1];
+
+		for (int i = 1; i < side.length(); i++) {
+			FigureType type = FigureType.byLetter(Character.toLowerCase(side.charAt(i)));
+
+			if (type == null || type == FigureType.KING) {
+				throw new IllegalArgumentException("Illegal figure '" + side.charAt(i) + "' in material \"" + name + "\"");
+			}
+
+			types[i - 1] = type;
+		}
+
+		Arrays.sort(types);
+		return types;
+	}
+
+	/**
+	 * @return Набор из фигур {@code types[i]} стороны {@code sides[i]} для всех {@code i < count}, кроме королей
+	 */
+	static Material of(Side[] sides, FigureType[] types, int count) {
+		int whiteCount = 0,
+			blackCount = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (types[i] != FigureType.KING) {
+				if (sides[i] == Side.WHITE) whiteCount++;
+				else blackCount++;
+			}
+		}
+
+		FigureType[] white = new FigureType[whiteCount],
+					 black = new FigureType[blackCount];
+
+		whiteCount = blackCount = 0;
+
+		for (int i = 0; i < count; i++) {
+			if (types[i] != FigureType.KING) {
+				if (sides[i] == Side.WHITE) white[whiteCount++] = types[i];
+				else black[blackCount++] = types[i];
+			}
+		}
+
+		Arrays.sort(white);
+		Arrays.sort(black);
+		return new Material(white, black);
+	}
+
+	/**
+	 * @return Тот же набор с поменянными сторонами
+	 */
+	public Material mirror() {
+		return new Material(black, white);
+	}
+
+	/**
+	 * @return Этот набор или набор с поменянными сторонами - тот, в котором у белых более ценные фигуры.
+	 * Для наборов, отличающихся только цветом, результат одинаковый
+	 */
+	public Material canonical() {
+		int compare = Integer.compare(worth(white), worth(black));
+
+		if (compare == 0) {
+			compare = Long.compare(sideKey(white), sideKey(black));
+		}
+
+		return compare >= 0 ? this : mirror();
+	}
+
+	private static int worth(FigureType[] types) {
+		int worth = 0;
+
+		for (FigureType type : types) {
+			worth += type.getWorth();
+		}
+
+		return worth;
+	}
+
+	/**
+	 * @return Количество фигур вместе с королями
+	 */
+	public int pieceCount() {
+		return white.length + black.length + 2;
+	}
+
+	/**
+	 * @return {@code true}, если у сторон есть только короли
+	 */
+	public boolean isKingsOnly() {
+		return white.length == 0 && black.length == 0;
+	}
+
+	/**
+	 * @return Сторону фигуры с номером {@code index} в порядке таблицы
+	 */
+	public Side sideOf(int index) {
+		return index == 0 ? Side.WHITE :
+				index == 1 ? Side.BLACK :
+				index < white.length + 2 ? Side.WHITE : Side.BLACK;
+	}
+
+	/**
+	 * @return Тип фигуры с номером {@code index} в порядке таблицы
+	 */
+	public FigureType typeOf(int index) {
+		return index < 2 ? FigureType.KING :
+				index < white.length + 2 ? white[index - 2] : black[index - white.length - 2];
+	}
+
+	/**
+	 * @return Ключ, одинаковый для равных наборов. Ключ набора с поменянными сторонами - {@link #mirrorKey(long)}
+	 */
+	public long getKey() {
+		return sideKey(white) | sideKey(black) << SIDE_SHIFT;
+	}
+
+	private static long sideKey(FigureType[] types) {
+		long key = 0;
+
+		for (FigureType type : types) {
+			key += 1L << (type.ordinal() - 1) * COUNT_BITS;
+		}
+
+		return key;
+	}
+
+	/**
+	 * @return Ключ набора, в котором у белых {@code whiteCounts[type]} фигур каждого типа, у чёрных - {@code blackCounts[type]}.
+	 * Индекс массивов - {@link FigureType#ordinal()}, короли не учитываются
+	 */
+	static long keyOf(int[] whiteCounts, int[] blackCounts) {
+		long key = 0;
+
+		for (int i = 0; i < TYPES; i++) {
+			key |= (long)whiteCounts[i + 1] << i * COUNT_BITS | (long)blackCounts[i + 1] << SIDE_SHIFT + i * COUNT_BITS;
+		}
+
+		return key;
+	}
+
+	/**
+	 * @return Ключ набора, в котором у стороны {@code side} одна фигура {@code type}. Ключ набора из нескольких фигур -
+	 * сумма ключей каждой из них. Король не учитывается, для него результат - {@code 0}
+	 */
+	static long keyOf(Side side, FigureType type) {
+		return type == FigureType.KING ? 0 :
+				1L << side.choose(0, SIDE_SHIFT) + (type.ordinal() - 1) * COUNT_BITS;
+	}
+
+	/**
+	 * @return Ключ набора с поменянными сторонами
+	 */
+	static long mirrorKey(long key) {
+		long sideMask = (1L << SIDE_SHIFT) - 1;
+		return (key & sideMask) << SIDE_SHIFT | key >>> SIDE_SHIFT;
+	}
+
+	/**
+	 * @return Имя вида {@code KQvK}
+	 */
+	public String getName() {
+		return sideName(white) + SEPARATOR + sideName(black);
+	}
+
+	private static String sideName(FigureType[] types) {
+		var name = new StringBuilder().append('K');
+
+		for (FigureType type : types) {
+			name.append(Character.toUpperCase(type.getLetter()));
+		}
+
+		return name.toString();
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj || obj instanceof Material other &&
+				Arrays.equals(white, other.white) && Arrays.equals(black, other.black);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(getKey());
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+}
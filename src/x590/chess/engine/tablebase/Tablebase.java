@@ -0,0 +1,182 @@
+package x590.chess.engine.tablebase;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.figure.Side;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Таблица эндшпиля для одного набора фигур ({@link Material}). Файл отображается в память целиком.
+ * <p>
+ * Файл состоит из заголовка ({@value #HEADER_SIZE} байт: сигнатура, версия формата и количество фигур)
+ * и одного байта на каждую расстановку. Индекс расстановки - сторона, которая ходит, и поля фигур
+ * в порядке таблицы, по 6 бит на поле (см. {@link #index(Side, int[], int)}). Симметрии доски не используются,
+ * поэтому таблица из 4 фигур занимает 32 МБ.
+ * <p>
+ * Байт расстановки ({@link Tablebases#isWin(int)} и другие методы) - {@code 0} для ничьей и невозможных позиций,
+ * иначе количество полуходов до мата плюс один. Нечётное количество полуходов означает, что сторона,
+ * которая ходит, ставит мат, чётное - что ей ставят мат. Рокировки не учитываются. Позиции хранятся
+ * без права взятия на проходе, но двойной ход пешки, после которого противник может взять на проходе,
+ * оценивается с учётом этого взятия (см. {@link TablebaseGenerator}).
+ * <p>
+ * Экземпляр потокобезопасен.
+ */
+public final class Tablebase {
+
+	/** Расширение файлов таблиц */
+	public static final String EXTENSION = ".tb";
+
+	private static final int HEADER_SIZE = 16;
+
+	private static final int
+			MAGIC = 0x58354442, // "X5DB"
+			VERSION = 1;
+
+	private static final int SQUARE_BITS = 6;
+
+	private final Material material;
+
+	private final ByteBuffer buffer;
+
+	private Tablebase(Material material, ByteBuffer buffer) {
+		this.material = material;
+		this.buffer = buffer;
+	}
+
+	/**
+	 * Отображает файл таблицы в память. Набор фигур берётся из имени файла, например {@code KQvK.tb}
+	 * @throws IOException если файл не удалось открыть или его заголовок и размер не соответствуют набору фигур
+	 */
+	public static Tablebase open(Path path) throws IOException {
+		String fileName = path.getFileName().toString();
+
+		if (!fileName.endsWith(EXTENSION)) {
+			throw new IOException("Tablebase file \"" + path + "\" must have extension " + EXTENSION);
+		}
+
+		Material material;
+
+		try {
+			material = Material.parse(fileName.substring(0, fileName.length() - EXTENSION.length()));
+		} catch (IllegalArgumentException ex) {
+			throw new IOException("Illegal tablebase file name \"" + path + "\"", ex);
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long expectedSize = HEADER_SIZE + (long)size(material.pieceCount());
+
+			if (material.pieceCount() > Tablebases.MAX_PIECES || channel.size() != expectedSize) {
+				throw new IOException("Tablebase \"" + path + "\" has size " + channel.size() + ", expected " + expectedSize);
+			}
+
+			// Отображение остаётся действительным после закрытия канала
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, expectedSize);
+
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != material.pieceCount()) {
+				throw new IOException("Tablebase \"" + path + "\" has illegal header");
+			}
+
+			return new Tablebase(material, buffer.position(HEADER_SIZE).slice());
+		}
+	}
+
+	/**
+	 * Записывает таблицу в файл {@code <имя набора>.tb} в директории {@code directory}
+	 * @param values байты всех расстановок, их количество должно быть равно {@link #size(int)}
+	 * @return Путь к записанному файлу
+	 */
+	static Path write(Path directory, Material material, byte[] values) throws IOException {
+		if (values.length != size(material.pieceCount())) {
+			throw new IllegalArgumentException("Expected " + size(material.pieceCount()) + " values, got " + values.length);
+		}
+
+		Path path = directory.resolve(material.getName() + EXTENSION);
+
+		try (FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+					.putInt(MAGIC).putInt(VERSION).putInt(material.pieceCount()).putInt(0)
+					.flip();
+
+			channel.write(header);
+
+			ByteBuffer data = ByteBuffer.wrap(values);
+
+			while (data.hasRemaining()) {
+				channel.write(data);
+			}
+		}
+
+		return path;
+	}
+
+	/**
+	 * @return {@code true}, если в директории есть файл таблицы для набора {@code material}
+	 */
+	static boolean exists(Path directory, Material material) {
+		return Files.isRegularFile(directory.resolve(material.getName() + EXTENSION));
+	}
+
+	/**
+	 * @return Количество расстановок в таблице из {@code pieces} фигур
+	 */
+	static int size(int pieces) {
+		return 2 << pieces * SQUARE_BITS;
+	}
+
+	/**
+	 * @param squares поля фигур в порядке таблицы
+	 * @return Индекс расстановки
+	 */
+	static int index(Side side, int[] squares, int count) {
+		int index = side.ordinal();
+
+		for (int i = 0; i < count; i++) {
+			index = appendSquare(index, squares[i]);
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return Индекс {@code index}, дополненный полем следующей фигуры в порядке таблицы
+	 */
+	static int appendSquare(int index, int square) {
+		return index << SQUARE_BITS | square;
+	}
+
+	/**
+	 * Заполняет поля фигур по индексу расстановки
+	 * @return Сторону, которая ходит
+	 */
+	static Side decode(int index, int[] squares, int count) {
+		for (int i = count - 1; i >= 0; i--) {
+			squares[i] = index & (Bitboards.SQUARES - 1);
+			index >>>= SQUARE_BITS;
+		}
+
+		return index == 0 ? Side.WHITE : Side.BLACK;
+	}
+
+	public Material getMaterial() {
+		return material;
+	}
+
+	/**
+	 * @return Байт расстановки с индексом {@code index} как беззнаковое число
+	 */
+	int get(int index) {
+		return Byte.toUnsignedInt(buffer.get(index));
+	}
+
+	@Override
+	public String toString() {
+		return "Tablebase " + material;
+	}
+}
@@ -0,0 +1,878 @@
+package x590.chess.engine.tablebase;
+
+import it.unimi.dsi.fastutil.ints.Int2ByteMap;
+import it.unimi.dsi.fastutil.ints.Int2ByteMaps;
+import it.unimi.dsi.fastutil.ints.Int2ByteOpenHashMap;
+import x590.chess.bitboard.Bitboards;
+import x590.chess.bitboard.LeaperAttacks;
+import x590.chess.bitboard.SliderAttacks;
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Строит таблицы эндшпиля ретроградным анализом. Для каждой расстановки считается результат
+ * и количество полуходов до мата при лучшей игре обеих сторон.
+ * <p>
+ * Сначала для каждой расстановки генерируются ходы. Взятия и превращения пешки ведут в другие таблицы,
+ * которые строятся раньше, и их результат известен сразу. Остальные ходы остаются в таблице, их количество
+ * запоминается. Затем по возрастанию количества полуходов {@code d}:
+ * <ol>
+ *     <li>позиции, результат которых стал известен на шаге {@code d}, получают окончательное значение;</li>
+ *     <li>для позиций с матом через {@code d} полуходов генерируются обратные ходы: позиции, из которых
+ *     в них можно прийти, выигрывают за {@code d + 1}. Для позиций с выигрышем через {@code d} у предшественников
+ *     уменьшается счётчик ходов, и когда он доходит до нуля, предшественник проигрывает за {@code d + 1}.</li>
+ * </ol>
+ * Позиции, результат которых так и не стал известен, - ничьи.
+ * <p>
+ * Таблица хранит позиции без права взятия на проходе. Если после двойного хода пешки рядом стоит пешка противника,
+ * у него есть ещё и взятие на проходе, поэтому такой ход оценивается как ход в другую таблицу: лучшим для противника
+ * из значения позиции в таблице и результата взятия. Значение позиции в таблице известно только после построения,
+ * поэтому таблица строится заново, пока оценки таких ходов не перестанут меняться. Пешка не возвращается назад,
+ * поэтому для каждого двойного хода хватает одного лишнего построения.
+ * <p>
+ * Каждый шаг - проход по всем расстановкам, который делится на части и выполняется параллельно.
+ * Счётчики и кандидаты предшественников изменяются атомарно.
+ * <p>
+ * Запуск из командной строки:
+ * <pre>
+ * java x590.chess.engine.tablebase.TablebaseGenerator DIRECTORY [MATERIAL... | all]
+ * </pre>
+ * {@code MATERIAL} - имя набора фигур, например {@code KQvK}. Без наборов строятся {@link #DEFAULT_MATERIALS},
+ * с {@code all} - все наборы до {@link Tablebases#MAX_PIECES} фигур. Уже построенные таблицы не перестраиваются.
+ */
+public final class TablebaseGenerator {
+
+	private static final List<String> DEFAULT_MATERIALS = List.of("KQvK", "KRvK", "KPvK", "KBNvK");
+
+	private static final String ALL_MATERIALS = "all";
+
+	private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle(byte[].class);
+
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	/** Значение счётчика для невозможных позиций и позиций без ходов */
+	private static final byte NO_MOVES = Byte.MIN_VALUE;
+
+	private static final int
+			WHITE_KING = 0,
+			BLACK_KING = 1;
+
+	/** Горизонтали, с которых пешки делают двойной ход, и горизонтали превращения */
+	private static final int
+			WHITE_PAWN_START_Y = 1,
+			BLACK_PAWN_START_Y = ChessBoard.END - 1,
+			WHITE_PAWN_LAST_Y = ChessBoard.END,
+			BLACK_PAWN_LAST_Y = ChessBoard.START;
+
+	private final Path directory;
+
+	private final Tablebases tablebases;
+
+	/**
+	 * @param directory директория, в которую записываются таблицы и из которой берутся уже построенные
+	 * @param tablebases таблицы, в которые добавляются построенные
+	 */
+	public TablebaseGenerator(Path directory, Tablebases tablebases) {
+		this.directory = directory;
+		this.tablebases = tablebases;
+	}
+
+	/**
+	 * Строит таблицу для набора {@code material} и все таблицы, в которые из него можно попасть взятием или превращением.
+	 * Таблицы, которые уже есть в {@link Tablebases} или в директории, не строятся заново.
+	 * Таблица строится для набора, в котором у белых более сильные фигуры (см. {@link Material#canonical()})
+	 * @throws IllegalArgumentException если в наборе больше {@link Tablebases#MAX_PIECES} фигур
+	 */
+	public void generate(Material material) throws IOException {
+		material = material.canonical();
+
+		if (material.pieceCount() > Tablebases.MAX_PIECES) {
+			throw new IllegalArgumentException("Material " + material + " has more than " + Tablebases.MAX_PIECES + " pieces");
+		}
+
+		if (material.isKingsOnly() ||
+			tablebases.get(material) != null || tablebases.get(material.mirror()) != null) {
+			return;
+		}
+
+		if (Tablebase.exists(directory, material)) {
+			tablebases.add(Tablebase.open(directory.resolve(material.getName() + Tablebase.EXTENSION)));
+			return;
+		}
+
+		for (Material dependency : dependencies(material)) {
+			generate(dependency);
+		}
+
+		long startTime = System.nanoTime();
+
+		Generation generation = new Generation(material);
+		byte[] values = generation.run();
+
+		Path path = Tablebase.write(directory, material, values);
+		tablebases.add(Tablebase.open(path));
+
+		System.out.printf("%s: max distance %d plies, %d ms%n",
+				material, generation.maxDistance, (System.nanoTime() - startTime) / 1_000_000);
+	}
+
+	/**
+	 * @return Наборы, в которые можно попасть одним взятием или превращением пешки
+	 */
+	private static Set<Material> dependencies(Material material) {
+		int count = material.pieceCount();
+
+		Side[] sides = new Side[count];
+		FigureType[] types = new FigureType[count];
+
+		for (int i = 0; i < count; i++) {
+			sides[i] = material.sideOf(i);
+			types[i] = material.typeOf(i);
+		}
+
+		Set<Material> dependencies = new LinkedHashSet<>();
+
+		for (int i = BLACK_KING + 1; i < count; i++) {
+			Side[] childSides = new Side[count - 1];
+			FigureType[] childTypes = new FigureType[count - 1];
+
+			for (int j = 0, k = 0; j < count; j++) {
+				if (j != i) {
+					childSides[k] = sides[j];
+					childTypes[k] = types[j];
+					k++;
+				}
+			}
+
+			dependencies.add(Material.of(childSides, childTypes, count - 1));
+
+			if (types[i] == FigureType.PAWN) {
+				for (FigureType type : FigureType.PAWN_TURNING_TYPES) {
+					FigureType[] promotedTypes = types.clone();
+					promotedTypes[i] = type;
+					dependencies.add(Material.of(sides, promotedTypes, count));
+				}
+			}
+		}
+
+		return dependencies;
+	}
+
+	/**
+	 * Построение одной таблицы
+	 */
+	private final class Generation {
+
+		private final Material material;
+
+		private final int count, size;
+
+		private final Side[] sides;
+
+		private final FigureType[] types;
+
+		/** Окончательные значения (см. {@link Tablebase}) */
+		private final byte[] values;
+
+		/**
+		 * Количество ходов внутри таблицы, про которые ещё не известно, что они выигрывают для противника.
+		 * Ход в другую таблицу, ведущий к ничьей, считается как ход, который никогда не станет известен
+		 */
+		private final byte[] counters;
+
+		/**
+		 * Количество полуходов плюс один, через которое позиция получит значение: нечётное количество полуходов -
+		 * лучший известный выигрыш, чётное - проигрыш, если счётчик ходов дойдёт до нуля не позже. {@code 0} - кандидата нет
+		 */
+		private final byte[] candidates;
+
+		/** Наибольшее количество полуходов среди кандидатов */
+		private final AtomicInteger lastCandidate = new AtomicInteger();
+
+		/** Есть ли пешки у обеих сторон, то есть возможно ли взятие на проходе */
+		private final boolean enPassantPossible;
+
+		/**
+		 * Значения позиций после двойного хода пешки, в которых противник может взять на проходе,
+		 * с учётом этого взятия. Ключ - индекс позиции в таблице. Заполняется после очередного построения
+		 * и не изменяется во время него
+		 */
+		private Int2ByteMap enPassantValues = Int2ByteMaps.EMPTY_MAP;
+
+		private int maxDistance;
+
+		Generation(Material material) {
+			this.material = material;
+			this.count = material.pieceCount();
+			this.size = Tablebase.size(count);
+			this.sides = new Side[count];
+			this.types = new FigureType[count];
+
+			for (int i = 0; i < count; i++) {
+				sides[i] = material.sideOf(i);
+				types[i] = material.typeOf(i);
+			}
+
+			this.values = new byte[size];
+			this.counters = new byte[size];
+			this.candidates = new byte[size];
+
+			this.enPassantPossible =
+					IntStream.range(0, count).anyMatch(i -> types[i] == FigureType.PAWN && sides[i] == Side.WHITE) &&
+					IntStream.range(0, count).anyMatch(i -> types[i] == FigureType.PAWN && sides[i] == Side.BLACK);
+		}
+
+		byte[] run() {
+			for (;;) {
+				build();
+
+				if (!enPassantPossible) {
+					return values;
+				}
+
+				Int2ByteMap newEnPassantValues = computeEnPassantValues();
+
+				if (newEnPassantValues.equals(enPassantValues)) {
+					return values;
+				}
+
+				enPassantValues = newEnPassantValues;
+
+				Arrays.fill(values, (byte)0);
+				Arrays.fill(counters, (byte)0);
+				Arrays.fill(candidates, (byte)0);
+				lastCandidate.set(0);
+				maxDistance = 0;
+			}
+		}
+
+		/**
+		 * Строит таблицу с текущими оценками двойных ходов пешки ({@link #enPassantValues})
+		 */
+		private void build() {
+			forEachChunk((start, end) -> {
+				init(start, end);
+				return 0;
+			});
+
+			for (int distance = 0; ; distance++) {
+				if (distance > Tablebases.MAX_DISTANCE_TO_MATE) {
+					throw new IllegalStateException("Distance to mate in " + material + " exceeds " + Tablebases.MAX_DISTANCE_TO_MATE + " plies");
+				}
+
+				final int currentDistance = distance;
+
+				if (distance > 0) {
+					forEachChunk((start, end) -> finish(start, end, currentDistance));
+				}
+
+				long resolved = forEachChunk((start, end) -> propagate(start, end, currentDistance));
+
+				if (resolved > 0) {
+					maxDistance = distance;
+				} else if (distance >= lastCandidate.get()) {
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Находит позиции после двойного хода пешки, в которых противник может взять на проходе,
+		 * и оценивает их как лучшее для противника из значения в построенной таблице и результата взятия
+		 * @return Значения этих позиций по индексу в таблице
+		 */
+		private Int2ByteMap computeEnPassantValues() {
+			final int count = this.count;
+
+			int[] squares = new int[count];
+			Side[] childSides = new Side[count];
+			FigureType[] childTypes = new FigureType[count];
+			int[] childSquares = new int[count];
+
+			Int2ByteMap enPassantValues = new Int2ByteOpenHashMap();
+
+			for (int index = 0; index < size; index++) {
+				// Сторона, которая может взять на проходе
+				Side side = Tablebase.decode(index, squares, count);
+				long occupancy = occupancy(squares);
+
+				if (!isValid(side, squares, occupancy)) {
+					continue;
+				}
+
+				int value = Byte.toUnsignedInt(values[index]);
+				int kingSquareIndex = kingOf(side);
+
+				for (int j = 0; j < count; j++) {
+					if (sides[j] == side || types[j] != FigureType.PAWN) {
+						continue;
+					}
+
+					int pawnSquare = squares[j],
+						step = side.choose(-ChessBoard.SIZE, ChessBoard.SIZE),
+						passSquare = pawnSquare - step;
+
+					// Пешка противника могла только что сделать двойной ход
+					if (Bitboards.y(pawnSquare) != side.choose(BLACK_PAWN_START_Y - 2, WHITE_PAWN_START_Y + 2) ||
+						Bitboards.has(occupancy, passSquare) || Bitboards.has(occupancy, passSquare - step)) {
+						continue;
+					}
+
+					for (int i = 0; i < count; i++) {
+						if (sides[i] != side || types[i] != FigureType.PAWN ||
+							!Bitboards.has(LeaperAttacks.pawnAttacks(side, squares[i]), passSquare)) {
+							continue;
+						}
+
+						int from = squares[i];
+						squares[i] = passSquare;
+						squares[j] = Bitboards.NO_SQUARE;
+
+						long newOccupancy = occupancy & ~Bitboards.bit(from) & ~Bitboards.bit(pawnSquare) | Bitboards.bit(passSquare);
+
+						if (!isAttacked(squares[kingSquareIndex], side.opposite(), squares, newOccupancy)) {
+							int childCount = compact(squares, i, FigureType.PAWN, childSides, childTypes, childSquares);
+							int childValue = tablebases.probe(side.opposite(), childSides, childTypes, childSquares, childCount);
+
+							if (childValue == Tablebases.NOT_FOUND) {
+								throw new IllegalStateException("No tablebase for " + Material.of(childSides, childTypes, childCount));
+							}
+
+							value = better(value, Tablebases.isDraw(childValue) ?
+									Tablebases.DRAW :
+									Tablebases.valueOf(Tablebases.distanceToMate(childValue) + 1));
+						}
+
+						squares[i] = from;
+						squares[j] = pawnSquare;
+					}
+
+					enPassantValues.put(index, (byte)value);
+				}
+			}
+
+			return enPassantValues;
+		}
+
+		@FunctionalInterface
+		private interface ChunkTask {
+			long run(int start, int end);
+		}
+
+		/**
+		 * Выполняет задачу параллельно для частей всех расстановок
+		 * @return Сумму результатов
+		 */
+		private long forEachChunk(ChunkTask task) {
+			return IntStream.range(0, (size + CHUNK_SIZE - 1) / CHUNK_SIZE)
+					.parallel()
+					.mapToLong(chunk -> task.run(chunk * CHUNK_SIZE, Math.min((chunk + 1) * CHUNK_SIZE, size)))
+					.sum();
+		}
+
+		/**
+		 * Находит невозможные позиции, маты и паты, считает ходы внутри таблицы
+		 * и результаты ходов в другие таблицы
+		 */
+		private void init(int start, int end) {
+			final int count = this.count;
+
+			int[] squares = new int[count];
+			Side[] childSides = new Side[count];
+			FigureType[] childTypes = new FigureType[count];
+			int[] childSquares = new int[count];
+
+			for (int index = start; index < end; index++) {
+				Side side = Tablebase.decode(index, squares, count);
+				long occupancy = occupancy(squares);
+
+				if (!isValid(side, squares, occupancy)) {
+					counters[index] = NO_MOVES;
+					continue;
+				}
+
+				int kingSquareIndex = kingOf(side);
+				long ownOccupancy = sideOccupancy(side, squares);
+
+				int legalMoves = 0,
+					tableMoves = 0,
+					bestWin = Integer.MAX_VALUE,
+					worstLoss = -1;
+
+				boolean drawExit = false;
+
+				for (int i = 0; i < count; i++) {
+					if (sides[i] != side) {
+						continue;
+					}
+
+					int from = squares[i];
+					boolean pawn = types[i] == FigureType.PAWN;
+
+					for (long targets = targets(i, side, from, occupancy, ownOccupancy); targets != 0; targets = Bitboards.removeFirst(targets)) {
+						int to = Bitboards.first(targets),
+							taken = pieceAt(to, squares);
+
+						squares[i] = to;
+
+						if (taken >= 0) {
+							squares[taken] = Bitboards.NO_SQUARE;
+						}
+
+						long newOccupancy = occupancy & ~Bitboards.bit(from) | Bitboards.bit(to);
+
+						if (!isAttacked(squares[kingSquareIndex], side.opposite(), squares, newOccupancy)) {
+							legalMoves++;
+
+							boolean promotion = pawn && Bitboards.y(to) == side.choose(WHITE_PAWN_LAST_Y, BLACK_PAWN_LAST_Y);
+
+							int enPassantIndex = pawn && Math.abs(to - from) == 2 * ChessBoard.SIZE ?
+									Tablebase.index(side.opposite(), squares, count) : -1;
+
+							if (enPassantIndex >= 0 && enPassantValues.containsKey(enPassantIndex)) {
+								// Противник может взять на проходе, значение хода известно из прошлого построения
+								int value = Byte.toUnsignedInt(enPassantValues.get(enPassantIndex));
+
+								if (Tablebases.isDraw(value)) {
+									drawExit = true;
+								} else if (Tablebases.isLoss(value)) {
+									bestWin = Math.min(bestWin, Tablebases.distanceToMate(value) + 1);
+								} else {
+									worstLoss = Math.max(worstLoss, Tablebases.distanceToMate(value) + 1);
+								}
+
+							} else if (promotion || taken >= 0) {
+								for (FigureType type : promotion ? FigureType.PAWN_TURNING_TYPES : List.of(types[i])) {
+									int childCount = compact(squares, i, type, childSides, childTypes, childSquares);
+									int value = tablebases.probe(side.opposite(), childSides, childTypes, childSquares, childCount);
+
+									if (value == Tablebases.NOT_FOUND) {
+										throw new IllegalStateException("No tablebase for " + Material.of(childSides, childTypes, childCount));
+									}
+
+									if (Tablebases.isDraw(value)) {
+										drawExit = true;
+									} else if (Tablebases.isLoss(value)) {
+										bestWin = Math.min(bestWin, Tablebases.distanceToMate(value) + 1);
+									} else {
+										worstLoss = Math.max(worstLoss, Tablebases.distanceToMate(value) + 1);
+									}
+								}
+
+							} else {
+								tableMoves++;
+							}
+						}
+
+						squares[i] = from;
+
+						if (taken >= 0) {
+							squares[taken] = to;
+						}
+					}
+				}
+
+				if (legalMoves == 0) {
+					if (isAttacked(squares[kingSquareIndex], side.opposite(), squares, occupancy)) {
+						values[index] = (byte)Tablebases.valueOf(0);
+					}
+
+					counters[index] = NO_MOVES;
+					continue;
+				}
+
+				// Ход в ничью никогда не станет выигрышным для противника, поэтому счётчик не дойдёт до нуля
+				counters[index] = (byte)(tableMoves + (drawExit ? 1 : 0));
+
+				if (bestWin != Integer.MAX_VALUE) {
+					setCandidate(index, bestWin);
+				} else if (worstLoss >= 0) {
+					setCandidate(index, worstLoss);
+				}
+			}
+		}
+
+		/**
+		 * Даёт окончательное значение позициям, кандидат которых - {@code distance} полуходов
+		 * @return Количество таких позиций
+		 */
+		private long finish(int start, int end, int distance) {
+			byte candidate = (byte)Tablebases.valueOf(distance);
+			boolean win = (distance & 1) != 0;
+			long finished = 0;
+
+			for (int index = start; index < end; index++) {
+				if (candidates[index] == candidate && values[index] == 0 && counters[index] != NO_MOVES &&
+					(win || counters[index] == 0)) {
+
+					values[index] = candidate;
+					finished++;
+				}
+			}
+
+			return finished;
+		}
+
+		/**
+		 * Обновляет предшественников позиций, получивших значение {@code distance} полуходов
+		 * @return Количество таких позиций
+		 */
+		private long propagate(int start, int end, int distance) {
+			final int count = this.count;
+
+			byte value = (byte)Tablebases.valueOf(distance);
+			boolean loss = (distance & 1) == 0;
+			int[] squares = new int[count];
+			long resolved = 0;
+
+			for (int index = start; index < end; index++) {
+				if (values[index] != value) {
+					continue;
+				}
+
+				resolved++;
+
+				// Сторона, которая сделала последний ход
+				Side side = Tablebase.decode(index, squares, count).opposite();
+				long occupancy = occupancy(squares);
+				int opponentKing = kingOf(side.opposite());
+
+				for (int i = 0; i < count; i++) {
+					if (sides[i] != side) {
+						continue;
+					}
+
+					int to = squares[i];
+
+					for (long sources = sources(i, side, to, occupancy); sources != 0; sources = Bitboards.removeFirst(sources)) {
+						int from = Bitboards.first(sources);
+
+						// Такой двойной ход оценён при инициализации и не считается ходом внутри таблицы
+						if (Math.abs(to - from) == 2 * ChessBoard.SIZE && types[i] == FigureType.PAWN &&
+							enPassantValues.containsKey(index)) {
+							continue;
+						}
+
+						long prevOccupancy = occupancy & ~Bitboards.bit(to) | Bitboards.bit(from);
+
+						squares[i] = from;
+
+						// Перед ходом стороны side король противника не мог быть под шахом
+						if (!isAttacked(squares[opponentKing], side, squares, prevOccupancy)) {
+							int prevIndex = Tablebase.index(side, squares, count);
+
+							if (loss) {
+								onLosingMove(prevIndex, distance + 1);
+							} else {
+								onWinningMove(prevIndex, distance + 1);
+							}
+						}
+
+						squares[i] = to;
+					}
+				}
+			}
+
+			return resolved;
+		}
+
+		/**
+		 * Из позиции {@code index} есть ход в позицию, проигранную для противника
+		 */
+		private void onLosingMove(int index, int distance) {
+			if (values[index] != 0 || counters[index] == NO_MOVES) {
+				return;
+			}
+
+			byte candidate = (byte)Tablebases.valueOf(distance);
+
+			for (;;) {
+				byte current = (byte)BYTES.getVolatile(candidates, index);
+
+				// Уже есть выигрыш не длиннее
+				if (Tablebases.isWin(Byte.toUnsignedInt(current)) && Byte.toUnsignedInt(current) <= Byte.toUnsignedInt(candidate)) {
+					return;
+				}
+
+				if (BYTES.compareAndSet(candidates, index, current, candidate)) {
+					lastCandidate.accumulateAndGet(distance, Math::max);
+					return;
+				}
+			}
+		}
+
+		/**
+		 * Из позиции {@code index} есть ход в позицию, выигранную для противника
+		 */
+		private void onWinningMove(int index, int distance) {
+			if (values[index] != 0 || counters[index] == NO_MOVES) {
+				return;
+			}
+
+			byte counter;
+
+			// Сравнение с обменом вместо getAndAdd: числовые атомарные операции над byte[] в некоторых JVM
+			// возвращают значение с мусором в старших битах
+			do {
+				counter = (byte)BYTES.getVolatile(counters, index);
+			} while (!BYTES.compareAndSet(counters, index, counter, (byte)(counter - 1)));
+
+			if (counter != 1) {
+				return;
+			}
+
+			// Все ходы внутри таблицы проигрывают. Кандидат может быть только выигрышем или проигрышем ходом в другую таблицу
+			int candidate = Byte.toUnsignedInt(candidates[index]);
+
+			if (!Tablebases.isWin(candidate)) {
+				setCandidate(index, Math.max(distance, Tablebases.distanceToMate(candidate)));
+			}
+		}
+
+		/**
+		 * @return Лучшее для стороны, которая ходит, из значений {@code first} и {@code second}:
+		 * самый короткий выигрыш, затем ничья, затем самый долгий проигрыш
+		 */
+		private static int better(int first, int second) {
+			return rank(first) >= rank(second) ? first : second;
+		}
+
+		private static int rank(int value) {
+			return Tablebases.isWin(value) ? Integer.MAX_VALUE - value :
+					Tablebases.isLoss(value) ? Integer.MIN_VALUE + value :
+					0;
+		}
+
+		private void setCandidate(int index, int distance) {
+			if (distance > Tablebases.MAX_DISTANCE_TO_MATE) {
+				throw new IllegalStateException("Distance to mate in " + material + " exceeds " + Tablebases.MAX_DISTANCE_TO_MATE + " plies");
+			}
+
+			candidates[index] = (byte)Tablebases.valueOf(distance);
+			lastCandidate.accumulateAndGet(distance, Math::max);
+		}
+
+		/**
+		 * Проверяет, что фигуры стоят на разных полях, пешки не стоят на крайних горизонталях
+		 * и король стороны, которая не ходит, не под шахом
+		 */
+		private boolean isValid(Side side, int[] squares, long occupancy) {
+			if (Long.bitCount(occupancy) != count) {
+				return false;
+			}
+
+			for (int i = 0; i < count; i++) {
+				if (types[i] == FigureType.PAWN &&
+					(Bitboards.y(squares[i]) == ChessBoard.START || Bitboards.y(squares[i]) == ChessBoard.END)) {
+					return false;
+				}
+			}
+
+			return !isAttacked(squares[kingOf(side.opposite())], side, squares, occupancy);
+		}
+
+		/**
+		 * @return Поля, на которые может пойти фигура {@code i} стороны {@code side}, без учёта шаха своему королю
+		 */
+		private long targets(int i, Side side, int from, long occupancy, long ownOccupancy) {
+			if (types[i] != FigureType.PAWN) {
+				return attacks(i, from, occupancy) & ~ownOccupancy;
+			}
+
+			int step = side.choose(ChessBoard.SIZE, -ChessBoard.SIZE);
+			long targets = LeaperAttacks.pawnAttacks(side, from) & occupancy & ~ownOccupancy;
+
+			if (!Bitboards.has(occupancy, from + step)) {
+				targets |= Bitboards.bit(from + step);
+
+				if (Bitboards.y(from) == side.choose(WHITE_PAWN_START_Y, BLACK_PAWN_START_Y) &&
+					!Bitboards.has(occupancy, from + 2 * step)) {
+
+					targets |= Bitboards.bit(from + 2 * step);
+				}
+			}
+
+			return targets;
+		}
+
+		/**
+		 * @return Поля, с которых фигура {@code i} стороны {@code side} могла прийти на поле {@code to} без взятия и превращения
+		 */
+		private long sources(int i, Side side, int to, long occupancy) {
+			if (types[i] != FigureType.PAWN) {
+				return attacks(i, to, occupancy) & ~occupancy;
+			}
+
+			int step = side.choose(ChessBoard.SIZE, -ChessBoard.SIZE),
+				from = to - step;
+
+			int fromY = Bitboards.y(from);
+
+			if (fromY == ChessBoard.START || fromY == ChessBoard.END || Bitboards.has(occupancy, from)) {
+				return 0;
+			}
+
+			long sources = Bitboards.bit(from);
+
+			if (fromY - side.choose(1, -1) == side.choose(WHITE_PAWN_START_Y, BLACK_PAWN_START_Y) &&
+				!Bitboards.has(occupancy, from - step)) {
+
+				sources |= Bitboards.bit(from - step);
+			}
+
+			return sources;
+		}
+
+		private long attacks(int i, int square, long occupancy) {
+			return switch (types[i]) {
+				case KING   -> LeaperAttacks.kingAttacks(square);
+				case QUEEN  -> SliderAttacks.queenAttacks(square, occupancy);
+				case ROOK   -> SliderAttacks.rookAttacks(square, occupancy);
+				case BISHOP -> SliderAttacks.bishopAttacks(square, occupancy);
+				case KNIGHT -> LeaperAttacks.knightAttacks(square);
+				case PAWN   -> LeaperAttacks.pawnAttacks(sides[i], square);
+			};
+		}
+
+		/**
+		 * @return {@code true}, если поле {@code square} атаковано фигурами стороны {@code side}.
+		 * Фигуры с полем {@link Bitboards#NO_SQUARE} взяты и не учитываются
+		 */
+		private boolean isAttacked(int square, Side side, int[] squares, long occupancy) {
+			for (int i = 0; i < count; i++) {
+				if (sides[i] == side && squares[i] != Bitboards.NO_SQUARE &&
+					Bitboards.has(attacks(i, squares[i], occupancy), square)) {
+
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Записывает фигуры, которые остались на доске, в {@code childSides}, {@code childTypes} и {@code childSquares}.
+		 * Фигура {@code moved} получает тип {@code type}
+		 * @return Количество фигур
+		 */
+		private int compact(int[] squares, int moved, FigureType type,
+							Side[] childSides, FigureType[] childTypes, int[] childSquares) {
+
+			int childCount = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (squares[i] != Bitboards.NO_SQUARE) {
+					childSides[childCount] = sides[i];
+					childTypes[childCount] = i == moved ? type : types[i];
+					childSquares[childCount] = squares[i];
+					childCount++;
+				}
+			}
+
+			return childCount;
+		}
+
+		private int pieceAt(int square, int[] squares) {
+			for (int i = 0; i < count; i++) {
+				if (squares[i] == square) {
+					return i;
+				}
+			}
+
+			return -1;
+		}
+
+		private long occupancy(int[] squares) {
+			long occupancy = 0;
+
+			for (int i = 0; i < count; i++) {
+				occupancy |= Bitboards.bit(squares[i]);
+			}
+
+			return occupancy;
+		}
+
+		private long sideOccupancy(Side side, int[] squares) {
+			long occupancy = 0;
+
+			for (int i = 0; i < count; i++) {
+				if (sides[i] == side) {
+					occupancy |= Bitboards.bit(squares[i]);
+				}
+			}
+
+			return occupancy;
+		}
+	}
+
+	private static int kingOf(Side side) {
+		return side.choose(WHITE_KING, BLACK_KING);
+	}
+
+	/**
+	 * @return Все наборы фигур до {@link Tablebases#MAX_PIECES} фигур, кроме наборов только из королей.
+	 * Из наборов, отличающихся только цветом, берётся один (см. {@link Material#canonical()})
+	 */
+	private static List<Material> allMaterials() {
+		List<FigureType> pieces = new ArrayList<>(FigureType.PAWN_TURNING_TYPES);
+		pieces.add(FigureType.PAWN);
+
+		Set<Material> materials = new LinkedHashSet<>();
+
+		for (FigureType first : pieces) {
+			materials.add(Material.parse("K" + letter(first) + "vK"));
+
+			for (FigureType second : pieces) {
+				materials.add(Material.parse("K" + letter(first) + letter(second) + "vK"));
+				materials.add(Material.parse("K" + letter(first) + "vK" + letter(second)).canonical());
+			}
+		}
+
+		return List.copyOf(materials);
+	}
+
+	private static char letter(FigureType type) {
+		return Character.toUpperCase(type.getLetter());
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("Expected tablebase directory");
+		}
+
+		Path directory = Path.of(args[0]);
+		Files.createDirectories(directory);
+
+		List<Material> materials = new ArrayList<>();
+
+		if (args.length == 2 && ALL_MATERIALS.equals(args[1])) {
+			materials.addAll(allMaterials());
+		} else if (args.length == 1) {
+			DEFAULT_MATERIALS.forEach(name -> materials.add(Material.parse(name)));
+		} else {
+			for (int i = 1; i < args.length; i++) {
+				materials.add(Material.parse(args[i]));
+			}
+		}
+
+		var generator = new TablebaseGenerator(directory, new Tablebases());
+
+		for (Material material : materials) {
+			generator.generate(material);
+		}
+	}
+}
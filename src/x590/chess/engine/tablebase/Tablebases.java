@@ -0,0 +1,351 @@
+package x590.chess.engine.tablebase;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import x590.chess.bitboard.Bitboards;
+import x590.chess.board.ChessBoard;
+import x590.chess.board.DrawAdjudicator;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.util.Logger;
+import x590.util.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+/**
+ * Набор таблиц эндшпиля (см. {@link Tablebase}). Позиция ищется в таблице своего набора фигур
+ * или в таблице набора с поменянными сторонами, тогда доска переворачивается по горизонтали.
+ * Позиция только с королями - всегда ничья, для неё таблица не нужна.
+ * <p>
+ * Результат поиска ({@link #probe(ChessBoard)}) - байт таблицы или {@link #NOT_FOUND}.
+ * Для его разбора есть методы {@link #isWin(int)}, {@link #isLoss(int)}, {@link #isDraw(int)}
+ * и {@link #distanceToMate(int)}.
+ * <p>
+ * Как {@link DrawAdjudicator} объявляет ничью в ничейных по таблицам позициях.
+ * <p>
+ * Экземпляр потокобезопасен.
+ */
+public final class Tablebases implements DrawAdjudicator {
+
+	/** Максимальное количество фигур в таблице вместе с королями */
+	public static final int MAX_PIECES = 4;
+
+	/** Позиции нет в таблицах */
+	public static final int NOT_FOUND = -1;
+
+	/** Результат поиска для ничьей */
+	public static final int DRAW = 0;
+
+	/** Наибольшее количество полуходов до мата, которое помещается в байт таблицы (см. {@link #distanceToMate(int)}) */
+	public static final int MAX_DISTANCE_TO_MATE = 0xFF - 1;
+
+	private static final int KINGS_COUNT = 2;
+
+	/** Отражение поля по горизонтали */
+	private static final int FLIP_RANK = 0x38;
+
+	private static final Figure[] FIGURES = Figure.values();
+
+	private static final Side[] SIDES = Side.values();
+
+	private static final FigureType[] TYPES = FigureType.values();
+
+	private static final int TYPES_COUNT = TYPES.length;
+
+	/**
+	 * Таблицы по ключу набора ({@link Material#getKey()}). Ключ не упаковывается в {@link Long} при поиске.
+	 * Карта не изменяется после публикации: {@link #add(Tablebase)} заменяет её копией
+	 */
+	private volatile Long2ObjectMap<Tablebase> tables = new Long2ObjectOpenHashMap<>();
+
+	/** Наибольшее количество фигур в загруженных таблицах */
+	private volatile int maxPieces = KINGS_COUNT;
+
+	/**
+	 * Открывает все файлы таблиц ({@code *.tb}) в директории
+	 * @throws IOException если директорию или один из файлов не удалось открыть
+	 */
+	public static Tablebases open(Path directory) throws IOException {
+		Tablebases tablebases = new Tablebases();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + Tablebase.EXTENSION)) {
+			for (Path file : files) {
+				tablebases.add(Tablebase.open(file));
+			}
+		}
+
+		return tablebases;
+	}
+
+	/**
+	 * Открывает таблицы из директории {@code path}. Ошибка открытия записывается в лог
+	 * @return Таблицы или {@code null}, если путь не задан или таблицы не удалось открыть
+	 */
+	public static @Nullable Tablebases tryOpen(@Nullable String path) {
+		if (path == null) {
+			return null;
+		}
+
+		try {
+			Tablebases tablebases = open(Path.of(path));
+			Logger.log("Loaded " + tablebases);
+			return tablebases;
+		} catch (IOException | InvalidPathException ex) {
+			Logger.warning("Failed to open tablebases \"" + path + "\": " + ex);
+			return null;
+		}
+	}
+
+	public synchronized void add(Tablebase tablebase) {
+		Material material = tablebase.getMaterial();
+
+		var newTables = new Long2ObjectOpenHashMap<>(tables);
+		newTables.put(material.getKey(), tablebase);
+		tables = newTables;
+
+		maxPieces = Math.max(maxPieces, material.pieceCount());
+	}
+
+	/**
+	 * @return Таблица для набора {@code material} без переворота доски или {@code null}, если её нет
+	 */
+	public @Nullable Tablebase get(Material material) {
+		return tables.get(material.getKey());
+	}
+
+	/**
+	 * @return Количество загруженных таблиц
+	 */
+	public int size() {
+		return tables.size();
+	}
+
+	/**
+	 * @return Наибольшее количество фигур в загруженных таблицах вместе с королями
+	 */
+	public int getMaxPieces() {
+		return maxPieces;
+	}
+
+	/**
+	 * Ищет текущую позицию доски. Позиции, в которых есть право на рокировку или возможно взятие на проходе,
+	 * не ищутся, так как таблицы их не учитывают. Ключ набора и индекс расстановки строятся прямо по битбордам фигур,
+	 * без выделения памяти, так как поиск вызывает этот метод в каждой позиции с малым количеством фигур
+	 * @return Байт таблицы для стороны, которая ходит, или {@link #NOT_FOUND}
+	 */
+	public int probe(ChessBoard board) {
+		int count = Long.bitCount(board.getOccupancy());
+
+		if (count > maxPieces || hasCastlingRights(board) || canTakeEnPassant(board)) {
+			return NOT_FOUND;
+		}
+
+		if (count == KINGS_COUNT) {
+			return DRAW;
+		}
+
+		long key = 0;
+
+		for (Figure figure : FIGURES) {
+			key += Long.bitCount(board.getBitboard(figure)) * Material.keyOf(figure.getSide(), figure.getType());
+		}
+
+		boolean mirror = false;
+		final var tables = this.tables;
+		Tablebase tablebase = tables.get(key);
+
+		if (tablebase == null) {
+			tablebase = tables.get(Material.mirrorKey(key));
+			mirror = true;
+
+			if (tablebase == null) {
+				return NOT_FOUND;
+			}
+		}
+
+		// Белые в таблице - это чёрные на доске, если доска перевёрнута
+		Side tableWhite = Side.WHITE.oppositeIf(mirror),
+			 tableBlack = tableWhite.opposite();
+
+		int flip = mirror ? FLIP_RANK : 0;
+
+		// Порядок таблицы: белый король, чёрный король, фигуры белых, фигуры чёрных (см. Material).
+		// Одинаковые фигуры взаимозаменяемы, поэтому они идут в порядке полей
+		int index = board.currentSide().oppositeIf(mirror).ordinal();
+		index = appendSquares(index, board.getBitboard(Figure.valueOf(tableWhite, FigureType.KING)), flip);
+		index = appendSquares(index, board.getBitboard(Figure.valueOf(tableBlack, FigureType.KING)), flip);
+
+		index = appendFigures(index, board, tableWhite, flip);
+		index = appendFigures(index, board, tableBlack, flip);
+
+		return tablebase.get(index);
+	}
+
+	/**
+	 * @return Индекс {@code index}, дополненный полями всех фигур стороны {@code side}, кроме короля, в порядке {@link FigureType}
+	 */
+	private static int appendFigures(int index, ChessBoard board, Side side, int flip) {
+		for (FigureType type : TYPES) {
+			if (type != FigureType.KING) {
+				index = appendSquares(index, board.getBitboard(Figure.valueOf(side, type)), flip);
+			}
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return Индекс {@code index}, дополненный полями фигур из битборда {@code bitboard} по возрастанию
+	 * @param flip {@link #FLIP_RANK}, если доска перевёрнута, иначе {@code 0}
+	 */
+	private static int appendSquares(int index, long bitboard, int flip) {
+		for (; bitboard != 0; bitboard = Bitboards.removeFirst(bitboard)) {
+			index = Tablebase.appendSquare(index, Bitboards.first(bitboard) ^ flip);
+		}
+
+		return index;
+	}
+
+	/**
+	 * @return {@code true}, если одна из сторон может сделать рокировку: ни король, ни ладья не ходили и ладья не взята
+	 */
+	private static boolean hasCastlingRights(ChessBoard board) {
+		for (Side side : SIDES) {
+			long rooks = board.getBitboard(Figure.valueOf(side, FigureType.ROOK));
+			int y = side.choose(ChessBoard.START, ChessBoard.END);
+
+			if (board.hasACastlingRight(side) && Bitboards.has(rooks, Bitboards.index(ChessBoard.START, y)) ||
+				board.hasHCastlingRight(side) && Bitboards.has(rooks, Bitboards.index(ChessBoard.END, y))) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return {@code true}, если рядом с пешкой, которая только что сделала двойной ход, стоит пешка противника
+	 */
+	private static boolean canTakeEnPassant(ChessBoard board) {
+		int square = board.getDoublePawnStepSquare();
+
+		if (square == Bitboards.NO_SQUARE) {
+			return false;
+		}
+
+		long bit = Bitboards.bit(square),
+			 neighbours = (bit << 1 & ~Bitboards.FILE_A) | (bit >>> 1 & ~Bitboards.FILE_H);
+
+		return (neighbours & board.getBitboard(Figure.valueOf(board.currentSide(), FigureType.PAWN))) != 0;
+	}
+
+	/**
+	 * Ищет позицию из фигур {@code types[i]} стороны {@code sides[i]} на полях {@code squares[i]} для всех {@code i < count}.
+	 * Используется генератором, в поиске нужно вызывать {@link #probe(ChessBoard)}
+	 * @param side сторона, которая ходит
+	 * @return Байт таблицы для стороны, которая ходит, или {@link #NOT_FOUND}
+	 */
+	int probe(Side side, Side[] sides, FigureType[] types, int[] squares, int count) {
+		if (count == KINGS_COUNT) {
+			return DRAW;
+		}
+
+		int[] whiteCounts = new int[TYPES_COUNT],
+			  blackCounts = new int[TYPES_COUNT];
+
+		for (int i = 0; i < count; i++) {
+			sides[i].choose(whiteCounts, blackCounts)[types[i].ordinal()]++;
+		}
+
+		long key = Material.keyOf(whiteCounts, blackCounts);
+		boolean mirror = false;
+		final var tables = this.tables;
+		Tablebase tablebase = tables.get(key);
+
+		if (tablebase == null) {
+			tablebase = tables.get(Material.mirrorKey(key));
+			mirror = true;
+
+			if (tablebase == null) {
+				return NOT_FOUND;
+			}
+		}
+
+		Material material = tablebase.getMaterial();
+		int[] ordered = new int[count];
+		boolean[] used = new boolean[count];
+
+		// Фигуры расставляются в порядке таблицы. Одинаковые фигуры взаимозаменяемы
+		for (int j = 0; j < count; j++) {
+			Side tableSide = material.sideOf(j).oppositeIf(mirror);
+			FigureType tableType = material.typeOf(j);
+
+			for (int i = 0; i < count; i++) {
+				if (!used[i] && sides[i] == tableSide && types[i] == tableType) {
+					used[i] = true;
+					ordered[j] = mirror ? squares[i] ^ FLIP_RANK : squares[i];
+					break;
+				}
+			}
+		}
+
+		return tablebase.get(Tablebase.index(side.oppositeIf(mirror), ordered, count));
+	}
+
+	/**
+	 * Таблицы не учитывают правило 50 ходов: выигранная по таблицам позиция ничьей не объявляется,
+	 * даже если мат нельзя поставить до срабатывания правила. Байт ничьей в таблице означает также
+	 * невозможную позицию, но позиция партии всегда достижима
+	 * @return {@code true}, если позиция есть в таблицах и ничейная
+	 */
+	@Override
+	public boolean isDrawPosition(ChessBoard board) {
+		return probe(board) == DRAW;
+	}
+
+	/**
+	 * @return {@code true}, если сторона, которая ходит, ставит мат
+	 */
+	public static boolean isWin(int value) {
+		return value > DRAW && (value & 1) == 0;
+	}
+
+	/**
+	 * @return {@code true}, если стороне, которая ходит, ставят мат
+	 */
+	public static boolean isLoss(int value) {
+		return value > DRAW && (value & 1) != 0;
+	}
+
+	/**
+	 * @return {@code true}, если позиция - ничья
+	 */
+	public static boolean isDraw(int value) {
+		return value == DRAW;
+	}
+
+	/**
+	 * @return Количество полуходов до мата или {@code 0} для ничьей
+	 */
+	public static int distanceToMate(int value) {
+		return value > DRAW ? value - 1 : 0;
+	}
+
+	/**
+	 * @param distanceToMate количество полуходов до мата: нечётное - мат ставит сторона, которая ходит
+	 * @return Байт таблицы
+	 */
+	static int valueOf(int distanceToMate) {
+		return distanceToMate + 1;
+	}
+
+	@Override
+	public String toString() {
+		return "Tablebases { tables = " + tables.size() + ", max pieces = " + maxPieces + " }";
+	}
+}
@@ -1,5 +1,6 @@
 package x590.chess.figure;
 
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.step.IStep;
 import x590.chess.board.ChessBoard;
 import x590.chess.figure.behaviour.FigureBehaviour;
@@ -32,6 +33,9 @@ public enum Figure {
 
 	private static final Figure[] VALUES = values();
 
+	/** Количество всех фигур */
+	public static final int COUNT = VALUES.length;
+
 	private static final @Immutable Map<Side, Map<FigureType, Figure>> FIGURES =
 			Map.of(
 					Side.WHITE, new EnumMap<>(FigureType.class),
@@ -156,10 +160,34 @@ public enum Figure {
 		return behaviour.getPossibleSteps(board, side, current);
 	}
 
+	/**
+	 * Добавляет ходы фигуры в {@code moves}
+	 * @see FigureBehaviour#generateMoves(ChessBoard, Side, Pos, MoveList)
+	 */
+	public void generateMoves(ChessBoard board, Pos current, MoveList moves) {
+		behaviour.generateMoves(board, side, current, moves);
+	}
+
+	/**
+	 * Добавляет взятия и превращения фигуры в {@code moves}
+	 * @see FigureBehaviour#generateCaptures(ChessBoard, Side, Pos, MoveList)
+	 */
+	public void generateCaptures(ChessBoard board, Pos current, MoveList moves) {
+		behaviour.generateCaptures(board, side, current, moves);
+	}
+
 	public List<Pos> getControlledFields(ChessBoard board, Pos current) {
 		return behaviour.getControlledFields(board, side, current);
 	}
 
+	/**
+	 * @return Битборд полей, которые контролирует фигура
+	 * @see FigureBehaviour#getControlledFieldsBitboard(ChessBoard, Side, Pos)
+	 */
+	public long getControlledFieldsBitboard(ChessBoard board, Pos current) {
+		return behaviour.getControlledFieldsBitboard(board, side, current);
+	}
+
 	public boolean canBeTook() {
 		return type != FigureType.KING;
 	}
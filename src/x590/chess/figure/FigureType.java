@@ -1,33 +1,59 @@
 package x590.chess.figure;
 
 import x590.util.annotation.Immutable;
+import x590.util.annotation.Nullable;
 
 import java.util.List;
 
 public enum FigureType {
-	KING   (Worth.KING,   "king.png"),
-	QUEEN  (Worth.QUEEN,  "queen.png"),
-	ROOK   (Worth.ROOK,   "rook.png"),
-	BISHOP (Worth.BISHOP, "bishop.png"),
-	KNIGHT (Worth.KNIGHT, "knight.png"),
-	PAWN   (Worth.PAWN,   "pawn.png");
+	KING   (Worth.KING,   'k', "king.png"),
+	QUEEN  (Worth.QUEEN,  'q', "queen.png"),
+	ROOK   (Worth.ROOK,   'r', "rook.png"),
+	BISHOP (Worth.BISHOP, 'b', "bishop.png"),
+	KNIGHT (Worth.KNIGHT, 'n', "knight.png"),
+	PAWN   (Worth.PAWN,   'p', "pawn.png");
+
+	private static final FigureType[] VALUES = values();
 
 	public static final @Immutable List<FigureType> PAWN_TURNING_TYPES =
 			List.of(QUEEN, ROOK, BISHOP, KNIGHT);
 
 	private final int worth;
+
+	private final char letter;
 	
 	private final String fileName;
 
-	FigureType(int worth, String fileName) {
+	FigureType(int worth, char letter, String fileName) {
 		this.worth = worth;
+		this.letter = letter;
 		this.fileName = fileName;
 	}
 
+	/**
+	 * @return Тип фигуры по строчной букве из нотации FEN или {@code null}, если такой буквы нет
+	 */
+	public static @Nullable FigureType byLetter(char letter) {
+		for (FigureType type : VALUES) {
+			if (type.letter == letter) {
+				return type;
+			}
+		}
+
+		return null;
+	}
+
 	public int getWorth() {
 		return worth;
 	}
 
+	/**
+	 * @return Строчную букву, обозначающую фигуру в нотации FEN
+	 */
+	public char getLetter() {
+		return letter;
+	}
+
 	public String getFileName() {
 		return fileName;
 	}
@@ -23,12 +23,16 @@ public final class Pos implements IStep, PacketOutputStreamWritable {
 
 	private static final Pos[][] INSTANCES = new Pos[SIZE][SIZE];
 
+	/** Те же экземпляры, что и в {@link #INSTANCES}, но упорядоченные по индексу поля */
+	private static final Pos[] INDEXED_INSTANCES = new Pos[SIZE * SIZE];
+
 	static {
 		for (int y = 0; y < SIZE; y++) {
 			Pos[] row = INSTANCES[y];
 
 			for (int x = 0; x < SIZE; x++) {
-				row[x] = new Pos(x, y);
+				var pos = row[x] = new Pos(x, y);
+				INDEXED_INSTANCES[pos.index] = pos;
 			}
 		}
 	}
@@ -37,11 +41,12 @@ public final class Pos implements IStep, PacketOutputStreamWritable {
 			START = INSTANCES[ChessBoard.START][ChessBoard.START],
 			END = INSTANCES[ChessBoard.END][ChessBoard.END];
 
-	private final int x, y;
+	private final int x, y, index;
 
 	private Pos(int x, int y) {
 		this.x = x;
 		this.y = y;
+		this.index = y * SIZE + x;
 	}
 
 	/**
@@ -56,6 +61,15 @@ public final class Pos implements IStep, PacketOutputStreamWritable {
 		return INSTANCES[y][x];
 	}
 
+	/**
+	 * @return Экземпляр позиции с индексом {@code index}
+	 * @throws ArrayIndexOutOfBoundsException если индекс меньше нуля или не меньше 64
+	 * @see #getIndex()
+	 */
+	public static Pos ofIndex(int index) {
+		return INDEXED_INSTANCES[index];
+	}
+
 	private static boolean isInvalid(int coord) {
 		return coord < 0 || coord >= SIZE;
 	}
@@ -68,6 +82,14 @@ public final class Pos implements IStep, PacketOutputStreamWritable {
 		return y;
 	}
 
+	/**
+	 * @return Индекс поля, равный {@code y * 8 + x}. Используется как номер бита в битбордах
+	 * @see x590.chess.bitboard.Bitboards
+	 */
+	public int getIndex() {
+		return index;
+	}
+
 	/**
 	 * @return Позицию, смещённую по направлению {@code direction}
 	 * или {@code null}, если она выходит за пределы доски
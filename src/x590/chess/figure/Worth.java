@@ -11,4 +11,7 @@ public final class Worth {
 			BISHOP = 3,
 			KNIGHT = 3,
 			PAWN = 1;
+
+	/** Количество единиц оценки позиции в одной пешке */
+	public static final int PAWN_SCORE = 100;
 }
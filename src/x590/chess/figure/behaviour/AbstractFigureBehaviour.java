@@ -1,32 +1,41 @@
 package x590.chess.figure.behaviour;
 
+import x590.chess.bitboard.Bitboards;
 import x590.chess.board.ChessBoard;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.Side;
 import x590.chess.figure.step.IStep;
-import x590.util.function.TriPredicate;
+import x590.util.annotation.Immutable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntToLongFunction;
+import java.util.function.ToLongBiFunction;
 
 public abstract class AbstractFigureBehaviour implements FigureBehaviour {
 
 	protected enum StepGettingType {
-		POSSIBLE_STEPS((board, side, pos) -> {
-			Figure figure = board.getFigure(pos);
-			return figure == null || figure.canBeTookBy(side);
-		}),
+		// Все поля, кроме занятых своими фигурами и вражеским королём
+		POSSIBLE_STEPS((board, side) -> ~(board.getSideBitboard(side) |
+				board.getBitboard(Figure.valueOf(side.opposite(), FigureType.KING)))),
 
-		CONTROLLED_FIELDS((board, side, pos) -> true);
+		CONTROLLED_FIELDS((board, side) -> Bitboards.ALL);
 
-		private final TriPredicate<ChessBoard, Side, Pos> includeField;
+		private final ToLongBiFunction<ChessBoard, Side> fieldsMask;
 
-		StepGettingType(TriPredicate<ChessBoard, Side, Pos> includeField) {
-			this.includeField = includeField;
+		StepGettingType(ToLongBiFunction<ChessBoard, Side> fieldsMask) {
+			this.fieldsMask = fieldsMask;
 		}
 
-		public boolean includeField(ChessBoard board, Side side, Pos pos) {
-			return includeField.test(board, side, pos);
+		/**
+		 * @return Битборд полей, которые следует включать в результат
+		 */
+		public long fieldsMask(ChessBoard board, Side side) {
+			return fieldsMask.applyAsLong(board, side);
 		}
 	}
 
@@ -38,5 +47,66 @@ public abstract class AbstractFigureBehaviour implements FigureBehaviour {
 		return getSteps(board, side, current, StepGettingType.CONTROLLED_FIELDS);
 	}
 
+	@Override
+	public void generateMoves(ChessBoard board, Side side, Pos current, MoveList moves) {
+		addMoves(board, current, board.getNonNullFigure(current),
+				getControlledFieldsBitboard(board, side, current) & StepGettingType.POSSIBLE_STEPS.fieldsMask(board, side),
+				moves);
+	}
+
+	@Override
+	public void generateCaptures(ChessBoard board, Side side, Pos current, MoveList moves) {
+		addMoves(board, current, board.getNonNullFigure(current),
+				getControlledFieldsBitboard(board, side, current) & capturesMask(board, side),
+				moves);
+	}
+
+	/**
+	 * @return Битборд вражеских фигур, которые можно взять (все, кроме короля)
+	 */
+	protected static long capturesMask(ChessBoard board, Side side) {
+		Side opposite = side.opposite();
+		return board.getSideBitboard(opposite) & ~board.getBitboard(Figure.valueOf(opposite, FigureType.KING));
+	}
+
+	/**
+	 * Добавляет в {@code moves} простые ходы (со взятием или без) фигуры {@code figure} на каждое поле из {@code targets}
+	 */
+	protected static void addMoves(ChessBoard board, Pos current, Figure figure, long targets, MoveList moves) {
+		int start = current.getIndex();
+
+		for (; targets != 0; targets = Bitboards.removeFirst(targets)) {
+			int target = Bitboards.first(targets);
+			moves.add(IntMove.of(start, target, IStep.Type.PLAIN, figure, null, board.getFigure(Pos.ofIndex(target))));
+		}
+	}
+
 	protected abstract List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type);
+
+	/**
+	 * @return Изменяемый список позиций, соответствующих установленным битам битборда
+	 */
+	protected static List<Pos> toPosList(long bitboard) {
+		List<Pos> positions = new ArrayList<>(Bitboards.count(bitboard));
+
+		for (; bitboard != 0; bitboard = Bitboards.removeFirst(bitboard)) {
+			positions.add(Pos.ofIndex(Bitboards.first(bitboard)));
+		}
+
+		return positions;
+	}
+
+	/**
+	 * @return Неизменяемые списки позиций для каждого поля доски, индексируемые по {@link Pos#getIndex()}.
+	 * @param attacksTable функция, которая возвращает битборд атак по индексу поля
+	 */
+	protected static @Immutable List<@Immutable List<Pos>> toPosLists(IntToLongFunction attacksTable) {
+		List<List<Pos>> lists = new ArrayList<>(Bitboards.SQUARES);
+
+		for (int square = 0; square < Bitboards.SQUARES; square++) {
+			lists.add(List.copyOf(toPosList(attacksTable.applyAsLong(square))));
+		}
+
+		return List.copyOf(lists);
+	}
 }
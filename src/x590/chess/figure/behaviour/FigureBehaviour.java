@@ -1,7 +1,11 @@
 package x590.chess.figure.behaviour;
 
+import x590.chess.bitboard.Bitboards;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.step.IStep;
 import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
 
@@ -19,6 +23,51 @@ public interface FigureBehaviour {
 	 * @param current текущая позиция фигуры */
 	List<? extends IStep> getPossibleSteps(ChessBoard board, Side side, Pos current);
 
+	/** Добавляет в {@code moves} те же ходы, что возвращает {@link #getPossibleSteps(ChessBoard, Side, Pos)},
+	 * закодированные в {@code int}. Реализация по умолчанию создаёт список, поэтому её следует переопределять.
+	 * Превращение пешки добавляется отдельным ходом для каждой фигуры, в которую она может превратиться.
+	 * @param board шахматная доска
+	 * @param side сторона фигуры
+	 * @param current текущая позиция фигуры
+	 * @param moves список, в который добавляются ходы */
+	default void generateMoves(ChessBoard board, Side side, Pos current, MoveList moves) {
+		for (IStep step : getPossibleSteps(board, side, current)) {
+			int move = IntMove.of(current, step, board);
+
+			if (step.type() == IStep.Type.TURNING_A_PAWN && IntMove.resultFigure(move) == null) {
+				for (Figure figure : Figure.getPawnTurningFigures(side)) {
+					moves.add(IntMove.withResultFigure(move, figure));
+				}
+			} else {
+				moves.add(move);
+			}
+		}
+	}
+
+	/** Добавляет в {@code moves} только взятия (включая взятие на проходе) и превращения пешки
+	 * из ходов {@link #generateMoves(ChessBoard, Side, Pos, MoveList)}.
+	 * Реализация по умолчанию генерирует все ходы и отбрасывает тихие, поэтому её следует переопределять.
+	 * @param board шахматная доска
+	 * @param side сторона фигуры
+	 * @param current текущая позиция фигуры
+	 * @param moves список, в который добавляются ходы */
+	default void generateCaptures(ChessBoard board, Side side, Pos current, MoveList moves) {
+		int from = moves.size();
+		generateMoves(board, side, current, moves);
+
+		int to = from;
+
+		for (int i = from, size = moves.size(); i < size; i++) {
+			int move = moves.get(i);
+
+			if (IntMove.takenFigure(move) != null || IntMove.resultFigure(move) != null) {
+				moves.set(to++, move);
+			}
+		}
+
+		moves.truncate(to);
+	}
+
 	/** @return Список полей, которые контролирует фигура
 	 * (в том числе и занятые своими или вражескими фигурами).
 	 * Каждая позиция не должна выходить за пределы доски.
@@ -26,4 +75,19 @@ public interface FigureBehaviour {
 	 * @param side сторона фигуры
 	 * @param current текущая позиция фигуры */
 	List<Pos> getControlledFields(ChessBoard board, Side side, Pos current);
+
+	/** @return Битборд полей, которые контролирует фигура.
+	 * Содержит те же поля, что и {@link #getControlledFields(ChessBoard, Side, Pos)}, но не создаёт список.
+	 * @param board шахматная доска
+	 * @param side сторона фигуры
+	 * @param current текущая позиция фигуры */
+	default long getControlledFieldsBitboard(ChessBoard board, Side side, Pos current) {
+		long bitboard = Bitboards.EMPTY;
+
+		for (Pos pos : getControlledFields(board, side, current)) {
+			bitboard |= Bitboards.bit(pos);
+		}
+
+		return bitboard;
+	}
 }
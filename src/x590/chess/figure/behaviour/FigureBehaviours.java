@@ -1,14 +1,14 @@
 package x590.chess.figure.behaviour;
 
-import x590.chess.figure.Direction;
+import x590.chess.bitboard.SliderAttacks;
 
 public class FigureBehaviours {
 
 	public static final FigureBehaviour
 			KING = new KingBehaviour(),
-			QUEEN = new VectorFigureBehaviour(Direction.VERTICAL_HORIZONTAL_AND_DIAGONAL),
-			ROOK = new VectorFigureBehaviour(Direction.VERTICAL_AND_HORIZONTAL),
-			BISHOP = new VectorFigureBehaviour(Direction.DIAGONAL),
+			QUEEN = new VectorFigureBehaviour(SliderAttacks::queenAttacks),
+			ROOK = new VectorFigureBehaviour(SliderAttacks::rookAttacks),
+			BISHOP = new VectorFigureBehaviour(SliderAttacks::bishopAttacks),
 			KNIGHT = new KnightBehaviour(),
 			PAWN = new PawnBehaviour();
 }
@@ -1,30 +1,55 @@
 package x590.chess.figure.behaviour;
 
+import x590.chess.bitboard.Bitboards;
+import x590.chess.bitboard.LeaperAttacks;
 import x590.chess.board.ChessBoard;
-import x590.chess.figure.Direction;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
+import x590.chess.figure.move.IntMove;
 import x590.chess.figure.move.Move;
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.step.IStep;
+import x590.chess.figure.step.IStep.Type;
+import x590.util.annotation.Immutable;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class KingBehaviour extends AbstractFigureBehaviour {
 
+	private static final int
+			KING_X = 4,
+			A_ROOK_X = ChessBoard.START,
+			A_FREE_X = 1,
+			A_KING_CASTLING_X = 2,
+			A_ROOK_CASTLING_X = 3,
+			H_ROOK_CASTLING_X = 5,
+			H_KING_CASTLING_X = 6,
+			H_ROOK_X = ChessBoard.END;
+
+	private static final @Immutable List<@Immutable List<Pos>> CONTROLLED_FIELDS =
+			toPosLists(LeaperAttacks::kingAttacks);
+
 	@Override
-	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
-		List<Pos> possibleSteps = new ArrayList<>();
+	public long getControlledFieldsBitboard(ChessBoard board, Side side, Pos current) {
+		return LeaperAttacks.kingAttacks(current.getIndex());
+	}
 
-		for (Direction direction : Direction.VERTICAL_HORIZONTAL_AND_DIAGONAL) {
-			var pos = current.relative(direction);
+	@Override
+	public @Immutable List<Pos> getControlledFields(ChessBoard board, Side side, Pos current) {
+		return CONTROLLED_FIELDS.get(current.getIndex());
+	}
 
-			if (pos != null && type.includeField(board, side, pos) && !board.isAttackedBySide(pos, side.opposite())) {
-				possibleSteps.add(pos);
-			}
-		}
+	@Override
+	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
+		return toPosList(getTargets(board, side, current, type));
+	}
 
-		return possibleSteps;
+	private static long getTargets(ChessBoard board, Side side, Pos current, StepGettingType type) {
+		// Король не может вставать на атакованные поля
+		return LeaperAttacks.kingAttacks(current.getIndex()) & type.fieldsMask(board, side) &
+				~board.getAttackedBitboard(side.opposite());
 	}
 
 	@Override
@@ -35,41 +60,80 @@ public class KingBehaviour extends AbstractFigureBehaviour {
 
 		int startY = side.getStartY();
 
-		if (!board.isKingWalked() && current.equals(4, startY)) {
-			if (!board.isARookWalked()) {
-				var rookCastlingPos = Pos.of(3, startY);
-				var kingCastlingPos = Pos.of(2, startY);
-				var freePos = Pos.of(1, startY);
-
-				Side opposite = side.opposite();
-
-				if (!board.isAttackedBySide(current, opposite) &&
-					canDoCastling(board, rookCastlingPos, opposite) &&
-					canDoCastling(board, kingCastlingPos, opposite) &&
-					board.freeAt(freePos)
-				) {
-					possibleSteps.add(Move.castling(current, kingCastlingPos, Pos.of(0, startY), rookCastlingPos, side));
-				}
-			}
-
-			if (!board.isHRookWalked()) {
-				var rookCastlingPos = Pos.of(5, startY);
-				var kingCastlingPos = Pos.of(6, startY);
-
-				Side opposite = side.opposite();
-
-				if (!board.isAttackedBySide(current, opposite) &&
-					canDoCastling(board, rookCastlingPos, opposite) &&
-					canDoCastling(board, kingCastlingPos, opposite)
-				) {
-					possibleSteps.add(Move.castling(current, kingCastlingPos, Pos.of(7, startY), rookCastlingPos, side));
-				}
-			}
+		if (canDoACastling(board, side, current)) {
+			possibleSteps.add(Move.castling(current, Pos.of(A_KING_CASTLING_X, startY), Pos.of(A_ROOK_X, startY), Pos.of(A_ROOK_CASTLING_X, startY), side));
+		}
+
+		if (canDoHCastling(board, side, current)) {
+			possibleSteps.add(Move.castling(current, Pos.of(H_KING_CASTLING_X, startY), Pos.of(H_ROOK_X, startY), Pos.of(H_ROOK_CASTLING_X, startY), side));
 		}
 
 		return possibleSteps;
 	}
 
+	@Override
+	public void generateMoves(ChessBoard board, Side side, Pos current, MoveList moves) {
+		Figure king = Figure.valueOf(side, FigureType.KING);
+
+		addMoves(board, current, king, getTargets(board, side, current, StepGettingType.POSSIBLE_STEPS), moves);
+
+		int start = current.getIndex();
+		int startY = side.getStartY();
+
+		if (canDoACastling(board, side, current)) {
+			moves.add(IntMove.of(start, Bitboards.index(A_KING_CASTLING_X, startY), Type.CASTLING, king, null, null));
+		}
+
+		if (canDoHCastling(board, side, current)) {
+			moves.add(IntMove.of(start, Bitboards.index(H_KING_CASTLING_X, startY), Type.CASTLING, king, null, null));
+		}
+	}
+
+	/**
+	 * Поля не проверяются на атаку, так как легальность хода короля проверяет {@link ChessBoard#generateLegalCaptures(MoveList)}
+	 */
+	@Override
+	public void generateCaptures(ChessBoard board, Side side, Pos current, MoveList moves) {
+		addMoves(board, current, Figure.valueOf(side, FigureType.KING),
+				LeaperAttacks.kingAttacks(current.getIndex()) & capturesMask(board, side), moves);
+	}
+
+	/**
+	 * @return {@code true}, если король может сделать рокировку с ладьёй на вертикали A (длинную)
+	 */
+	private static boolean canDoACastling(ChessBoard board, Side side, Pos current) {
+		int startY = side.getStartY();
+
+		return  canDoCastling(board, side, current, A_ROOK_X, board.isARookWalked()) &&
+				canDoCastling(board, Pos.of(A_ROOK_CASTLING_X, startY), side.opposite()) &&
+				canDoCastling(board, Pos.of(A_KING_CASTLING_X, startY), side.opposite()) &&
+				board.freeAt(Pos.of(A_FREE_X, startY));
+	}
+
+	/**
+	 * @return {@code true}, если король может сделать рокировку с ладьёй на вертикали H (короткую)
+	 */
+	private static boolean canDoHCastling(ChessBoard board, Side side, Pos current) {
+		int startY = side.getStartY();
+
+		return  canDoCastling(board, side, current, H_ROOK_X, board.isHRookWalked()) &&
+				canDoCastling(board, Pos.of(H_ROOK_CASTLING_X, startY), side.opposite()) &&
+				canDoCastling(board, Pos.of(H_KING_CASTLING_X, startY), side.opposite());
+	}
+
+	/**
+	 * @return {@code true}, если король и ладья не ходили, стоят на своих местах и король не под шахом
+	 */
+	private static boolean canDoCastling(ChessBoard board, Side side, Pos current, int rookX, boolean rookWalked) {
+		int startY = side.getStartY();
+
+		// Ладья могла быть взята, не сделав ни одного хода
+		return  !board.isKingWalked() && !rookWalked &&
+				current.equals(KING_X, startY) &&
+				board.getFigure(Pos.of(rookX, startY)) == Figure.valueOf(side, FigureType.ROOK) &&
+				!board.isAttackedBySide(current, side.opposite());
+	}
+
 	private static boolean canDoCastling(ChessBoard board, Pos pos, Side opposite) {
 		return board.freeAt(pos) && !board.isAttackedBySide(pos, opposite);
 	}
@@ -1,26 +1,30 @@
 package x590.chess.figure.behaviour;
 
+import x590.chess.bitboard.LeaperAttacks;
 import x590.chess.board.ChessBoard;
-import x590.chess.figure.Direction;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
+import x590.util.annotation.Immutable;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class KnightBehaviour extends AbstractFigureBehaviour {
 
+	private static final @Immutable List<@Immutable List<Pos>> CONTROLLED_FIELDS =
+			toPosLists(LeaperAttacks::knightAttacks);
+
 	@Override
-	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
-		List<Pos> possibleSteps = new ArrayList<>();
+	public long getControlledFieldsBitboard(ChessBoard board, Side side, Pos current) {
+		return LeaperAttacks.knightAttacks(current.getIndex());
+	}
 
-		for (Direction direction : Direction.KNIGHT) {
-			var pos = current.relative(direction);
-			if (pos != null && type.includeField(board, side, pos)) {
-				possibleSteps.add(pos);
-			}
-		}
+	@Override
+	public @Immutable List<Pos> getControlledFields(ChessBoard board, Side side, Pos current) {
+		return CONTROLLED_FIELDS.get(current.getIndex());
+	}
 
-		return possibleSteps;
+	@Override
+	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
+		return toPosList(LeaperAttacks.knightAttacks(current.getIndex()) & type.fieldsMask(board, side));
 	}
 }
@@ -1,15 +1,19 @@
 package x590.chess.figure.behaviour;
 
+import x590.chess.bitboard.Bitboards;
+import x590.chess.bitboard.LeaperAttacks;
 import x590.chess.figure.Figure;
 import x590.chess.figure.FigureType;
+import x590.chess.figure.move.IntMove;
 import x590.chess.figure.move.Move;
+import x590.chess.figure.move.MoveList;
 import x590.chess.figure.move.TurningAPawnMove;
 import x590.chess.figure.step.IStep;
 import x590.chess.figure.step.IStep.Type;
 import x590.chess.board.ChessBoard;
-import x590.chess.figure.Direction;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
+import x590.util.annotation.Immutable;
 import x590.util.annotation.Nullable;
 
 import java.util.ArrayList;
@@ -21,90 +25,180 @@ public class PawnBehaviour implements FigureBehaviour {
 			DOUBLE_STEP_Y_WHITE = ChessBoard.START + 1,
 			DOUBLE_STEP_Y_BLACK = ChessBoard.END - 1;
 
+	private static final @Immutable List<@Immutable List<Pos>>
+			WHITE_CONTROLLED_FIELDS = AbstractFigureBehaviour.toPosLists(square -> LeaperAttacks.pawnAttacks(Side.WHITE, square)),
+			BLACK_CONTROLLED_FIELDS = AbstractFigureBehaviour.toPosLists(square -> LeaperAttacks.pawnAttacks(Side.BLACK, square));
+
 	@Override
 	public List<? extends IStep> getPossibleSteps(ChessBoard board, Side side, Pos startPos) {
 		List<IStep> possibleSteps = new ArrayList<>();
 
-		Direction forward = side.choose(Direction.UP, Direction.DOWN);
+		if (startPos.getY() == side.getEndY()) {
+			return possibleSteps;
+		}
 
-		Pos forwardPos = startPos.relative(forward);
+		int start = startPos.getIndex();
+		int forward = side.choose(ChessBoard.SIZE, -ChessBoard.SIZE);
+		int forwardIndex = start + forward;
 
-		Figure pawn = Figure.valueOf(side, FigureType.PAWN);
+		long occupancy = board.getOccupancy();
 
-		if (forwardPos != null) {
-			if (board.freeAt(forwardPos)) {
-				addTurningAPawnStepsOrPlainStep(possibleSteps, board, side, startPos, forwardPos);
-
-				if (startPos.getY() == side.choose(DOUBLE_STEP_Y_WHITE, DOUBLE_STEP_Y_BLACK)) {
-					Pos doubleForwardPos = forwardPos.relative(forward);
-					if (doubleForwardPos != null && board.freeAt(doubleForwardPos)) {
-						possibleSteps.add(new Move(
-								startPos,
-								doubleForwardPos, doubleForwardPos,
-								Type.DOUBLE_PAWN_STEP,
-								pawn
-						));
-					}
-				}
-			}
-
-			addStepIfCanTake(possibleSteps, board, side, startPos, forwardPos.relative(Direction.LEFT));
-			addStepIfCanTake(possibleSteps, board, side, startPos, forwardPos.relative(Direction.RIGHT));
+		Figure pawn = Figure.valueOf(side, FigureType.PAWN);
 
-			IStep lastStep = board.getLastStep();
+		if (!Bitboards.has(occupancy, forwardIndex)) {
+			addTurningAPawnStepsOrPlainStep(possibleSteps, board, side, startPos, Pos.ofIndex(forwardIndex));
 
-			if (lastStep != null && lastStep.type() == Type.DOUBLE_PAWN_STEP) {
-				Pos targetPos = lastStep.targetPos();
+			if (startPos.getY() == side.choose(DOUBLE_STEP_Y_WHITE, DOUBLE_STEP_Y_BLACK)) {
+				int doubleForwardIndex = forwardIndex + forward;
 
-				if (targetPos.equals(startPos.relative(Direction.LEFT)) ||
-					targetPos.equals(startPos.relative(Direction.RIGHT))) {
+				if (!Bitboards.has(occupancy, doubleForwardIndex)) {
+					Pos doubleForwardPos = Pos.ofIndex(doubleForwardIndex);
 
 					possibleSteps.add(new Move(
 							startPos,
-							targetPos.relative(forward),
-							targetPos,
-							Type.TAKING_PAWN_ON_THE_PASS,
-							pawn, // figure
-							null, // resultFigure == figure
-							Figure.valueOf(side.opposite(), FigureType.PAWN) // takenFigure
+							doubleForwardPos, doubleForwardPos,
+							Type.DOUBLE_PAWN_STEP,
+							pawn
 					));
 				}
 			}
 		}
 
+		Side opposite = side.opposite();
+		long attacks = LeaperAttacks.pawnAttacks(side, start);
+
+		for (long takes = attacks & board.getSideBitboard(opposite) & ~board.getBitboard(Figure.valueOf(opposite, FigureType.KING));
+			 takes != 0; takes = Bitboards.removeFirst(takes)) {
+
+			addTurningAPawnStepsOrPlainStep(possibleSteps, board, side, startPos, Pos.ofIndex(Bitboards.first(takes)));
+		}
+
+		int doublePawnStepSquare = board.getDoublePawnStepSquare();
+
+		if (doublePawnStepSquare != Bitboards.NO_SQUARE) {
+			int passedSquare = doublePawnStepSquare + forward;
+
+			// Пешка может взять на проходе, если атакует поле, через которое перешагнула пешка противника
+			if (Bitboards.y(doublePawnStepSquare) == startPos.getY() && Bitboards.has(attacks, passedSquare)) {
+				possibleSteps.add(new Move(
+						startPos,
+						Pos.ofIndex(passedSquare),
+						Pos.ofIndex(doublePawnStepSquare),
+						Type.TAKING_PAWN_ON_THE_PASS,
+						pawn, // figure
+						null, // resultFigure == figure
+						Figure.valueOf(opposite, FigureType.PAWN) // takenFigure
+				));
+			}
+		}
+
 		return possibleSteps;
 	}
 
 	@Override
-	public List<Pos> getControlledFields(ChessBoard board, Side side, Pos startPos) {
-		List<Pos> possibleSteps = new ArrayList<>();
+	public void generateMoves(ChessBoard board, Side side, Pos startPos, MoveList moves) {
+		if (startPos.getY() == side.getEndY()) {
+			return;
+		}
+
+		int start = startPos.getIndex();
+		int forward = side.choose(ChessBoard.SIZE, -ChessBoard.SIZE);
+		int forwardIndex = start + forward;
+
+		long occupancy = board.getOccupancy();
+
+		Figure pawn = Figure.valueOf(side, FigureType.PAWN);
 
-		Pos forwardPos = startPos.relative(side.choose(Direction.UP, Direction.DOWN));
+		if (!Bitboards.has(occupancy, forwardIndex)) {
+			addTurningAPawnMovesOrPlainMove(moves, side, start, forwardIndex, pawn, null);
 
-		if (forwardPos != null) {
-			addPosIfCanTake(possibleSteps, board, side, forwardPos.relative(Direction.LEFT));
-			addPosIfCanTake(possibleSteps, board, side, forwardPos.relative(Direction.RIGHT));
+			if (startPos.getY() == side.choose(DOUBLE_STEP_Y_WHITE, DOUBLE_STEP_Y_BLACK)) {
+				int doubleForwardIndex = forwardIndex + forward;
+
+				if (!Bitboards.has(occupancy, doubleForwardIndex)) {
+					moves.add(IntMove.of(start, doubleForwardIndex, Type.DOUBLE_PAWN_STEP, pawn, null, null));
+				}
+			}
 		}
 
-		return possibleSteps;
+		addTakes(board, side, startPos, pawn, moves);
 	}
 
-	private static void addStepIfCanTake(List<? super IStep> possibleSteps, ChessBoard board, Side side, Pos startPos, @Nullable Pos targetPos) {
-		if (targetPos != null && board.canFigureBeTookBy(targetPos, side)) {
-			addTurningAPawnStepsOrPlainStep(possibleSteps, board, side, startPos, targetPos);
+	/**
+	 * Добавляет только взятия (включая взятие на проходе) и превращения, в том числе без взятия
+	 */
+	@Override
+	public void generateCaptures(ChessBoard board, Side side, Pos startPos, MoveList moves) {
+		if (startPos.getY() == side.getEndY()) {
+			return;
 		}
+
+		int start = startPos.getIndex();
+		int forwardIndex = start + side.choose(ChessBoard.SIZE, -ChessBoard.SIZE);
+
+		Figure pawn = Figure.valueOf(side, FigureType.PAWN);
+
+		if (Bitboards.y(forwardIndex) == side.getEndY() && !Bitboards.has(board.getOccupancy(), forwardIndex)) {
+			addTurningAPawnMovesOrPlainMove(moves, side, start, forwardIndex, pawn, null);
+		}
+
+		addTakes(board, side, startPos, pawn, moves);
 	}
 
-	private static void addPosIfCanTake(List<? super Pos> possibleSteps, ChessBoard board, Side side, @Nullable Pos targetPos) {
-		if (targetPos != null && board.canFigureBeTookBy(targetPos, side)) {
-			possibleSteps.add(targetPos);
+	/**
+	 * Добавляет взятия пешкой, в том числе с превращением и на проходе
+	 */
+	private static void addTakes(ChessBoard board, Side side, Pos startPos, Figure pawn, MoveList moves) {
+		int start = startPos.getIndex();
+		Side opposite = side.opposite();
+		long attacks = LeaperAttacks.pawnAttacks(side, start);
+
+		for (long takes = attacks & board.getSideBitboard(opposite) & ~board.getBitboard(Figure.valueOf(opposite, FigureType.KING));
+			 takes != 0; takes = Bitboards.removeFirst(takes)) {
+
+			int target = Bitboards.first(takes);
+			addTurningAPawnMovesOrPlainMove(moves, side, start, target, pawn, board.getFigure(Pos.ofIndex(target)));
+		}
+
+		int doublePawnStepSquare = board.getDoublePawnStepSquare();
+
+		if (doublePawnStepSquare != Bitboards.NO_SQUARE) {
+			int passedSquare = doublePawnStepSquare + side.choose(ChessBoard.SIZE, -ChessBoard.SIZE);
+
+			if (Bitboards.y(doublePawnStepSquare) == startPos.getY() && Bitboards.has(attacks, passedSquare)) {
+				moves.add(IntMove.of(start, passedSquare, Type.TAKING_PAWN_ON_THE_PASS, pawn, null, Figure.valueOf(opposite, FigureType.PAWN)));
+			}
 		}
 	}
 
+	@Override
+	public @Immutable List<Pos> getControlledFields(ChessBoard board, Side side, Pos startPos) {
+		return side.choose(WHITE_CONTROLLED_FIELDS, BLACK_CONTROLLED_FIELDS).get(startPos.getIndex());
+	}
+
+	@Override
+	public long getControlledFieldsBitboard(ChessBoard board, Side side, Pos startPos) {
+		return LeaperAttacks.pawnAttacks(side, startPos.getIndex());
+	}
+
 	/** Добавляет в коллекцию ход пешки с превращением, если возможно, иначе просто ход */
 	private static void addTurningAPawnStepsOrPlainStep(List<? super IStep> steps, ChessBoard board, Side side, Pos startPos, Pos targetPos) {
 		steps.add(targetPos.getY() == side.getEndY() ?
 				new TurningAPawnMove(startPos, targetPos, side, board.getFigure(targetPos)) :
 				targetPos);
 	}
+
+	/** Добавляет в список ходы пешки с превращением в каждую возможную фигуру, если возможно, иначе просто ход */
+	private static void addTurningAPawnMovesOrPlainMove(MoveList moves, Side side, int start, int target, Figure pawn, @Nullable Figure takenFigure) {
+		if (Bitboards.y(target) == side.getEndY()) {
+			List<Figure> turningFigures = Figure.getPawnTurningFigures(side);
+
+			for (int i = 0, size = turningFigures.size(); i < size; i++) {
+				moves.add(IntMove.of(start, target, Type.TURNING_A_PAWN, pawn, turningFigures.get(i), takenFigure));
+			}
+
+		} else {
+			moves.add(IntMove.of(start, target, Type.PLAIN, pawn, null, takenFigure));
+		}
+	}
 }
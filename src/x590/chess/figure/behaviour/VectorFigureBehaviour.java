@@ -1,40 +1,39 @@
 package x590.chess.figure.behaviour;
 
 import x590.chess.board.ChessBoard;
-import x590.chess.figure.Direction;
 import x590.chess.figure.Pos;
 import x590.chess.figure.Side;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
+/**
+ * Поведение дальнобойной фигуры (ладьи, слона или ферзя).
+ * Атаки берутся из предвычисленных таблиц {@link x590.chess.bitboard.SliderAttacks}
+ */
 public class VectorFigureBehaviour extends AbstractFigureBehaviour {
 
-	private final Set<Direction> possibleDirections;
-
-	public VectorFigureBehaviour(Set<Direction> possibleDirections) {
-		this.possibleDirections = possibleDirections;
+	/**
+	 * Функция, возвращающая битборд атак фигуры с поля {@code square} при занятых полях {@code occupancy}
+	 */
+	@FunctionalInterface
+	public interface AttacksFunction {
+		long getAttacks(int square, long occupancy);
 	}
 
+	private final AttacksFunction attacksFunction;
 
-	@Override
-	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
-		List<Pos> possibleSteps = new ArrayList<>();
-
-		for (Direction direction : possibleDirections) {
-			for (var pos = current.relative(direction); pos != null; pos = pos.relative(direction)) {
+	public VectorFigureBehaviour(AttacksFunction attacksFunction) {
+		this.attacksFunction = attacksFunction;
+	}
 
-				if (type.includeField(board, side, pos)) {
-					possibleSteps.add(pos);
-				}
 
-				if (board.hasFigure(pos)) {
-					break;
-				}
-			}
-		}
+	@Override
+	public long getControlledFieldsBitboard(ChessBoard board, Side side, Pos current) {
+		return attacksFunction.getAttacks(current.getIndex(), board.getOccupancy());
+	}
 
-		return possibleSteps;
+	@Override
+	public List<Pos> getSteps(ChessBoard board, Side side, Pos current, StepGettingType type) {
+		return toPosList(getControlledFieldsBitboard(board, side, current) & type.fieldsMask(board, side));
 	}
 }
@@ -0,0 +1,225 @@
+package x590.chess.figure.move;
+
+import x590.chess.bitboard.Bitboards;
+import x590.chess.board.ChessBoard;
+import x590.chess.figure.Figure;
+import x590.chess.figure.Pos;
+import x590.chess.figure.Side;
+import x590.chess.figure.step.IStep;
+import x590.chess.figure.step.IStep.Type;
+import x590.util.annotation.Nullable;
+
+/**
+ * Методы для работы с ходами, закодированными в одно число {@code int}.
+ * Используются там, где важна скорость и нельзя создавать объекты на каждый ход (перебор, perft, бот).
+ * <p>
+ * Раскладка битов (от младших к старшим):
+ * <ul>
+ *     <li>0-5 - индекс начального поля;</li>
+ *     <li>6-11 - индекс целевого поля;</li>
+ *     <li>12-14 - {@link Type};</li>
+ *     <li>15-18 - фигура, которая ходит;</li>
+ *     <li>19-22 - фигура в результате хода + 1 или 0, если фигура та же;</li>
+ *     <li>23-26 - взятая фигура + 1 или 0, если ничего не взято.</li>
+ * </ul>
+ * Поле взятия и ход ладьи при рокировке не хранятся, а вычисляются по остальным полям.
+ * Два хода равны тогда и только тогда, когда равны их числа.
+ */
+public final class IntMove {
+
+	private IntMove() {}
+
+	/** Отсутствие хода. Ни один настоящий ход не кодируется нулём, так как у него совпадают начальное и целевое поле */
+	public static final int NONE = 0;
+
+	private static final int
+			FROM_SHIFT = 0,
+			TO_SHIFT = 6,
+			TYPE_SHIFT = 12,
+			FIGURE_SHIFT = 15,
+			RESULT_FIGURE_SHIFT = 19,
+			TAKEN_FIGURE_SHIFT = 23;
+
+	private static final int
+			SQUARE_MASK = 0x3F,
+			TYPE_MASK = 0x7,
+			FIGURE_MASK = 0xF;
+
+	private static final Type[] TYPES = Type.values();
+	private static final Figure[] FIGURES = Figure.values();
+
+	private static final int
+			CASTLING_A_KING_X = 2,
+			CASTLING_A_ROOK_START_X = ChessBoard.START,
+			CASTLING_A_ROOK_TARGET_X = 3,
+			CASTLING_H_ROOK_START_X = ChessBoard.END,
+			CASTLING_H_ROOK_TARGET_X = 5;
+
+	/**
+	 * @return Закодированный ход
+	 */
+	public static int of(int from, int to, Type type, Figure figure, @Nullable Figure resultFigure, @Nullable Figure takenFigure) {
+		return  from << FROM_SHIFT |
+				to << TO_SHIFT |
+				type.ordinal() << TYPE_SHIFT |
+				figure.ordinal() << FIGURE_SHIFT |
+				encodeNullable(resultFigure) << RESULT_FIGURE_SHIFT |
+				encodeNullable(takenFigure) << TAKEN_FIGURE_SHIFT;
+	}
+
+	/**
+	 * @return Закодированный ход {@code move}. Если фигура превращения пешки ещё не выбрана, она не кодируется
+	 */
+	public static int of(IMove move) {
+		return of(move.startPos().getIndex(), move.targetPos().getIndex(), move.type(),
+				move.figure(), move.resultFigure(), move.takenFigure());
+	}
+
+	/**
+	 * @return Закодированный ход {@code step} с позиции {@code startPos}.
+	 * Ходящая и взятая фигуры берутся с доски, поэтому ход ещё не должен быть выполнен
+	 */
+	public static int of(Pos startPos, IStep step, ChessBoard board) {
+		return of(startPos.getIndex(), step.targetPos().getIndex(), step.type(),
+				board.getNonNullFigure(startPos), step.resultFigure(), board.getFigure(step.takePos()));
+	}
+
+	private static int encodeNullable(@Nullable Figure figure) {
+		return figure == null ? 0 : figure.ordinal() + 1;
+	}
+
+	private static @Nullable Figure decodeNullable(int value) {
+		return value == 0 ? null : FIGURES[value - 1];
+	}
+
+
+	/**
+	 * @return Индекс начального поля
+	 */
+	public static int from(int move) {
+		return move >>> FROM_SHIFT & SQUARE_MASK;
+	}
+
+	/**
+	 * @return Индекс целевого поля
+	 */
+	public static int to(int move) {
+		return move >>> TO_SHIFT & SQUARE_MASK;
+	}
+
+	/**
+	 * @return Индекс поля взятия. Отличается от {@link #to(int)} только при взятии на проходе
+	 */
+	public static int takeSquare(int move) {
+		int to = to(move);
+
+		return type(move) == Type.TAKING_PAWN_ON_THE_PASS ?
+				Bitboards.index(Bitboards.x(to), Bitboards.y(from(move))) :
+				to;
+	}
+
+	public static Type type(int move) {
+		return TYPES[move >>> TYPE_SHIFT & TYPE_MASK];
+	}
+
+	/**
+	 * @return Фигуру, которая совершает ход
+	 */
+	public static Figure figure(int move) {
+		return FIGURES[move >>> FIGURE_SHIFT & FIGURE_MASK];
+	}
+
+	/**
+	 * @return Фигуру в результате хода или {@code null}, если фигура та же самая
+	 */
+	public static @Nullable Figure resultFigure(int move) {
+		return decodeNullable(move >>> RESULT_FIGURE_SHIFT & FIGURE_MASK);
+	}
+
+	/**
+	 * @return Взятую фигуру или {@code null}, если ход ничего не берёт
+	 */
+	public static @Nullable Figure takenFigure(int move) {
+		return decodeNullable(move >>> TAKEN_FIGURE_SHIFT & FIGURE_MASK);
+	}
+
+	/**
+	 * @return Ход с заменённой фигурой превращения пешки
+	 */
+	public static int withResultFigure(int move, @Nullable Figure resultFigure) {
+		return move & ~(FIGURE_MASK << RESULT_FIGURE_SHIFT) | encodeNullable(resultFigure) << RESULT_FIGURE_SHIFT;
+	}
+
+	/**
+	 * @return Индекс начального поля ладьи при рокировке
+	 */
+	public static int castlingRookFrom(int move) {
+		int to = to(move);
+		return Bitboards.index(Bitboards.x(to) == CASTLING_A_KING_X ? CASTLING_A_ROOK_START_X : CASTLING_H_ROOK_START_X, Bitboards.y(to));
+	}
+
+	/**
+	 * @return Индекс целевого поля ладьи при рокировке
+	 */
+	public static int castlingRookTo(int move) {
+		int to = to(move);
+		return Bitboards.index(Bitboards.x(to) == CASTLING_A_KING_X ? CASTLING_A_ROOK_TARGET_X : CASTLING_H_ROOK_TARGET_X, Bitboards.y(to));
+	}
+
+
+	/**
+	 * @return Ход как экземпляр {@link IMove}, пригодный для интерфейса и передачи по сети
+	 */
+	public static IMove toMove(int move) {
+		Pos from = Pos.ofIndex(from(move)),
+			to = Pos.ofIndex(to(move));
+
+		Type type = type(move);
+		Figure figure = figure(move);
+		Side side = figure.getSide();
+
+		return switch (type) {
+			case CASTLING -> Move.castling(from, to, Pos.ofIndex(castlingRookFrom(move)), Pos.ofIndex(castlingRookTo(move)), side);
+			case TURNING_A_PAWN -> new TurningAPawnMove(from, to, side, takenFigure(move), resultFigure(move));
+			default -> new Move(from, to, Pos.ofIndex(takeSquare(move)), type, figure, resultFigure(move), takenFigure(move));
+		};
+	}
+
+	/**
+	 * @return Ход в длинной алгебраической нотации, как в протоколе UCI: {@code e2e4}, {@code e7e8q}.
+	 * Рокировка записывается как ход короля
+	 */
+	public static String toLongAlgebraic(int move) {
+		var str = new StringBuilder(5)
+				.append(Pos.ofIndex(from(move)).toString().toLowerCase())
+				.append(Pos.ofIndex(to(move)).toString().toLowerCase());
+
+		Figure resultFigure = resultFigure(move);
+
+		if (resultFigure != null) {
+			str.append(resultFigure.getType().getLetter());
+		}
+
+		return str.toString();
+	}
+
+	/**
+	 * @return Строковое представление хода, удобное для отладки
+	 */
+	public static String toString(int move) {
+		if (move == NONE) {
+			return "none";
+		}
+
+		var str = new StringBuilder()
+				.append(Pos.ofIndex(from(move))).append('-').append(Pos.ofIndex(to(move)));
+
+		Figure resultFigure = resultFigure(move);
+
+		if (resultFigure != null) {
+			str.append('=').append(resultFigure.getEmoji());
+		}
+
+		return str.toString();
+	}
+}
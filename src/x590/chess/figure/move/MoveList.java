@@ -0,0 +1,120 @@
+package x590.chess.figure.move;
+
+import java.util.Arrays;
+
+/**
+ * Изменяемый список ходов, закодированных в {@code int} (см. {@link IntMove}).
+ * Предназначен для повторного использования: обычно на каждый уровень перебора
+ * создаётся один список, который очищается перед генерацией ходов, поэтому
+ * генерация не создаёт мусора.
+ */
+public final class MoveList {
+
+	/** Вместимость по умолчанию. Больше, чем максимальное количество ходов в любой позиции (218) */
+	public static final int DEFAULT_CAPACITY = 256;
+
+	private int[] moves;
+	private int size;
+
+	public MoveList() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity) {
+		this.moves = new int[capacity];
+	}
+
+	/**
+	 * Добавляет ход в конец списка
+	 */
+	public void add(int move) {
+		if (size == moves.length) {
+			moves = Arrays.copyOf(moves, size * 2);
+		}
+
+		moves[size++] = move;
+	}
+
+	public int get(int index) {
+		checkIndex(index);
+		return moves[index];
+	}
+
+	public void set(int index, int move) {
+		checkIndex(index);
+		moves[index] = move;
+	}
+
+	/**
+	 * Меняет местами два хода
+	 */
+	public void swap(int index1, int index2) {
+		checkIndex(index1);
+		checkIndex(index2);
+
+		final var moves = this.moves;
+		int move = moves[index1];
+		moves[index1] = moves[index2];
+		moves[index2] = move;
+	}
+
+	private void checkIndex(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * @return {@code true}, если список содержит ход {@code move}
+	 */
+	public boolean contains(int move) {
+		final var moves = this.moves;
+
+		for (int i = 0, size = this.size; i < size; i++) {
+			if (moves[i] == move) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Отбрасывает все ходы, начиная с индекса {@code size}
+	 * @throws IllegalArgumentException если {@code size} больше текущего размера или меньше нуля
+	 */
+	public void truncate(int size) {
+		if (size < 0 || size > this.size) {
+			throw new IllegalArgumentException("Cannot truncate list of size " + this.size + " to " + size);
+		}
+
+		this.size = size;
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	@Override
+	public String toString() {
+		var str = new StringBuilder().append('[');
+
+		for (int i = 0; i < size; i++) {
+			if (i > 0) {
+				str.append(", ");
+			}
+
+			str.append(IntMove.toString(moves[i]));
+		}
+
+		return str.append(']').toString();
+	}
+}
@@ -21,10 +21,19 @@ public class TurningAPawnMove implements IMove {
 
 
 	public TurningAPawnMove(Pos startPos, Pos targetPos, Side pawnSide, Figure takenFigure) {
+		this(startPos, targetPos, pawnSide, takenFigure, null);
+	}
+
+	/**
+	 * @param resultFigure фигура, в которую превращается пешка, или {@code null},
+	 *                     если она будет запрошена при выполнении хода
+	 */
+	public TurningAPawnMove(Pos startPos, Pos targetPos, Side pawnSide, Figure takenFigure, @Nullable Figure resultFigure) {
 		this.startPos = startPos;
 		this.targetPos = targetPos;
 		this.pawn = Figure.valueOf(pawnSide, FigureType.PAWN);
 		this.takenFigure = takenFigure;
+		this.resultFigure = resultFigure;
 	}
 
 
@@ -18,7 +18,10 @@ public enum StepResult {
 	CHECKMATE (false, true, side -> side.getLocalizedName() + " выиграли. Шах и мат"),
 
 	/** Пат */
-	STALEMATE (false, false, side -> "Пат");
+	STALEMATE (false, false, side -> "Пат"),
+
+	/** Ничья по таблицам эндшпиля: ни одна сторона не может поставить мат при лучшей игре противника */
+	DRAW      (false, false, side -> "Ничья. Позиция ничейная по таблицам эндшпиля");
 
 	private final boolean canContinueGame, isKingAttacked;
 
@@ -20,6 +20,8 @@ public class FieldPanel extends JPanel {
 
 	private static final float SIZE_COEFFICIENT = 1 / 2.1f;
 
+	private static final int HEADLESS_PREFERRED_SIZE = 64;
+
 
 	private static Border HOVER_BORDER, SELECTED_BORDER, ATTACKED_BORDER, POSSIBLE_TAKE_BORDER;
 
@@ -44,8 +46,15 @@ public class FieldPanel extends JPanel {
 		updateSize(Main.getFrame());
 	}
 
-	public static void updateSize(JFrame frame) {
-		PREFERRED_SIZE = (int) (Math.min(frame.getWidth(), frame.getHeight()) * (SIZE_COEFFICIENT / ChessBoard.SIZE));
+	/**
+	 * Обновляет размеры полей по размеру окна
+	 * @param frame окно или {@code null}, если окна нет (например, при запуске без интерфейса).
+	 *              Тогда используется размер {@value #HEADLESS_PREFERRED_SIZE}
+	 */
+	public static void updateSize(@Nullable JFrame frame) {
+		PREFERRED_SIZE = frame == null ?
+				HEADLESS_PREFERRED_SIZE :
+				(int) (Math.min(frame.getWidth(), frame.getHeight()) * (SIZE_COEFFICIENT / ChessBoard.SIZE));
 		PREFERRED_SIZE_DIMENSION.width = PREFERRED_SIZE_DIMENSION.height = PREFERRED_SIZE;
 
 		int thickness = getBorderThickness();
@@ -0,0 +1,75 @@
+package x590.chess.playingside.bot;
+
+import x590.chess.config.BotConfig;
+import x590.chess.engine.TimeManager;
+
+/**
+ * Шахматные часы бота. Время идёт с начала вычисления хода до его осуществления.
+ * После хода на часы добавляется добавка, а по достижении контроля - время на следующий контроль.
+ * Время на часах может стать отрицательным, тогда каждый следующий ход получает минимальное время
+ */
+final class BotClock {
+
+	private static final long NANOS_IN_MILLI = 1_000_000;
+
+	private final long controlTime, increment;
+	private final int controlMoves;
+
+	/** Оставшееся время в миллисекундах */
+	private long remaining;
+
+	/** Количество ходов до контроля или {@code 0}, если время на всю партию */
+	private int movesToGo;
+
+	/** Время начала хода по {@link System#nanoTime()} или {@code 0}, если часы стоят */
+	private long moveStartTime;
+
+	BotClock(BotConfig config) {
+		this.controlTime = config.getClockTime();
+		this.increment = config.getClockIncrement();
+		this.controlMoves = config.getClockMoves();
+		this.remaining = controlTime;
+		this.movesToGo = controlMoves;
+	}
+
+	/**
+	 * Запускает часы
+	 * @return Распределение времени на ход по оставшемуся времени
+	 */
+	synchronized TimeManager startMove() {
+		moveStartTime = System.nanoTime();
+		return TimeManager.forClock(remaining, increment, movesToGo);
+	}
+
+	/**
+	 * Останавливает часы после хода и вычитает потраченное время
+	 */
+	synchronized void stopMove() {
+		if (moveStartTime == 0) {
+			return;
+		}
+
+		remaining -= (System.nanoTime() - moveStartTime) / NANOS_IN_MILLI;
+		remaining += increment;
+		moveStartTime = 0;
+
+		if (controlMoves > 0 && --movesToGo == 0) {
+			remaining += controlTime;
+			movesToGo = controlMoves;
+		}
+	}
+
+	/**
+	 * Останавливает часы, не вычитая время. Вызывается, когда ход отменён до того, как бот его сделал
+	 */
+	synchronized void cancelMove() {
+		moveStartTime = 0;
+	}
+
+	/**
+	 * @return Оставшееся время в миллисекундах без учёта текущего хода
+	 */
+	synchronized long getRemaining() {
+		return remaining;
+	}
+}
@@ -0,0 +1,323 @@
+package x590.chess.playingside.bot;
+
+import x590.chess.Main;
+import x590.chess.board.ChessBoard;
+import x590.chess.config.BotConfig;
+import x590.chess.engine.LazySmpSearch;
+import x590.chess.engine.Search;
+import x590.chess.engine.SearchResult;
+import x590.chess.engine.TimeManager;
+import x590.chess.engine.TranspositionTable;
+import x590.chess.engine.book.PolyglotBook;
+import x590.chess.engine.tablebase.Tablebases;
+import x590.chess.figure.Figure;
+import x590.chess.figure.FigureType;
+import x590.chess.figure.Side;
+import x590.chess.figure.move.IMove;
+import x590.chess.figure.move.IntMove;
+import x590.chess.figure.step.IStep;
+import x590.chess.gui.board.BoardPanel;
+import x590.chess.playingside.PlayingSide;
+import x590.util.Logger;
+import x590.util.annotation.Nullable;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Представляет бота, который ищет лучший ход перебором с альфа-бета отсечением
+ * и итеративным углублением (см. {@link Search}) в нескольких потоках (см. {@link LazySmpSearch}).
+ * Время, глубина поиска и количество потоков берутся из {@link BotConfig}.
+ * Если в конфиге заданы часы, время на ход распределяется по ним (см. {@link TimeManager}),
+ * иначе на каждый ход даётся одно и то же время.
+ * Во время хода человека или удалённого игрока бот ищет в позиции после его ожидаемого ответа.
+ * Если противник сходил ожидаемо, этот поиск продолжается как обычный, иначе прерывается.
+ * Пока позиция есть в книге дебютов (см. {@link PolyglotBook}), ход берётся из неё без поиска.
+ * В эндшпиле с малым количеством фигур поиск использует таблицы эндшпиля (см. {@link Tablebases}).
+ * Поиск идёт в отдельном потоке на копии доски.
+ * Бот живёт до выхода из программы, так как новая партия начинается с теми же игроками,
+ * поэтому его потоки останавливаются при завершении программы (см. {@link #close()})
+ */
+public class SearchLocalBot extends AbstractLocalBot implements AutoCloseable {
+
+	private final BotConfig config = Main.getConfig().botConfig();
+
+	private final LazySmpSearch search = new LazySmpSearch(new TranspositionTable(config.getHashSize()), config.getThreads());
+
+	private final ExecutorService searchService = Executors.newSingleThreadExecutor(runnable -> {
+		var thread = new Thread(runnable, "Search bot");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final @Nullable BotClock clock = config.hasClock() ? new BotClock(config) : null;
+
+	private final @Nullable PolyglotBook book = openBook(config.getBookPath());
+
+	private final @Nullable Tablebases tablebases = Tablebases.tryOpen(config.getTablebasePath());
+
+	/** Увеличивается при отмене хода, чтобы результат уже ненужного поиска не был использован */
+	private volatile int searchId;
+
+	// Состояние поиска во время хода противника. Защищено блокировкой на this
+
+	/** Ожидаемый ход противника или {@link IntMove#NONE}, если поиск в ход противника не идёт */
+	private int ponderMove = IntMove.NONE;
+
+	/** Доска, на которой идёт поиск в ход противника, с уже сделанным ожидаемым ходом */
+	private @Nullable ChessBoard ponderBoard;
+
+	/** Время поиска в ход противника, см. {@link TimeManager#ponder()} */
+	private @Nullable TimeManager ponderTime;
+
+	/** Результат поиска в ход противника, если поиск закончился раньше, чем противник сходил */
+	private @Nullable SearchResult ponderResult;
+
+	@Override
+	public void setup(BoardPanel boardPanel) {
+		super.setup(boardPanel);
+
+		if (tablebases != null) {
+			search.getSettings().setTablebases(tablebases);
+		}
+
+		Runtime.getRuntime().addShutdownHook(new Thread(this::close, "Search bot shutdown"));
+	}
+
+	@Override
+	public void onMoveMade(IMove move) {
+		recordStartTime();
+
+		final var clock = this.clock;
+		TimeManager timeManager = clock != null ? clock.startMove() : TimeManager.fixed(config.getSearchTime());
+
+		int searchId = this.searchId;
+
+		IMove bookMove = findBookMove();
+
+		if (bookMove != null) {
+			synchronized (this) {
+				clearPonder();
+			}
+
+			Logger.log("Book move: " + bookMove.startPos() + "-" + bookMove.targetPos());
+			makeMoveLater(bookMove, searchId, () -> {});
+			return;
+		}
+
+		synchronized (this) {
+			if (ponderMove != IntMove.NONE) {
+				if (IntMove.of(move) == ponderMove) {
+					Logger.log("Ponder hit");
+
+					SearchResult result = ponderResult;
+
+					if (result != null) {
+						finishSearch(result, ponderBoard, timeManager, searchId);
+						clearPonder();
+					} else {
+						ponderTime.ponderHit(timeManager);
+					}
+
+					return;
+				}
+
+				// Противник сделал другой ход: поиск бесполезен, но найденное им остаётся в таблице транспозиций
+				clearPonder();
+			}
+		}
+
+		ChessBoard board = getBoardPanel().getChessBoard().copy();
+
+		searchService.execute(() ->
+				finishSearch(search.search(board, config.getSearchDepth(), timeManager), board, timeManager, searchId));
+	}
+
+	/**
+	 * Выводит результат поиска и делает найденный ход, если за время поиска ход не был отменён
+	 * @param board доска, на которой шёл поиск
+	 */
+	private void finishSearch(SearchResult result, ChessBoard board, TimeManager timeManager, int searchId) {
+		Logger.logf("Depth: %d, score: %d, nodes: %d, nodes/s: %d, move: %s, ponder: %s, %s",
+				result.depth(), result.score(), result.nodes(), result.nodesPerSecond(),
+				IntMove.toLongAlgebraic(result.move()), IntMove.toLongAlgebraic(result.ponderMove()), timeManager);
+
+		Logger.log(search.getStatistics());
+
+		if (result.move() == IntMove.NONE) {
+			Logger.debug("У бота нет ходов :(");
+			return;
+		}
+
+		// Поиск в ход противника начинается до хода, чтобы конец партии после хода сразу остановил его
+		makeMoveLater(IntMove.toMove(result.move()), searchId, () -> startPondering(board, result, searchId));
+	}
+
+	/**
+	 * Делает ход после ожидания (см. {@link #waitAndThen(Runnable)}), если за это время ход противника не был отменён
+	 * @param beforeMove выполняется непосредственно перед ходом
+	 */
+	private void makeMoveLater(IMove move, int searchId, Runnable beforeMove) {
+		final var clock = this.clock;
+
+		waitAndThen(() -> {
+			if (searchId == this.searchId) {
+				if (clock != null) {
+					clock.stopMove();
+					Logger.logf("Clock: %d ms", clock.getRemaining());
+				}
+
+				beforeMove.run();
+				getBoardPanel().makeStep(move.startPos(), move);
+			}
+		});
+	}
+
+	/**
+	 * @return Ход из книги дебютов для текущей позиции или {@code null}, если книги нет или позиции в ней нет
+	 */
+	private @Nullable IMove findBookMove() {
+		return book != null ?
+				book.findMove(getBoardPanel().getChessBoard(), ThreadLocalRandom.current()) :
+				null;
+	}
+
+	private static @Nullable PolyglotBook openBook(@Nullable String path) {
+		if (path == null) {
+			return null;
+		}
+
+		try {
+			return PolyglotBook.open(Path.of(path));
+		} catch (IOException | InvalidPathException ex) {
+			Logger.warning("Failed to open opening book \"" + path + "\": " + ex);
+			return null;
+		}
+	}
+
+	/**
+	 * Начинает поиск в позиции после хода бота и ожидаемого ответа противника.
+	 * Поиск не ограничен по времени, пока противник не сделает ход
+	 * @param board доска, на которой шёл поиск хода бота. Изменяется
+	 */
+	private void startPondering(ChessBoard board, SearchResult result, int searchId) {
+		if (!config.isPonder() || result.ponderMove() == IntMove.NONE || isOpponentBot()) {
+			return;
+		}
+
+		int ponderMove = result.ponderMove();
+
+		board.makeMove(result.move());
+		board.makeMove(ponderMove);
+
+		TimeManager ponderTime = TimeManager.ponder();
+
+		synchronized (this) {
+			clearPonder();
+			this.ponderMove = ponderMove;
+			this.ponderBoard = board;
+			this.ponderTime = ponderTime;
+		}
+
+		searchService.execute(() -> {
+			SearchResult ponderResult = search.search(board, config.getSearchDepth(), ponderTime);
+			TimeManager timeManager;
+
+			synchronized (this) {
+				if (searchId != this.searchId || this.ponderTime != ponderTime) {
+					return;
+				}
+
+				timeManager = ponderTime.getPonderHit();
+
+				if (timeManager == null) {
+					// Поиск закончился раньше, чем противник сходил. Результат будет использован, если он сходит ожидаемо
+					this.ponderResult = ponderResult;
+					return;
+				}
+
+				clearPonder();
+			}
+
+			finishSearch(ponderResult, board, timeManager, searchId);
+		});
+	}
+
+	/**
+	 * Боты ходят сразу, поэтому искать в их ход бессмысленно: потоки только помешают друг другу
+	 */
+	private boolean isOpponentBot() {
+		BoardPanel boardPanel = getBoardPanel();
+
+		PlayingSide opponent = boardPanel.getThisPlayingSide() == this ?
+				boardPanel.getOpponentPlayingSide() :
+				boardPanel.getThisPlayingSide();
+
+		return opponent instanceof AbstractLocalBot;
+	}
+
+	/**
+	 * Прерывает поиск в ход противника, если он идёт, и сбрасывает его состояние
+	 */
+	private void clearPonder() {
+		if (ponderTime != null) {
+			ponderTime.stopPondering();
+		}
+
+		ponderMove = IntMove.NONE;
+		ponderBoard = null;
+		ponderTime = null;
+		ponderResult = null;
+	}
+
+	@Override
+	public void onMoveCancel(IMove move, @Nullable IStep prevStep) {
+		stopSearch();
+	}
+
+	@Override
+	public void onGameEnd() {
+		stopSearch();
+	}
+
+	private synchronized void stopSearch() {
+		searchId++;
+		search.stop();
+		clearPonder();
+
+		if (clock != null) {
+			clock.cancelMove();
+		}
+	}
+
+	/**
+	 * С часами ход не задерживается, чтобы ожидание не тратило время на часах
+	 */
+	@Override
+	protected int getTimeout() {
+		return clock != null ? 0 : super.getTimeout();
+	}
+
+	/**
+	 * Прерывает поиск и останавливает поток бота и вспомогательные потоки поиска
+	 */
+	@Override
+	public void close() {
+		stopSearch();
+		searchService.shutdownNow();
+		search.close();
+	}
+
+	/**
+	 * Фигура превращения уже выбрана поиском и передаётся в ходе,
+	 * поэтому этот метод вызывается только в исключительных случаях
+	 */
+	@Override
+	public Figure queryPawnTurningFigure(Side side) {
+		return Figure.valueOf(side, FigureType.QUEEN);
+	}
+}